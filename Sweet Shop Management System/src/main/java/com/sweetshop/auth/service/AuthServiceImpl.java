@@ -9,6 +9,7 @@ import com.sweetshop.security.JwtTokenProvider;
 import com.sweetshop.user.domain.Role;
 import com.sweetshop.user.domain.User;
 import com.sweetshop.user.repository.UserRepository;
+import com.sweetshop.user.service.UserDirectory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -20,23 +21,35 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final UserDirectory userDirectory;
+    private final PasswordHashingExecutor passwordHashing;
+    private final PasswordRehashQueue passwordRehashQueue;
+    private final String dummyHash;
     
     public AuthServiceImpl(UserRepository userRepository, 
                           PasswordEncoder passwordEncoder, 
-                          JwtTokenProvider jwtTokenProvider) {
+                          JwtTokenProvider jwtTokenProvider,
+                          UserDirectory userDirectory,
+                          PasswordHashingExecutor passwordHashing,
+                          PasswordRehashQueue passwordRehashQueue) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.userDirectory = userDirectory;
+        this.passwordHashing = passwordHashing;
+        this.passwordRehashQueue = passwordRehashQueue;
+        // Hashed at the current cost, so a missing username takes as long to reject as a wrong password.
+        this.dummyHash = passwordEncoder.encode("dummy-password-to-prevent-timing-attack");
     }
     
     @Override
     public RegisterResponse register(RegisterRequest request) {
-        Optional<User> existingUser = userRepository.findByUsername(request.getUsername());
+        Optional<User> existingUser = userDirectory.findByUsername(request.getUsername());
         if (existingUser.isPresent()) {
             throw new IllegalArgumentException("Username already exists");
         }
         
-        String encodedPassword = passwordEncoder.encode(request.getPassword());
+        String encodedPassword = passwordHashing.execute("encode", () -> passwordEncoder.encode(request.getPassword()));
         
         User user = new User();
         user.setUsername(request.getUsername());
@@ -44,6 +57,8 @@ public class AuthServiceImpl implements AuthService {
         user.setRole(Role.USER);
         
         User savedUser = userRepository.save(user);
+        // The username may be negatively cached from the check above or an earlier failed login.
+        userDirectory.invalidate(savedUser.getUsername());
         return new RegisterResponse(
             savedUser.getId(),
             savedUser.getUsername(),
@@ -53,19 +68,26 @@ public class AuthServiceImpl implements AuthService {
     
     @Override
     public LoginResponse login(LoginRequest request) {
-        Optional<User> userOptional = userRepository.findByUsername(request.getUsername());
+        Optional<User> userOptional = userDirectory.findByUsername(request.getUsername());
         
         String storedPassword = userOptional
                 .map(User::getPassword)
-                .orElse("$2a$10$dummyHashToPreventTimingAttack123456789012345678901234567890"); // Constant dummy hash
+                .orElse(dummyHash);
         
-        if (!passwordEncoder.matches(request.getPassword(), storedPassword)) {
+        boolean matches = passwordHashing.execute("matches",
+            () -> passwordEncoder.matches(request.getPassword(), storedPassword));
+        if (!matches) {
             throw new AuthenticationException("Invalid username or password");
         }
         
         User user = userOptional.orElseThrow(() -> 
             new AuthenticationException("Invalid username or password"));
         
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            // Written behind by the rehash queue, so the login response never waits on an UPDATE.
+            passwordRehashQueue.submit(user, request.getPassword());
+        }
+        
         String token = jwtTokenProvider.generateToken(user);
         
         LoginResponse response = new LoginResponse();
@@ -0,0 +1,104 @@
+package com.sweetshop.auth.service;
+
+import com.sweetshop.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Component
+public class PasswordHashingExecutor {
+    
+    private static final String BUSY_MESSAGE = "Authentication service is busy. Please try again shortly.";
+    
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWait;
+    private final Counter rejections;
+    private final long waitTimeoutMillis;
+    
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${auth.hashing.threads:0}") int threads,
+                                   @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${auth.hashing.wait-timeout-ms:5000}") long waitTimeoutMillis) {
+        // By default hashing gets half the cores, so a login flood cannot take the CPUs catalog requests need.
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+        this.waitTimeoutMillis = Math.max(1, waitTimeoutMillis);
+        this.queueWait = Timer.builder("auth.hashing.queue.wait")
+                .description("Time password hashing tasks spend queued before a worker picks them up")
+                .register(meterRegistry);
+        this.rejections = meterRegistry.counter("auth.hashing.rejected");
+        meterRegistry.gauge("auth.hashing.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+    
+    public <T> T execute(String operation, Supplier<T> task) {
+        Timer hashing = Timer.builder("auth.hashing.duration")
+                .description("Time spent running password hashing on the hashing pool")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashing.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            // Shed the request straight away instead of parking another request thread behind the queue.
+            rejections.increment();
+            throw new ServiceUnavailableException(BUSY_MESSAGE);
+        }
+        
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new ServiceUnavailableException(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(BUSY_MESSAGE);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static ThreadFactory threadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,202 @@
+package com.sweetshop.auth.service;
+
+import com.sweetshop.exception.ServiceUnavailableException;
+import com.sweetshop.user.domain.User;
+import com.sweetshop.user.repository.UserRepository;
+import com.sweetshop.user.service.UserDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class PasswordRehashQueue {
+    
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashing;
+    private final UserDirectory userDirectory;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingRehash> buffer;
+    private final Set<Long> queuedUserIds = ConcurrentHashMap.newKeySet();
+    private final Counter rehashed;
+    private final Counter dropped;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private volatile boolean running;
+    private volatile Thread worker;
+    
+    public PasswordRehashQueue(UserRepository userRepository,
+                               PasswordEncoder passwordEncoder,
+                               PasswordHashingExecutor passwordHashing,
+                               UserDirectory userDirectory,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${auth.password.rehash.buffer-capacity:1024}") int bufferCapacity,
+                               @Value("${auth.password.rehash.batch-size:50}") int batchSize,
+                               @Value("${auth.password.rehash.flush-interval-ms:500}") long flushIntervalMs) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
+        this.userDirectory = userDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Duration.ofMillis(Math.max(1, flushIntervalMs));
+        this.rehashed = Counter.builder("auth.password.rehashed")
+                .description("Stored password hashes rewritten at the current cost after a successful login")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("auth.password.rehash.dropped")
+                .description("Rehashes skipped because the queue or hashing pool was full; retried on a later login")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.password.rehash.pending", buffer, BlockingQueue::size);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "password-rehash-writer");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+    
+    public void submit(User user, CharSequence rawPassword) {
+        if (!queuedUserIds.add(user.getId())) {
+            return;
+        }
+        
+        PendingRehash pending = new PendingRehash(user.getId(), user.getUsername(), user.getPassword(),
+            rawPassword.toString().toCharArray());
+        if (!buffer.offer(pending)) {
+            // The login has already succeeded, so the upgrade simply waits for a later one.
+            release(pending);
+            dropped.increment();
+        }
+    }
+    
+    int pendingCount() {
+        return buffer.size();
+    }
+    
+    private void run() {
+        List<PendingRehash> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingRehash first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                // Rehashing is opportunistic; the failed batch is retried by the users' next logins.
+                dropped.increment(batch.size());
+            } finally {
+                batch.forEach(this::release);
+                batch.clear();
+            }
+        }
+    }
+    
+    void flush() {
+        List<PendingRehash> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                process(batch);
+            } finally {
+                batch.forEach(this::release);
+                batch.clear();
+            }
+        }
+    }
+    
+    private void process(List<PendingRehash> batch) {
+        List<HashUpdate> updates = new ArrayList<>(batch.size());
+        for (PendingRehash pending : batch) {
+            try {
+                String newHash = passwordHashing.execute("rehash",
+                    () -> passwordEncoder.encode(CharBuffer.wrap(pending.password)));
+                updates.add(new HashUpdate(pending.userId, pending.username, pending.oldHash, newHash));
+            } catch (ServiceUnavailableException e) {
+                // Logins keep priority on the hashing pool; this one is retried on the user's next login.
+                dropped.increment();
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        
+        int written = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (HashUpdate update : updates) {
+                // Matching on the old hash leaves a password changed in the meantime untouched.
+                if (userRepository.replacePasswordHash(update.userId(), update.oldHash(), update.newHash()) > 0) {
+                    userDirectory.invalidate(update.username());
+                    count++;
+                }
+            }
+            return count;
+        });
+        rehashed.increment(written);
+    }
+    
+    private void release(PendingRehash pending) {
+        Arrays.fill(pending.password, '\0');
+        queuedUserIds.remove(pending.userId);
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        
+        // Pending upgrades are not worth delaying shutdown for; they are picked up again on later logins.
+        List<PendingRehash> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        remaining.forEach(this::release);
+    }
+    
+    private record HashUpdate(Long userId, String username, String oldHash, String newHash) {
+    }
+    
+    private static final class PendingRehash {
+        private final Long userId;
+        private final String username;
+        private final String oldHash;
+        private final char[] password;
+        
+        private PendingRehash(Long userId, String username, String oldHash, char[] password) {
+            this.userId = userId;
+            this.username = username;
+            this.oldHash = oldHash;
+            this.password = password;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.sweetshop.common.idempotency;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.InvalidOperationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Component
+public class IdempotencyStore {
+    
+    public static final String HEADER = "Idempotency-Key";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    // Insertion-ordered so eviction walks oldest first; every access holds the map's monitor.
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Clock clock;
+    
+    public IdempotencyStore(@Value("${idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${idempotency.ttl-seconds:3600}") long ttlSeconds,
+                            @Value("${idempotency.wait-timeout-seconds:30}") long waitTimeoutSeconds) {
+        this(maxEntries, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(waitTimeoutSeconds), Clock.systemUTC());
+    }
+    
+    IdempotencyStore(int maxEntries, Duration ttl, Duration waitTimeout, Clock clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.clock = clock;
+    }
+    
+    public <T> T execute(String scope, String key, Object fingerprint, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(
+                String.format("%s must be between 1 and %d characters", HEADER, MAX_KEY_LENGTH)
+            );
+        }
+        
+        String storeKey = scope + ':' + key;
+        Entry candidate = new Entry(fingerprint);
+        Entry existing;
+        synchronized (entries) {
+            existing = entries.get(storeKey);
+            if (existing != null && existing.isExpired(clock.instant())) {
+                entries.remove(storeKey);
+                existing = null;
+            }
+            if (existing == null) {
+                entries.put(storeKey, candidate);
+                evictIfFull();
+            }
+        }
+        
+        if (existing == null) {
+            return run(storeKey, candidate, action);
+        }
+        if (!Objects.equals(existing.fingerprint, fingerprint)) {
+            throw new BadRequestException(HEADER + " has already been used for a different request");
+        }
+        return awaitResult(existing);
+    }
+    
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    private <T> T run(String storeKey, Entry entry, Supplier<T> action) {
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // Failed attempts changed nothing, so the key is freed for the client to retry.
+            synchronized (entries) {
+                entries.remove(storeKey, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.expiresAt = clock.instant().plus(ttl);
+        entry.result.complete(result);
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T awaitResult(Entry entry) {
+        try {
+            return (T) entry.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new InvalidOperationException("A request with this " + HEADER + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidOperationException("A request with this " + HEADER + " is still being processed");
+        }
+    }
+    
+    private void evictIfFull() {
+        Instant now = clock.instant();
+        Iterator<Entry> oldestFirst = entries.values().iterator();
+        while (oldestFirst.hasNext()) {
+            Entry entry = oldestFirst.next();
+            boolean full = entries.size() > maxEntries;
+            if (entry.isExpired(now) || (full && entry.result.isDone())) {
+                oldestFirst.remove();
+            } else if (!full) {
+                return;
+            }
+            // An in-flight request is skipped rather than evicted, or its retry could run a second time.
+        }
+    }
+    
+    private static final class Entry {
+        private final Object fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile Instant expiresAt;
+        
+        private Entry(Object fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+        
+        private boolean isExpired(Instant now) {
+            Instant expiry = expiresAt;
+            return expiry != null && !expiry.isAfter(now);
+        }
+    }
+}
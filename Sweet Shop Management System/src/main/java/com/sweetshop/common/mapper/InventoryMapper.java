@@ -3,6 +3,8 @@ package com.sweetshop.common.mapper;
 import com.sweetshop.inventory.dto.InventoryResponse;
 import com.sweetshop.sweet.domain.Sweet;
 
+import java.math.BigDecimal;
+
 public class InventoryMapper {
     
     private InventoryMapper() {
@@ -10,10 +12,29 @@ public class InventoryMapper {
     }
     
     public static InventoryResponse toResponse(Sweet sweet) {
+        return toResponse(sweet, sweet.getQuantity());
+    }
+    
+    public static InventoryResponse toResponse(Sweet sweet, int quantity) {
+        return toResponse(sweet, quantity, sweet.getVersion());
+    }
+    
+    public static InventoryResponse toResponse(Sweet sweet, int quantity, Long version) {
+        return toResponse(sweet.getId(), sweet.getName(), sweet.getPrice(), quantity, version);
+    }
+    
+    public static InventoryResponse toResponse(Long sweetId, String sweetName, BigDecimal unitPrice, int quantity) {
+        return toResponse(sweetId, sweetName, unitPrice, quantity, null);
+    }
+    
+    public static InventoryResponse toResponse(Long sweetId, String sweetName, BigDecimal unitPrice, int quantity,
+                                               Long version) {
         InventoryResponse response = new InventoryResponse();
-        response.setSweetId(sweet.getId());
-        response.setSweetName(sweet.getName());
-        response.setQuantity(sweet.getQuantity());
+        response.setSweetId(sweetId);
+        response.setSweetName(sweetName);
+        response.setUnitPrice(unitPrice);
+        response.setQuantity(quantity);
+        response.setVersion(version);
         return response;
     }
 }
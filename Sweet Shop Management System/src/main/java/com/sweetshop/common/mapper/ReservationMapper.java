@@ -0,0 +1,21 @@
+package com.sweetshop.common.mapper;
+
+import com.sweetshop.inventory.domain.StockReservation;
+import com.sweetshop.inventory.dto.ReservationResponse;
+
+public class ReservationMapper {
+    
+    private ReservationMapper() {
+        // Utility class - prevent instantiation
+    }
+    
+    public static ReservationResponse toResponse(StockReservation reservation) {
+        ReservationResponse response = new ReservationResponse();
+        response.setReservationId(reservation.getId());
+        response.setSweetId(reservation.getSweetId());
+        response.setQuantity(reservation.getQuantity());
+        response.setStatus(reservation.getStatus().name());
+        response.setExpiresAt(reservation.getExpiresAt());
+        return response;
+    }
+}
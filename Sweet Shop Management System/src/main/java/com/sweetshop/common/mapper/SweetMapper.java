@@ -23,7 +23,11 @@ public class SweetMapper {
         sweet.setName(request.getName());
         sweet.setCategory(request.getCategory());
         sweet.setPrice(request.getPrice());
-        sweet.setQuantity(request.getQuantity());
+        if (sweet.isSharded()) {
+            sweet.setShardedQuantity(request.getQuantity());
+        } else {
+            sweet.setQuantity(request.getQuantity());
+        }
     }
     
     public static SweetResponse toResponse(Sweet sweet) {
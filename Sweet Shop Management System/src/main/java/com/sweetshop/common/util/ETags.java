@@ -0,0 +1,31 @@
+package com.sweetshop.common.util;
+
+public class ETags {
+    
+    private ETags() {
+        // Utility class - prevent instantiation
+    }
+    
+    public static String strong(String value) {
+        return "\"" + value + "\"";
+    }
+    
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        // If-None-Match uses the weak comparison, so a W/ prefix on either side is ignored.
+        String expected = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag) || opaque(tag).equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -2,7 +2,7 @@ package com.sweetshop.common.util;
 
 import com.sweetshop.exception.UnauthorizedException;
 import com.sweetshop.user.domain.Role;
-import com.sweetshop.user.domain.User;
+import com.sweetshop.user.domain.UserIdentity;
 
 public class RoleChecker {
     
@@ -10,7 +10,7 @@ public class RoleChecker {
         // Utility class - prevent instantiation
     }
     
-    public static void requireAdmin(User user, String action) {
+    public static void requireAdmin(UserIdentity user, String action) {
         if (user.getRole() != Role.ADMIN) {
             throw new UnauthorizedException(
                 String.format("Only ADMIN users can %s", action)
@@ -1,41 +1,98 @@
 package com.sweetshop.inventory.controller;
 
 import com.sweetshop.common.controller.BaseController;
+import com.sweetshop.common.idempotency.IdempotencyStore;
+import com.sweetshop.inventory.dto.BatchPurchaseRequest;
+import com.sweetshop.inventory.dto.BatchPurchaseResponse;
 import com.sweetshop.inventory.dto.InventoryRequest;
 import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.dto.StockShardRequest;
+import com.sweetshop.inventory.dto.StockShardResponse;
 import com.sweetshop.inventory.service.InventoryService;
-import com.sweetshop.user.repository.UserRepository;
+import com.sweetshop.inventory.service.ShardedStockService;
+import com.sweetshop.security.AuthenticatedUser;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/sweets")
 public class InventoryController extends BaseController {
     
     private final InventoryService inventoryService;
+    private final ShardedStockService shardedStockService;
+    private final IdempotencyStore idempotencyStore;
     
-    public InventoryController(InventoryService inventoryService, UserRepository userRepository) {
-        super(userRepository);
+    public InventoryController(InventoryService inventoryService,
+                               ShardedStockService shardedStockService,
+                               IdempotencyStore idempotencyStore) {
         this.inventoryService = inventoryService;
+        this.shardedStockService = shardedStockService;
+        this.idempotencyStore = idempotencyStore;
     }
     
     @PostMapping("/{id}/purchase")
     public ResponseEntity<InventoryResponse> purchase(
             @PathVariable @jakarta.validation.constraints.Positive(message = "ID must be a positive number") Long id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody InventoryRequest request) {
         request.setSweetId(id);
-        return ResponseEntity.ok(inventoryService.purchase(request, getCurrentUser()));
+        AuthenticatedUser currentUser = getAuthenticatedUser();
+        InventoryResponse response = idempotencyStore.execute("purchase:" + currentUser.getId(), idempotencyKey,
+            id + ":" + request.getQuantity(), () -> inventoryService.purchase(request, currentUser));
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/purchase")
+    public ResponseEntity<BatchPurchaseResponse> purchaseAll(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchPurchaseRequest request) {
+        AuthenticatedUser currentUser = getAuthenticatedUser();
+        String fingerprint = request.getItems().stream()
+                .map(item -> item.getSweetId() + ":" + item.getQuantity())
+                .collect(Collectors.joining(","));
+        BatchPurchaseResponse response = idempotencyStore.execute("cart:" + currentUser.getId(), idempotencyKey,
+            fingerprint, () -> inventoryService.purchaseAll(request, currentUser));
+        HttpStatus status = response.isSuccess() ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(response);
     }
     
     @PostMapping("/{id}/restock")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<InventoryResponse> restock(
             @PathVariable @jakarta.validation.constraints.Positive(message = "ID must be a positive number") Long id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody InventoryRequest request) {
         request.setSweetId(id);
-        return ResponseEntity.ok(inventoryService.restock(request, getCurrentUser()));
+        AuthenticatedUser currentUser = getAuthenticatedUser();
+        InventoryResponse response = idempotencyStore.execute("restock:" + currentUser.getId(), idempotencyKey,
+            id + ":" + request.getQuantity(), () -> inventoryService.restock(request, currentUser));
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardResponse> getStockShards(
+            @PathVariable @jakarta.validation.constraints.Positive(message = "ID must be a positive number") Long id) {
+        return ResponseEntity.ok(shardedStockService.getShards(id));
+    }
+    
+    @PutMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardResponse> configureStockShards(
+            @PathVariable @jakarta.validation.constraints.Positive(message = "ID must be a positive number") Long id,
+            @Valid @RequestBody StockShardRequest request) {
+        return ResponseEntity.ok(shardedStockService.configure(id, request.getShardCount(), getAuthenticatedUser()));
+    }
+    
+    @DeleteMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardResponse> disableStockShards(
+            @PathVariable @jakarta.validation.constraints.Positive(message = "ID must be a positive number") Long id) {
+        return ResponseEntity.ok(shardedStockService.disable(id, getAuthenticatedUser()));
     }
 }
-
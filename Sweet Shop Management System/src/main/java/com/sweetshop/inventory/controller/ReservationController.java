@@ -0,0 +1,42 @@
+package com.sweetshop.inventory.controller;
+
+import com.sweetshop.common.controller.BaseController;
+import com.sweetshop.inventory.dto.ReservationRequest;
+import com.sweetshop.inventory.dto.ReservationResponse;
+import com.sweetshop.inventory.service.ReservationService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController extends BaseController {
+    
+    private final ReservationService reservationService;
+    
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+    
+    @PostMapping
+    public ResponseEntity<ReservationResponse> hold(@Valid @RequestBody ReservationRequest request) {
+        ReservationResponse response = reservationService.hold(request, getAuthenticatedUser());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @GetMapping("/{reservationId}")
+    public ResponseEntity<ReservationResponse> getReservation(@PathVariable String reservationId) {
+        return ResponseEntity.ok(reservationService.getReservation(reservationId, getAuthenticatedUser()));
+    }
+    
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable String reservationId) {
+        return ResponseEntity.ok(reservationService.confirm(reservationId, getAuthenticatedUser()));
+    }
+    
+    @PostMapping("/{reservationId}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable String reservationId) {
+        return ResponseEntity.ok(reservationService.release(reservationId, getAuthenticatedUser()));
+    }
+}
@@ -1,14 +1,47 @@
 package com.sweetshop.inventory.domain;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
 
 @Entity
+@Table(name = "inventory_ledger",
+       indexes = {
+           @Index(name = "idx_inventory_ledger_sweet_id", columnList = "sweet_id"),
+           @Index(name = "idx_inventory_ledger_user_id", columnList = "user_id")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class Inventory {
+    // Pooled sequence ids keep JDBC insert batching available; IDENTITY would force one round trip per row.
     @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_ledger_seq")
+    @SequenceGenerator(name = "inventory_ledger_seq", sequenceName = "inventory_ledger_seq", allocationSize = 100)
     private Long id;
-}
 
+    @Column(name = "sweet_id", nullable = false)
+    private Long sweetId;
+
+    @Column(name = "user_id")
+    private Long userId;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private InventoryMovementType type;
 
+    @Column(nullable = false)
+    private int quantity;
 
+    @Column(name = "unit_price", precision = 19, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+}
@@ -0,0 +1,6 @@
+package com.sweetshop.inventory.domain;
+
+public enum InventoryMovementType {
+    PURCHASE,
+    RESTOCK
+}
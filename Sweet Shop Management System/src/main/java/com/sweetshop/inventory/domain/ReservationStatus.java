@@ -0,0 +1,8 @@
+package com.sweetshop.inventory.domain;
+
+public enum ReservationStatus {
+    ACTIVE,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,47 @@
+package com.sweetshop.inventory.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "stock_reservations",
+       indexes = {
+           @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status, expires_at")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "sweet_id", nullable = false)
+    private Long sweetId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
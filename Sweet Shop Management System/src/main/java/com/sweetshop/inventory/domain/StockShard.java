@@ -0,0 +1,54 @@
+package com.sweetshop.inventory.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Check;
+
+@Entity
+@Table(name = "sweet_stock_shards",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_sweet_stock_shards_sweet_shard", columnNames = {"sweet_id", "shard_index"})
+       },
+       indexes = {
+           @Index(name = "idx_sweet_stock_shards_change_txid_seq", columnList = "change_txid, change_seq")
+       })
+@Check(constraints = "quantity >= 0")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sweet_stock_shard_seq")
+    @SequenceGenerator(name = "sweet_stock_shard_seq", sequenceName = "sweet_stock_shard_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "sweet_id", nullable = false)
+    private Long sweetId;
+
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    // Sharded stock changes stamp the shard they touch, so hot purchases never lock the sweet row for the feed.
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Long changeSeq;
+
+    @Column(name = "change_txid", insertable = false, updatable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Long changeTxid;
+
+    public StockShard(Long id, Long sweetId, int shardIndex, int quantity) {
+        this.id = id;
+        this.sweetId = sweetId;
+        this.shardIndex = shardIndex;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sweetshop.inventory.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BatchPurchaseItem {
+    @NotNull(message = "Sweet ID is required")
+    @Positive(message = "Sweet ID must be a positive number")
+    private Long sweetId;
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be greater than zero")
+    private Integer quantity;
+}
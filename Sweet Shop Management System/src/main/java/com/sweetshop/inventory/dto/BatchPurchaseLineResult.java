@@ -0,0 +1,17 @@
+package com.sweetshop.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchPurchaseLineResult {
+    private Long sweetId;
+    private String sweetName;
+    private int requestedQuantity;
+    private Integer availableQuantity;
+    private BatchPurchaseLineStatus status;
+    private String message;
+}
@@ -0,0 +1,8 @@
+package com.sweetshop.inventory.dto;
+
+public enum BatchPurchaseLineStatus {
+    PURCHASED,
+    INSUFFICIENT_QUANTITY,
+    NOT_FOUND,
+    SKIPPED
+}
@@ -0,0 +1,17 @@
+package com.sweetshop.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchPurchaseRequest {
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 100, message = "A purchase cannot contain more than 100 items")
+    private List<@Valid BatchPurchaseItem> items;
+}
@@ -0,0 +1,15 @@
+package com.sweetshop.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchPurchaseResponse {
+    private boolean success;
+    private List<BatchPurchaseLineResult> lines;
+}
@@ -1,8 +1,19 @@
 package com.sweetshop.inventory.dto;
 
-public class InventoryDto {
-}
-
-
+import com.sweetshop.inventory.domain.InventoryMovementType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 
+@Getter
+@AllArgsConstructor
+public class InventoryDto {
+    private final Long sweetId;
+    private final Long userId;
+    private final InventoryMovementType type;
+    private final int quantity;
+    private final BigDecimal unitPrice;
+    private final Instant occurredAt;
+}
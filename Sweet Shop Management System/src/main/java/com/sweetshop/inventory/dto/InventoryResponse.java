@@ -1,14 +1,21 @@
 package com.sweetshop.inventory.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.math.BigDecimal;
+
 @Getter
 @Setter
 public class InventoryResponse {
     private Long sweetId;
     private String sweetName;
+    private BigDecimal unitPrice;
     private Integer quantity;
+    // Row version after the change, used to order index updates; not part of the API.
+    @JsonIgnore
+    private Long version;
 }
 
 
@@ -0,0 +1,16 @@
+package com.sweetshop.inventory.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class ReservationResponse {
+    private String reservationId;
+    private Long sweetId;
+    private Integer quantity;
+    private String status;
+    private Instant expiresAt;
+}
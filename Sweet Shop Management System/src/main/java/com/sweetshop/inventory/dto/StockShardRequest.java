@@ -0,0 +1,16 @@
+package com.sweetshop.inventory.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StockShardRequest {
+    @NotNull(message = "Shard count is required")
+    @Min(value = 1, message = "Shard count must be at least 1")
+    @Max(value = 64, message = "Shard count cannot exceed 64")
+    private Integer shardCount;
+}
@@ -0,0 +1,17 @@
+package com.sweetshop.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class StockShardResponse {
+    private Long sweetId;
+    private boolean sharded;
+    private long totalQuantity;
+    private List<Integer> shardQuantities;
+}
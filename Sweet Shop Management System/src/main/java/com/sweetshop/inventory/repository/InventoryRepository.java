@@ -1,6 +1,7 @@
 package com.sweetshop.inventory.repository;
 
 import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.repository.SweetRepository;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -8,6 +9,8 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<Sweet, Long> {
@@ -16,13 +19,42 @@ public interface InventoryRepository extends JpaRepository<Sweet, Long> {
     @Query("SELECT s FROM Sweet s WHERE s.id = :id")
     Optional<Sweet> findByIdWithLock(@Param("id") Long id);
     
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sweet s WHERE s.id IN :ids ORDER BY s.id")
+    List<Sweet> findAllByIdWithLock(@Param("ids") Collection<Long> ids);
+    
+    // Read from the table rather than a managed entity, so it sees the stock UPDATEs made earlier in the transaction.
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.price AS price, CASE WHEN s.sharded " +
+                   "THEN CAST((SELECT COALESCE(SUM(ss.quantity), 0) FROM sweet_stock_shards ss " +
+                   "WHERE ss.sweet_id = s.id) AS integer) ELSE s.quantity END AS quantity, " +
+                   "s.version AS version FROM sweets s WHERE s.id = :id",
+           nativeQuery = true)
+    Optional<StockLevel> findStockLevel(@Param("id") Long id);
+    
+    // Every stock UPDATE stamps the change feed in the same statement, so it costs no extra round trip or lock.
     @Modifying
-    @Query("UPDATE Sweet s SET s.quantity = s.quantity - :quantity WHERE s.id = :id AND s.quantity >= :quantity")
+    @Query(value = "UPDATE sweets SET quantity = quantity - :quantity, version = version + 1, " +
+                   SweetRepository.CHANGE_STAMP + "WHERE id = :id AND quantity >= :quantity",
+           nativeQuery = true)
     int decreaseQuantity(@Param("id") Long id, @Param("quantity") int quantity);
     
+    @Query(value = "UPDATE sweets SET quantity = quantity - :quantity, version = version + 1, " +
+                   SweetRepository.CHANGE_STAMP + "WHERE id = :id AND quantity >= :quantity " +
+                   "RETURNING id AS id, name AS name, price AS price, quantity AS quantity, version AS version",
+           nativeQuery = true)
+    Optional<StockLevel> decreaseQuantityReturning(@Param("id") Long id, @Param("quantity") int quantity);
+    
     @Modifying
-    @Query("UPDATE Sweet s SET s.quantity = s.quantity + :quantity WHERE s.id = :id")
+    @Query(value = "UPDATE sweets s SET quantity = s.quantity - v.quantity, version = s.version + 1, " +
+                   SweetRepository.CHANGE_STAMP +
+                   "FROM unnest(CAST(:ids AS bigint[]), CAST(:quantities AS integer[])) AS v(id, quantity) " +
+                   "WHERE s.id = v.id AND s.quantity >= v.quantity",
+           nativeQuery = true)
+    int decreaseQuantities(@Param("ids") Long[] ids, @Param("quantities") Integer[] quantities);
+    
+    @Modifying
+    @Query(value = "UPDATE sweets SET quantity = quantity + :quantity, version = version + 1, " +
+                   SweetRepository.CHANGE_STAMP + "WHERE id = :id",
+           nativeQuery = true)
     int increaseQuantity(@Param("id") Long id, @Param("quantity") int quantity);
 }
-
-
@@ -0,0 +1,11 @@
+package com.sweetshop.inventory.repository;
+
+import java.math.BigDecimal;
+
+public interface StockLevel {
+    Long getId();
+    String getName();
+    BigDecimal getPrice();
+    Integer getQuantity();
+    Long getVersion();
+}
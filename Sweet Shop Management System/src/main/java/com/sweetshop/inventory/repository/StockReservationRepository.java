@@ -0,0 +1,11 @@
+package com.sweetshop.inventory.repository;
+
+import com.sweetshop.inventory.domain.ReservationStatus;
+import com.sweetshop.inventory.domain.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+    List<StockReservation> findByStatus(ReservationStatus status);
+}
@@ -0,0 +1,53 @@
+package com.sweetshop.inventory.repository;
+
+import com.sweetshop.inventory.domain.StockShard;
+import com.sweetshop.sweet.repository.SweetRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockShardRepository extends JpaRepository<StockShard, Long> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockShard s WHERE s.sweetId = :sweetId ORDER BY s.shardIndex")
+    List<StockShard> findBySweetIdWithLock(@Param("sweetId") Long sweetId);
+    
+    List<StockShard> findBySweetIdOrderByShardIndex(Long sweetId);
+    
+    int countBySweetId(Long sweetId);
+    
+    @Query("SELECT s.sweetId, COUNT(s) FROM StockShard s GROUP BY s.sweetId")
+    List<Object[]> countShardsPerSweet();
+    
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM StockShard s WHERE s.sweetId = :sweetId")
+    long sumQuantity(@Param("sweetId") Long sweetId);
+    
+    // Shard UPDATEs stamp the change feed on the shard row they already lock.
+    @Modifying
+    @Query(value = "UPDATE sweet_stock_shards SET quantity = quantity - :quantity, " +
+                   SweetRepository.CHANGE_STAMP +
+                   "WHERE sweet_id = :sweetId AND shard_index = :shardIndex AND quantity >= :quantity",
+           nativeQuery = true)
+    int decreaseQuantity(@Param("sweetId") Long sweetId,
+                         @Param("shardIndex") int shardIndex,
+                         @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query(value = "UPDATE sweet_stock_shards SET quantity = quantity + :quantity, " +
+                   SweetRepository.CHANGE_STAMP + "WHERE sweet_id = :sweetId AND shard_index = :shardIndex",
+           nativeQuery = true)
+    int increaseQuantity(@Param("sweetId") Long sweetId,
+                         @Param("shardIndex") int shardIndex,
+                         @Param("quantity") int quantity);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE sweet_stock_shards SET " + SweetRepository.CHANGE_STAMP +
+                   "WHERE sweet_id = :sweetId AND shard_index = 0",
+           nativeQuery = true)
+    int stampChange(@Param("sweetId") Long sweetId);
+}
@@ -0,0 +1,39 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.common.mapper.InventoryMapper;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class AtomicStockDecrementer implements StockDecrementer {
+    
+    private final InventoryRepository inventoryRepository;
+    
+    public AtomicStockDecrementer(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+    
+    @Override
+    public PurchaseStrategy getStrategy() {
+        return PurchaseStrategy.ATOMIC;
+    }
+    
+    @Override
+    @Transactional
+    public InventoryResponse decrement(Long sweetId, int quantity) {
+        return inventoryRepository.decreaseQuantityReturning(sweetId, quantity)
+                .map(level -> InventoryMapper.toResponse(
+                    level.getId(), level.getName(), level.getPrice(), level.getQuantity(), level.getVersion()))
+                .orElseThrow(() -> rejectionFor(sweetId, quantity));
+    }
+    
+    private RuntimeException rejectionFor(Long sweetId, int quantity) {
+        // Only the failure path pays for a second read, to tell a missing sweet from low stock.
+        Sweet sweet = inventoryRepository.findById(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        return InventoryErrors.insufficientQuantity(sweet.getQuantity(), quantity);
+    }
+}
@@ -0,0 +1,222 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.common.mapper.InventoryMapper;
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.InvalidOperationException;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+@ConditionalOnProperty(name = "inventory.purchase.strategy", havingValue = "COALESCED")
+public class CoalescingStockDecrementer implements StockDecrementer {
+    
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService executor;
+    private final DistributionSummary batchSizes;
+    private final int maxBatchSize;
+    private final long lingerMicros;
+    private final ConcurrentMap<Long, SweetQueue> queues = new ConcurrentHashMap<>();
+    
+    public CoalescingStockDecrementer(InventoryRepository inventoryRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${inventory.purchase.coalescing.max-batch-size:64}") int maxBatchSize,
+                                      @Value("${inventory.purchase.coalescing.linger-micros:500}") long lingerMicros,
+                                      @Value("${inventory.purchase.coalescing.threads:4}") int threads) {
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = Executors.newScheduledThreadPool(Math.max(1, threads));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerMicros = Math.max(0, lingerMicros);
+        this.batchSizes = DistributionSummary.builder("inventory.purchase.coalescer.batch.size")
+                .description("Number of purchases applied per coalesced transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("inventory.purchase.coalescer.pending", queues,
+            map -> map.values().stream().mapToInt(queue -> queue.pending.size()).sum());
+    }
+    
+    @Override
+    public PurchaseStrategy getStrategy() {
+        return PurchaseStrategy.COALESCED;
+    }
+    
+    @Override
+    public InventoryResponse decrement(Long sweetId, int quantity) {
+        try {
+            return submit(sweetId, quantity).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    public CompletableFuture<InventoryResponse> submit(Long sweetId, int quantity) {
+        PendingPurchase purchase = new PendingPurchase(quantity);
+        // Added under the map entry's lock, so a drained queue can never be retired with this purchase in it.
+        SweetQueue queue = queues.compute(sweetId, (id, current) -> {
+            SweetQueue target = current != null ? current : new SweetQueue(id);
+            target.pending.add(purchase);
+            return target;
+        });
+        if (queue.scheduled.compareAndSet(false, true)) {
+            schedule(queue, lingerMicros);
+        }
+        return purchase.future;
+    }
+    
+    private void schedule(SweetQueue queue, long delayMicros) {
+        try {
+            executor.schedule(() -> drain(queue), delayMicros, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException e) {
+            queue.scheduled.set(false);
+            failPending(queue, new InvalidOperationException("Purchase service is shutting down. Please try again."));
+        }
+    }
+    
+    private void drain(SweetQueue queue) {
+        List<PendingPurchase> batch = new ArrayList<>(maxBatchSize);
+        PendingPurchase next;
+        while (batch.size() < maxBatchSize && (next = queue.pending.poll()) != null) {
+            batch.add(next);
+        }
+        
+        try {
+            if (!batch.isEmpty()) {
+                applyBatch(queue.sweetId, batch);
+            }
+        } finally {
+            // Requests that arrived while this batch was committing form the next batch straight away.
+            if (!queue.pending.isEmpty()) {
+                schedule(queue, 0);
+            } else {
+                queue.scheduled.set(false);
+                if (!queue.pending.isEmpty() && queue.scheduled.compareAndSet(false, true)) {
+                    schedule(queue, 0);
+                } else {
+                    retire(queue);
+                }
+            }
+        }
+    }
+    
+    private void retire(SweetQueue queue) {
+        // Idle queues are dropped, so purchases of many different (or unknown) ids do not pile up entries.
+        // Purchases arriving later simply start a fresh queue.
+        queues.computeIfPresent(queue.sweetId, (id, current) ->
+            current == queue && current.pending.isEmpty() && !current.scheduled.get() ? null : current);
+    }
+    
+    int queueCount() {
+        return queues.size();
+    }
+    
+    private void applyBatch(Long sweetId, List<PendingPurchase> batch) {
+        batchSizes.record(batch.size());
+        List<Runnable> completions;
+        try {
+            completions = transactionTemplate.execute(status -> settle(sweetId, batch));
+        } catch (RuntimeException e) {
+            batch.forEach(purchase -> purchase.future.completeExceptionally(e));
+            return;
+        }
+        // Callers are only released once the batch has committed.
+        completions.forEach(Runnable::run);
+    }
+    
+    private List<Runnable> settle(Long sweetId, List<PendingPurchase> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        Optional<Sweet> locked = inventoryRepository.findByIdWithLock(sweetId);
+        if (locked.isEmpty()) {
+            RuntimeException notFound = InventoryErrors.sweetNotFound(sweetId);
+            batch.forEach(purchase -> completions.add(() -> purchase.future.completeExceptionally(notFound)));
+            return completions;
+        }
+        
+        Sweet sweet = locked.get();
+        int remaining = sweet.getQuantity();
+        int accepted = 0;
+        for (PendingPurchase purchase : batch) {
+            if (purchase.quantity <= remaining) {
+                remaining -= purchase.quantity;
+                accepted += purchase.quantity;
+                // The whole batch is one UPDATE, so every purchase in it lands on the same next version.
+                InventoryResponse response = InventoryMapper.toResponse(sweet, remaining, sweet.nextVersion());
+                completions.add(() -> purchase.future.complete(response));
+            } else {
+                RuntimeException rejection = InventoryErrors.insufficientQuantity(remaining, purchase.quantity);
+                completions.add(() -> purchase.future.completeExceptionally(rejection));
+            }
+        }
+        
+        if (accepted > 0 && inventoryRepository.decreaseQuantity(sweetId, accepted) == 0) {
+            throw new BadRequestException("Purchase failed. Insufficient quantity available.");
+        }
+        return completions;
+    }
+    
+    private void failPending(SweetQueue queue, RuntimeException cause) {
+        PendingPurchase purchase;
+        while ((purchase = queue.pending.poll()) != null) {
+            purchase.future.completeExceptionally(cause);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        InvalidOperationException cause = new InvalidOperationException("Purchase service is shutting down. Please try again.");
+        queues.values().forEach(queue -> failPending(queue, cause));
+    }
+    
+    private static final class SweetQueue {
+        private final Long sweetId;
+        private final Queue<PendingPurchase> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        
+        private SweetQueue(Long sweetId) {
+            this.sweetId = sweetId;
+        }
+    }
+    
+    private static final class PendingPurchase {
+        private final int quantity;
+        private final CompletableFuture<InventoryResponse> future = new CompletableFuture<>();
+        
+        private PendingPurchase(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.ResourceNotFoundException;
+
+final class InventoryErrors {
+    
+    private static final String SWEET_RESOURCE_NAME = "Sweet";
+    
+    private InventoryErrors() {
+        // Utility class - prevent instantiation
+    }
+    
+    static ResourceNotFoundException sweetNotFound(Long sweetId) {
+        return new ResourceNotFoundException(SWEET_RESOURCE_NAME + " not found with id: " + sweetId);
+    }
+    
+    static BadRequestException insufficientQuantity(int availableQuantity, int requestedQuantity) {
+        return new BadRequestException(
+            String.format("Insufficient quantity available. Available: %d, Requested: %d",
+                availableQuantity, requestedQuantity)
+        );
+    }
+}
@@ -0,0 +1,237 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.inventory.domain.Inventory;
+import com.sweetshop.inventory.domain.InventoryMovementType;
+import com.sweetshop.inventory.dto.InventoryDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class InventoryLedgerWriter {
+    
+    // Entries that could not be persisted are logged here in full, so they can be replayed from the logs.
+    private static final Logger DEAD_LETTER = LoggerFactory.getLogger("inventory.ledger.dead-letter");
+    
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<InventoryDto> buffer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter deadLettered;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration retryDelay;
+    private final int maxAttempts;
+    private final Duration offerTimeout;
+    private volatile boolean running;
+    private volatile Thread worker;
+    
+    public InventoryLedgerWriter(EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventory.ledger.buffer-capacity:8192}") int bufferCapacity,
+                                 @Value("${inventory.ledger.batch-size:100}") int batchSize,
+                                 @Value("${inventory.ledger.flush-interval-ms:200}") long flushIntervalMs,
+                                 @Value("${inventory.ledger.retry-delay-ms:1000}") long retryDelayMs,
+                                 @Value("${inventory.ledger.max-attempts:5}") int maxAttempts,
+                                 @Value("${inventory.ledger.offer-timeout-ms:10}") long offerTimeoutMs) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Duration.ofMillis(Math.max(1, flushIntervalMs));
+        this.retryDelay = Duration.ofMillis(Math.max(1, retryDelayMs));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.offerTimeout = Duration.ofMillis(Math.max(0, offerTimeoutMs));
+        this.written = Counter.builder("inventory.ledger.written")
+                .description("Ledger entries persisted by the write-behind flusher")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("inventory.ledger.dropped")
+                .description("Ledger entries dead-lettered because the buffer stayed full")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("inventory.ledger.dead-lettered")
+                .description("Ledger entries dead-lettered after their writes kept failing")
+                .register(meterRegistry);
+        meterRegistry.gauge("inventory.ledger.pending", buffer, BlockingQueue::size);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "inventory-ledger-writer");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+    
+    public void recordPurchase(Long sweetId, Long userId, int quantity, BigDecimal unitPrice) {
+        record(new InventoryDto(sweetId, userId, InventoryMovementType.PURCHASE, quantity, unitPrice, Instant.now()));
+    }
+    
+    public void recordRestock(Long sweetId, Long userId, int quantity, BigDecimal unitPrice) {
+        record(new InventoryDto(sweetId, userId, InventoryMovementType.RESTOCK, quantity, unitPrice, Instant.now()));
+    }
+    
+    void record(InventoryDto entry) {
+        // Purchases wait at most the offer timeout: a stalled database must not stall the purchase path with it.
+        try {
+            if (buffer.offer(entry, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drop(entry);
+    }
+    
+    private void drop(InventoryDto entry) {
+        dropped.increment();
+        DEAD_LETTER.warn("Ledger buffer full, entry not persisted: {}", describe(entry));
+    }
+    
+    int pendingCount() {
+        return buffer.size();
+    }
+    
+    private void run() {
+        List<InventoryDto> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    InventoryDto first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                }
+                
+                if (tryWrite(batch, ++attempts)) {
+                    batch.clear();
+                    attempts = 0;
+                } else if (!pause(retryDelay)) {
+                    break;
+                }
+                // Otherwise the batch is kept and retried as-is; new entries keep queuing behind it.
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        
+        if (!batch.isEmpty()) {
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // Handed back so the shutdown flush gets one more attempt.
+                batch.stream().filter(entry -> !buffer.offer(entry)).forEach(this::drop);
+            }
+        }
+    }
+    
+    // True once the batch is settled: written, or dead-lettered after its last attempt.
+    boolean tryWrite(List<InventoryDto> batch, int attempt) {
+        try {
+            write(batch);
+            return true;
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                return false;
+            }
+            deadLetter(batch);
+            return true;
+        }
+    }
+    
+    private void deadLetter(List<InventoryDto> batch) {
+        // One entry at a time, so a single bad row does not take the rest of its batch down with it.
+        for (InventoryDto entry : batch) {
+            try {
+                write(List.of(entry));
+            } catch (RuntimeException e) {
+                deadLettered.increment();
+                DEAD_LETTER.error("Ledger entry not persisted after {} attempts: {}", maxAttempts, describe(entry), e);
+            }
+        }
+    }
+    
+    private static String describe(InventoryDto entry) {
+        return "sweetId=" + entry.getSweetId() + ", userId=" + entry.getUserId() + ", type=" + entry.getType()
+            + ", quantity=" + entry.getQuantity() + ", unitPrice=" + entry.getUnitPrice()
+            + ", occurredAt=" + entry.getOccurredAt();
+    }
+    
+    private boolean pause(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+    
+    void flush() {
+        List<InventoryDto> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            // Last chance before shutdown: rows that still fail go to the dead-letter instead of aborting the flush.
+            tryWrite(batch, maxAttempts);
+            batch.clear();
+        }
+    }
+    
+    void write(List<InventoryDto> entries) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            entries.forEach(entry -> entityManager.persist(toEntity(entry)));
+            entityManager.flush();
+            entityManager.clear();
+        });
+        written.increment(entries.size());
+    }
+    
+    private static Inventory toEntity(InventoryDto entry) {
+        Inventory inventory = new Inventory();
+        inventory.setSweetId(entry.getSweetId());
+        inventory.setUserId(entry.getUserId());
+        inventory.setType(entry.getType());
+        inventory.setQuantity(entry.getQuantity());
+        inventory.setUnitPrice(entry.getUnitPrice());
+        inventory.setOccurredAt(entry.getOccurredAt());
+        return inventory;
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        
+        // Runs before the EntityManagerFactory closes, so every buffered entry is committed on a clean shutdown.
+        flush();
+    }
+}
@@ -1,12 +1,15 @@
 package com.sweetshop.inventory.service;
 
+import com.sweetshop.inventory.dto.BatchPurchaseRequest;
+import com.sweetshop.inventory.dto.BatchPurchaseResponse;
 import com.sweetshop.inventory.dto.InventoryRequest;
 import com.sweetshop.inventory.dto.InventoryResponse;
-import com.sweetshop.user.domain.User;
+import com.sweetshop.user.domain.UserIdentity;
 
 public interface InventoryService {
-    InventoryResponse purchase(InventoryRequest request, User currentUser);
-    InventoryResponse restock(InventoryRequest request, User currentUser);
+    InventoryResponse purchase(InventoryRequest request, UserIdentity currentUser);
+    BatchPurchaseResponse purchaseAll(BatchPurchaseRequest request, UserIdentity currentUser);
+    InventoryResponse restock(InventoryRequest request, UserIdentity currentUser);
 }
 
 
@@ -2,86 +2,229 @@ package com.sweetshop.inventory.service;
 
 import com.sweetshop.common.mapper.InventoryMapper;
 import com.sweetshop.common.util.RoleChecker;
+import com.sweetshop.common.util.TransactionCallbacks;
 import com.sweetshop.common.util.ValidationUtil;
 import com.sweetshop.exception.BadRequestException;
-import com.sweetshop.exception.ResourceNotFoundException;
+import com.sweetshop.exception.InvalidOperationException;
+import com.sweetshop.inventory.dto.BatchPurchaseItem;
+import com.sweetshop.inventory.dto.BatchPurchaseLineResult;
+import com.sweetshop.inventory.dto.BatchPurchaseLineStatus;
+import com.sweetshop.inventory.dto.BatchPurchaseRequest;
+import com.sweetshop.inventory.dto.BatchPurchaseResponse;
 import com.sweetshop.inventory.dto.InventoryRequest;
 import com.sweetshop.inventory.dto.InventoryResponse;
 import com.sweetshop.inventory.repository.InventoryRepository;
 import com.sweetshop.sweet.domain.Sweet;
-import com.sweetshop.user.domain.User;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.service.SweetCache;
+import com.sweetshop.user.domain.UserIdentity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @Transactional(isolation = Isolation.REPEATABLE_READ)
 public class InventoryServiceImpl implements InventoryService {
     
-    private static final String SWEET_RESOURCE_NAME = "Sweet";
-    
     private final InventoryRepository inventoryRepository;
+    private final StockDecrementer stockDecrementer;
+    private final ShardedStockService shardedStockService;
+    private final InventoryLedgerWriter ledgerWriter;
+    private final SweetCache sweetCache;
+    private final SweetIndexMaintainer indexMaintainer;
     
-    public InventoryServiceImpl(InventoryRepository inventoryRepository) {
+    public InventoryServiceImpl(InventoryRepository inventoryRepository,
+                                List<StockDecrementer> stockDecrementers,
+                                ShardedStockService shardedStockService,
+                                InventoryLedgerWriter ledgerWriter,
+                                SweetCache sweetCache,
+                                SweetIndexMaintainer indexMaintainer,
+                                @Value("${inventory.purchase.strategy:PESSIMISTIC}") PurchaseStrategy purchaseStrategy) {
         this.inventoryRepository = inventoryRepository;
+        this.shardedStockService = shardedStockService;
+        this.ledgerWriter = ledgerWriter;
+        this.sweetCache = sweetCache;
+        this.indexMaintainer = indexMaintainer;
+        this.stockDecrementer = selectDecrementer(stockDecrementers, purchaseStrategy);
+    }
+    
+    private static StockDecrementer selectDecrementer(List<StockDecrementer> stockDecrementers,
+                                                      PurchaseStrategy purchaseStrategy) {
+        Map<PurchaseStrategy, StockDecrementer> byStrategy = new EnumMap<>(PurchaseStrategy.class);
+        stockDecrementers.forEach(decrementer -> byStrategy.put(decrementer.getStrategy(), decrementer));
+        
+        StockDecrementer selected = byStrategy.get(purchaseStrategy);
+        if (selected == null) {
+            throw new IllegalStateException("No stock decrementer available for purchase strategy: " + purchaseStrategy);
+        }
+        return selected;
     }
     
     @Override
-    public InventoryResponse purchase(InventoryRequest request, User currentUser) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public InventoryResponse purchase(InventoryRequest request, UserIdentity currentUser) {
         ValidationUtil.validateQuantityGreaterThanZero(request.getQuantity(), "Purchase");
+        InventoryResponse response = decrement(request.getSweetId(), request.getQuantity());
+        sweetCache.invalidate(response.getSweetId());
+        indexMaintainer.stockChanged(response.getSweetId(), response.getVersion(), response.getQuantity());
         
-        Sweet sweet = inventoryRepository.findByIdWithLock(request.getSweetId())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                    SWEET_RESOURCE_NAME + " not found with id: " + request.getSweetId()
-                ));
+        // Every strategy has committed by now, so the ledger entry can never describe a rolled-back purchase.
+        ledgerWriter.recordPurchase(response.getSweetId(), currentUser.getId(), request.getQuantity(),
+            response.getUnitPrice());
+        return response;
+    }
+    
+    private InventoryResponse decrement(Long sweetId, int quantity) {
+        // The node-local hint only picks the first path; purchase() re-checks the row's own flag.
+        if (shardedStockService.isSharded(sweetId)) {
+            return shardedStockService.purchase(sweetId, quantity);
+        }
+        
+        try {
+            return stockDecrementer.decrement(sweetId, quantity);
+        } catch (BadRequestException e) {
+            // A sweet switched to sharded stock (possibly by another node) keeps zero on its own row.
+            if (shardedStockService.refresh(sweetId)) {
+                return shardedStockService.purchase(sweetId, quantity);
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BatchPurchaseResponse purchaseAll(BatchPurchaseRequest request, UserIdentity currentUser) {
+        SortedMap<Long, Integer> quantitiesById = mergeItems(request.getItems());
+        
+        // Rows are locked in ascending id order, so two overlapping carts can never deadlock.
+        Map<Long, Sweet> lockedSweets = inventoryRepository.findAllByIdWithLock(quantitiesById.keySet()).stream()
+                .collect(Collectors.toMap(Sweet::getId, Function.identity()));
         
-        int requestedQuantity = request.getQuantity();
-        int availableQuantity = sweet.getQuantity();
+        boolean fulfillable = quantitiesById.entrySet().stream()
+                .allMatch(entry -> {
+                    Sweet sweet = lockedSweets.get(entry.getKey());
+                    return sweet != null && sweet.getQuantity() >= entry.getValue();
+                });
         
-        if (requestedQuantity > availableQuantity) {
-            throw new BadRequestException(
-                String.format("Insufficient quantity available. Available: %d, Requested: %d",
-                    availableQuantity, requestedQuantity)
-            );
+        if (!fulfillable) {
+            return new BatchPurchaseResponse(false, rejectedLines(quantitiesById, lockedSweets));
         }
         
-        int rowsUpdated = inventoryRepository.decreaseQuantity(
-            request.getSweetId(), requestedQuantity
-        );
+        SortedMap<Long, Integer> rowQuantities = new TreeMap<>();
+        quantitiesById.forEach((sweetId, quantity) -> {
+            if (lockedSweets.get(sweetId).isSharded()) {
+                if (!shardedStockService.tryDecrease(sweetId, true, quantity)) {
+                    throw stockChangedDuringBatch();
+                }
+            } else {
+                rowQuantities.put(sweetId, quantity);
+            }
+        });
         
-        if (rowsUpdated == 0) {
-            throw new BadRequestException(
-                "Purchase failed. Insufficient quantity available."
-            );
+        if (!rowQuantities.isEmpty()) {
+            Long[] ids = rowQuantities.keySet().toArray(new Long[0]);
+            Integer[] quantities = rowQuantities.values().toArray(new Integer[0]);
+            if (inventoryRepository.decreaseQuantities(ids, quantities) != ids.length) {
+                throw stockChangedDuringBatch();
+            }
         }
         
-        sweet.setQuantity(availableQuantity - requestedQuantity);
-        return InventoryMapper.toResponse(inventoryRepository.save(sweet));
+        quantitiesById.keySet().forEach(sweetCache::invalidate);
+        quantitiesById.forEach((sweetId, quantity) -> {
+            Sweet sweet = lockedSweets.get(sweetId);
+            indexMaintainer.stockChanged(sweetId, versionAfterStockChange(sweet), sweet.getQuantity() - quantity);
+        });
+        TransactionCallbacks.afterCommit(() -> quantitiesById.forEach((sweetId, quantity) ->
+            ledgerWriter.recordPurchase(sweetId, currentUser.getId(), quantity, lockedSweets.get(sweetId).getPrice())));
+        return new BatchPurchaseResponse(true, purchasedLines(quantitiesById, lockedSweets));
+    }
+    
+    // Row updates bump the version of the locked row; shard updates leave the sweet row alone.
+    private static Long versionAfterStockChange(Sweet lockedSweet) {
+        return lockedSweet.isSharded() ? lockedSweet.getVersion() : lockedSweet.nextVersion();
+    }
+    
+    private InvalidOperationException stockChangedDuringBatch() {
+        return new InvalidOperationException("Purchase failed. Stock changed while the cart was being processed.");
+    }
+    
+    private SortedMap<Long, Integer> mergeItems(List<BatchPurchaseItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("At least one item is required");
+        }
+        
+        SortedMap<Long, Integer> quantitiesById = new TreeMap<>();
+        for (BatchPurchaseItem item : items) {
+            ValidationUtil.validateQuantityGreaterThanZero(item.getQuantity(), "Purchase");
+            quantitiesById.merge(item.getSweetId(), item.getQuantity(), Math::addExact);
+        }
+        return quantitiesById;
+    }
+    
+    private List<BatchPurchaseLineResult> rejectedLines(SortedMap<Long, Integer> quantitiesById,
+                                                        Map<Long, Sweet> lockedSweets) {
+        List<BatchPurchaseLineResult> lines = new ArrayList<>(quantitiesById.size());
+        quantitiesById.forEach((sweetId, requested) -> {
+            Sweet sweet = lockedSweets.get(sweetId);
+            if (sweet == null) {
+                lines.add(new BatchPurchaseLineResult(sweetId, null, requested, null,
+                    BatchPurchaseLineStatus.NOT_FOUND, InventoryErrors.sweetNotFound(sweetId).getMessage()));
+            } else if (sweet.getQuantity() < requested) {
+                lines.add(new BatchPurchaseLineResult(sweetId, sweet.getName(), requested, sweet.getQuantity(),
+                    BatchPurchaseLineStatus.INSUFFICIENT_QUANTITY,
+                    InventoryErrors.insufficientQuantity(sweet.getQuantity(), requested).getMessage()));
+            } else {
+                lines.add(new BatchPurchaseLineResult(sweetId, sweet.getName(), requested, sweet.getQuantity(),
+                    BatchPurchaseLineStatus.SKIPPED, "Not purchased because another item in the cart failed"));
+            }
+        });
+        return lines;
+    }
+    
+    private List<BatchPurchaseLineResult> purchasedLines(SortedMap<Long, Integer> quantitiesById,
+                                                         Map<Long, Sweet> lockedSweets) {
+        List<BatchPurchaseLineResult> lines = new ArrayList<>(quantitiesById.size());
+        quantitiesById.forEach((sweetId, requested) -> {
+            Sweet sweet = lockedSweets.get(sweetId);
+            lines.add(new BatchPurchaseLineResult(sweetId, sweet.getName(), requested, sweet.getQuantity() - requested,
+                BatchPurchaseLineStatus.PURCHASED, null));
+        });
+        return lines;
     }
     
     @Override
-    public InventoryResponse restock(InventoryRequest request, User currentUser) {
+    public InventoryResponse restock(InventoryRequest request, UserIdentity currentUser) {
         RoleChecker.requireAdmin(currentUser, "restock inventory");
         ValidationUtil.validateQuantityGreaterThanZero(request.getQuantity(), "Restock");
         
         Sweet sweet = inventoryRepository.findByIdWithLock(request.getSweetId())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                    SWEET_RESOURCE_NAME + " not found with id: " + request.getSweetId()
-                ));
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(request.getSweetId()));
         
         int restockQuantity = request.getQuantity();
-        int rowsUpdated = inventoryRepository.increaseQuantity(
-            request.getSweetId(), restockQuantity
-        );
+        int rowsUpdated = sweet.isSharded()
+            ? shardedStockService.increase(request.getSweetId(), true, restockQuantity)
+            : inventoryRepository.increaseQuantity(request.getSweetId(), restockQuantity);
         
         if (rowsUpdated == 0) {
-            throw new ResourceNotFoundException(
-                SWEET_RESOURCE_NAME + " not found with id: " + request.getSweetId()
-            );
+            throw InventoryErrors.sweetNotFound(request.getSweetId());
         }
         
-        sweet.setQuantity(sweet.getQuantity() + restockQuantity);
-        return InventoryMapper.toResponse(inventoryRepository.save(sweet));
+        int newQuantity = sweet.getQuantity() + restockQuantity;
+        sweetCache.invalidate(sweet.getId());
+        indexMaintainer.stockChanged(sweet.getId(), versionAfterStockChange(sweet), newQuantity);
+        TransactionCallbacks.afterCommit(() ->
+            ledgerWriter.recordRestock(sweet.getId(), currentUser.getId(), restockQuantity, sweet.getPrice()));
+        return InventoryMapper.toResponse(sweet, newQuantity, versionAfterStockChange(sweet));
     }
 }
-
@@ -0,0 +1,91 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.common.mapper.InventoryMapper;
+import com.sweetshop.exception.InvalidOperationException;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.service.SweetChangeLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class OptimisticStockDecrementer implements StockDecrementer {
+    
+    private final InventoryRepository inventoryRepository;
+    private final SweetChangeLog changeLog;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    
+    public OptimisticStockDecrementer(InventoryRepository inventoryRepository,
+                                      SweetChangeLog changeLog,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${inventory.purchase.optimistic.max-attempts:5}") int maxAttempts,
+                                      @Value("${inventory.purchase.optimistic.initial-backoff-ms:2}") long initialBackoffMs,
+                                      @Value("${inventory.purchase.optimistic.max-backoff-ms:50}") long maxBackoffMs) {
+        this.inventoryRepository = inventoryRepository;
+        this.changeLog = changeLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(1, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+    
+    @Override
+    public PurchaseStrategy getStrategy() {
+        return PurchaseStrategy.OPTIMISTIC;
+    }
+    
+    @Override
+    public InventoryResponse decrement(Long sweetId, int quantity) {
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Each attempt runs in its own transaction so a retry re-reads the current version.
+                return transactionTemplate.execute(status -> attemptDecrement(sweetId, quantity));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new InvalidOperationException(
+                        "Purchase failed due to concurrent updates. Please try again."
+                    );
+                }
+                pause(ThreadLocalRandom.current().nextLong(backoffMs + 1));
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+    
+    private InventoryResponse attemptDecrement(Long sweetId, int quantity) {
+        Sweet sweet = inventoryRepository.findById(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        
+        int availableQuantity = sweet.getQuantity();
+        if (quantity > availableQuantity) {
+            throw InventoryErrors.insufficientQuantity(availableQuantity, quantity);
+        }
+        
+        sweet.setQuantity(availableQuantity - quantity);
+        InventoryResponse response = InventoryMapper.toResponse(inventoryRepository.saveAndFlush(sweet));
+        // Unlike the UPDATE-based strategies, an entity write does not stamp the change feed by itself.
+        changeLog.changed(sweetId);
+        return response;
+    }
+    
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidOperationException("Purchase was interrupted. Please try again.");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.common.mapper.InventoryMapper;
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class PessimisticStockDecrementer implements StockDecrementer {
+    
+    private final InventoryRepository inventoryRepository;
+    
+    public PessimisticStockDecrementer(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+    
+    @Override
+    public PurchaseStrategy getStrategy() {
+        return PurchaseStrategy.PESSIMISTIC;
+    }
+    
+    @Override
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public InventoryResponse decrement(Long sweetId, int quantity) {
+        Sweet sweet = inventoryRepository.findByIdWithLock(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        
+        int availableQuantity = sweet.getQuantity();
+        if (quantity > availableQuantity) {
+            throw InventoryErrors.insufficientQuantity(availableQuantity, quantity);
+        }
+        
+        int rowsUpdated = inventoryRepository.decreaseQuantity(sweetId, quantity);
+        if (rowsUpdated == 0) {
+            throw new BadRequestException("Purchase failed. Insufficient quantity available.");
+        }
+        
+        // The bulk UPDATE already persisted the new quantity and bumped the version; the locked entity is left
+        // untouched so no second, dirty-checked UPDATE is flushed at commit.
+        return InventoryMapper.toResponse(sweet, availableQuantity - quantity, sweet.nextVersion());
+    }
+}
@@ -0,0 +1,8 @@
+package com.sweetshop.inventory.service;
+
+public enum PurchaseStrategy {
+    PESSIMISTIC,
+    ATOMIC,
+    OPTIMISTIC,
+    COALESCED
+}
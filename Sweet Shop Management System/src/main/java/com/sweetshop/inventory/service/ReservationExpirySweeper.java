@@ -0,0 +1,141 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.inventory.domain.ReservationStatus;
+import com.sweetshop.inventory.domain.StockReservation;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.inventory.repository.StockReservationRepository;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ReservationExpirySweeper {
+    
+    private final StockReservationRepository reservationRepository;
+    private final ShardedStockService shardedStockService;
+    private final InventoryRepository inventoryRepository;
+    private final SweetIndexMaintainer indexMaintainer;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retryDelay;
+    private final DelayQueue<ExpiringReservation> expiries = new DelayQueue<>();
+    private volatile Thread worker;
+    
+    public ReservationExpirySweeper(StockReservationRepository reservationRepository,
+                                    ShardedStockService shardedStockService,
+                                    InventoryRepository inventoryRepository,
+                                    SweetIndexMaintainer indexMaintainer,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${inventory.reservation.sweeper.retry-delay-seconds:5}") long retryDelaySeconds) {
+        this.reservationRepository = reservationRepository;
+        this.shardedStockService = shardedStockService;
+        this.inventoryRepository = inventoryRepository;
+        this.indexMaintainer = indexMaintainer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryDelay = Duration.ofSeconds(Math.max(1, retryDelaySeconds));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Only active holds are loaded (served by the status/expires_at index), never the full history.
+        reservationRepository.findByStatus(ReservationStatus.ACTIVE)
+                .forEach(reservation -> track(reservation.getId(), reservation.getExpiresAt()));
+        
+        Thread thread = new Thread(this::run, "reservation-expiry-sweeper");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+    
+    public void track(String reservationId, Instant expiresAt) {
+        expiries.add(new ExpiringReservation(reservationId, expiresAt));
+    }
+    
+    int pendingCount() {
+        return expiries.size();
+    }
+    
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ExpiringReservation next;
+            try {
+                next = expiries.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            try {
+                expire(next.reservationId);
+            } catch (RuntimeException e) {
+                track(next.reservationId, Instant.now().plus(retryDelay));
+            }
+        }
+    }
+    
+    void expire(String reservationId) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                reservationRepository.findById(reservationId)
+                        .filter(reservation -> reservation.getStatus() == ReservationStatus.ACTIVE)
+                        .ifPresent(this::returnToStock)
+            );
+        } catch (OptimisticLockingFailureException e) {
+            // Confirmed or released concurrently; the winner has already settled the stock.
+        }
+    }
+    
+    private void returnToStock(StockReservation reservation) {
+        if (reservation.getExpiresAt().isAfter(Instant.now())) {
+            track(reservation.getId(), reservation.getExpiresAt());
+            return;
+        }
+        reservation.setStatus(ReservationStatus.EXPIRED);
+        reservationRepository.saveAndFlush(reservation);
+        shardedStockService.increase(reservation.getSweetId(), reservation.getQuantity());
+        inventoryRepository.findStockLevel(reservation.getSweetId()).ifPresent(level ->
+            indexMaintainer.stockChanged(level.getId(), level.getVersion(), level.getQuantity()));
+    }
+    
+    @PreDestroy
+    public void stop() {
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    private static final class ExpiringReservation implements Delayed {
+        private final String reservationId;
+        private final long expiresAtMillis;
+        
+        private ExpiringReservation(String reservationId, Instant expiresAt) {
+            this.reservationId = reservationId;
+            this.expiresAtMillis = expiresAt.toEpochMilli();
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof ExpiringReservation that) {
+                return Long.compare(expiresAtMillis, that.expiresAtMillis);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.inventory.dto.ReservationRequest;
+import com.sweetshop.inventory.dto.ReservationResponse;
+import com.sweetshop.user.domain.UserIdentity;
+
+public interface ReservationService {
+    ReservationResponse hold(ReservationRequest request, UserIdentity currentUser);
+    ReservationResponse confirm(String reservationId, UserIdentity currentUser);
+    ReservationResponse release(String reservationId, UserIdentity currentUser);
+    ReservationResponse getReservation(String reservationId, UserIdentity currentUser);
+}
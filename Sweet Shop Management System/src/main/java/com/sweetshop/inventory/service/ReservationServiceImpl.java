@@ -0,0 +1,170 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.common.mapper.ReservationMapper;
+import com.sweetshop.common.util.TransactionCallbacks;
+import com.sweetshop.common.util.ValidationUtil;
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.InvalidOperationException;
+import com.sweetshop.exception.ResourceNotFoundException;
+import com.sweetshop.exception.UnauthorizedException;
+import com.sweetshop.inventory.domain.ReservationStatus;
+import com.sweetshop.inventory.domain.StockReservation;
+import com.sweetshop.inventory.dto.ReservationRequest;
+import com.sweetshop.inventory.dto.ReservationResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.inventory.repository.StockLevel;
+import com.sweetshop.inventory.repository.StockReservationRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.UserIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class ReservationServiceImpl implements ReservationService {
+    
+    private static final String RESERVATION_RESOURCE_NAME = "Reservation";
+    
+    private final StockReservationRepository reservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ShardedStockService shardedStockService;
+    private final ReservationExpirySweeper expirySweeper;
+    private final InventoryLedgerWriter ledgerWriter;
+    private final SweetIndexMaintainer indexMaintainer;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    
+    public ReservationServiceImpl(StockReservationRepository reservationRepository,
+                                  InventoryRepository inventoryRepository,
+                                  ShardedStockService shardedStockService,
+                                  ReservationExpirySweeper expirySweeper,
+                                  InventoryLedgerWriter ledgerWriter,
+                                  SweetIndexMaintainer indexMaintainer,
+                                  @Value("${inventory.reservation.default-ttl-seconds:600}") long defaultTtlSeconds,
+                                  @Value("${inventory.reservation.max-ttl-seconds:1800}") long maxTtlSeconds) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.shardedStockService = shardedStockService;
+        this.expirySweeper = expirySweeper;
+        this.ledgerWriter = ledgerWriter;
+        this.indexMaintainer = indexMaintainer;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+    
+    @Override
+    public ReservationResponse hold(ReservationRequest request, UserIdentity currentUser) {
+        ValidationUtil.validateQuantityGreaterThanZero(request.getQuantity(), "Reservation");
+        Duration ttl = resolveTtl(request.getTtlSeconds());
+        
+        Sweet sweet = inventoryRepository.findById(request.getSweetId())
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(request.getSweetId()));
+        // Held units leave the available quantity immediately, so reads never have to subtract active holds.
+        // Read without a lock: if sharding flips meanwhile, the conditional update fails instead of overselling.
+        if (!shardedStockService.tryDecrease(request.getSweetId(), sweet.isSharded(), request.getQuantity())) {
+            throw InventoryErrors.insufficientQuantity(sweet.getQuantity(), request.getQuantity());
+        }
+        
+        Instant now = Instant.now();
+        StockReservation reservation = new StockReservation();
+        reservation.setId(UUID.randomUUID().toString());
+        reservation.setSweetId(request.getSweetId());
+        reservation.setUserId(currentUser.getId());
+        reservation.setQuantity(request.getQuantity());
+        reservation.setStatus(ReservationStatus.ACTIVE);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plus(ttl));
+        
+        StockReservation saved = reservationRepository.save(reservation);
+        indexStock(saved.getSweetId());
+        // Tracked only once committed, so the sweeper can never look for a hold that is not visible yet or rolled back.
+        TransactionCallbacks.afterCommit(() -> expirySweeper.track(saved.getId(), saved.getExpiresAt()));
+        return ReservationMapper.toResponse(saved);
+    }
+    
+    @Override
+    public ReservationResponse confirm(String reservationId, UserIdentity currentUser) {
+        StockReservation reservation = findAccessibleReservation(reservationId, currentUser);
+        requireActive(reservation, "confirmed");
+        if (!reservation.getExpiresAt().isAfter(Instant.now())) {
+            throw new InvalidOperationException("Reservation has expired and can no longer be confirmed");
+        }
+        
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        StockReservation saved = reservationRepository.saveAndFlush(reservation);
+        // The hold already took the stock; the index entry is refreshed from the same read that prices the entry.
+        Optional<StockLevel> level = indexStock(saved.getSweetId());
+        BigDecimal unitPrice = level.map(StockLevel::getPrice).orElse(null);
+        TransactionCallbacks.afterCommit(() ->
+            ledgerWriter.recordPurchase(saved.getSweetId(), saved.getUserId(), saved.getQuantity(), unitPrice));
+        return ReservationMapper.toResponse(saved);
+    }
+    
+    @Override
+    public ReservationResponse release(String reservationId, UserIdentity currentUser) {
+        StockReservation reservation = findAccessibleReservation(reservationId, currentUser);
+        requireActive(reservation, "released");
+        
+        reservation.setStatus(ReservationStatus.RELEASED);
+        StockReservation saved = reservationRepository.saveAndFlush(reservation);
+        shardedStockService.increase(saved.getSweetId(), saved.getQuantity());
+        indexStock(saved.getSweetId());
+        return ReservationMapper.toResponse(saved);
+    }
+    
+    private Optional<StockLevel> indexStock(Long sweetId) {
+        Optional<StockLevel> level = inventoryRepository.findStockLevel(sweetId);
+        level.ifPresent(stock -> indexMaintainer.stockChanged(stock.getId(), stock.getVersion(), stock.getQuantity()));
+        return level;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public ReservationResponse getReservation(String reservationId, UserIdentity currentUser) {
+        return ReservationMapper.toResponse(findAccessibleReservation(reservationId, currentUser));
+    }
+    
+    private Duration resolveTtl(Long ttlSeconds) {
+        long seconds = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (seconds <= 0) {
+            throw new BadRequestException("Reservation TTL must be greater than zero");
+        }
+        if (seconds > maxTtlSeconds) {
+            throw new BadRequestException(
+                String.format("Reservation TTL cannot exceed %d seconds", maxTtlSeconds)
+            );
+        }
+        return Duration.ofSeconds(seconds);
+    }
+    
+    private StockReservation findAccessibleReservation(String reservationId, UserIdentity currentUser) {
+        StockReservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                    RESERVATION_RESOURCE_NAME + " not found with id: " + reservationId
+                ));
+        
+        if (!Objects.equals(reservation.getUserId(), currentUser.getId()) && currentUser.getRole() != Role.ADMIN) {
+            throw new UnauthorizedException("You can only manage your own reservations");
+        }
+        return reservation;
+    }
+    
+    private void requireActive(StockReservation reservation, String action) {
+        if (reservation.getStatus() != ReservationStatus.ACTIVE) {
+            throw new InvalidOperationException(
+                String.format("Reservation is %s and can no longer be %s",
+                    reservation.getStatus().name().toLowerCase(), action)
+            );
+        }
+    }
+}
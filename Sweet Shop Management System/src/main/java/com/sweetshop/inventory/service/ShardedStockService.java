@@ -0,0 +1,18 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.dto.StockShardResponse;
+import com.sweetshop.user.domain.UserIdentity;
+
+public interface ShardedStockService {
+    boolean isSharded(Long sweetId);
+    boolean refresh(Long sweetId);
+    InventoryResponse purchase(Long sweetId, int quantity);
+    boolean tryDecrease(Long sweetId, boolean sharded, int quantity);
+    int increase(Long sweetId, int quantity);
+    int increase(Long sweetId, boolean sharded, int quantity);
+    void setTotal(Long sweetId, int quantity);
+    StockShardResponse getShards(Long sweetId);
+    StockShardResponse configure(Long sweetId, int shardCount, UserIdentity currentUser);
+    StockShardResponse disable(Long sweetId, UserIdentity currentUser);
+}
@@ -0,0 +1,293 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.common.mapper.InventoryMapper;
+import com.sweetshop.common.util.RoleChecker;
+import com.sweetshop.common.util.TransactionCallbacks;
+import com.sweetshop.exception.InvalidOperationException;
+import com.sweetshop.inventory.domain.StockShard;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.dto.StockShardResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.inventory.repository.StockShardRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.service.SweetCache;
+import com.sweetshop.sweet.service.SweetChangeLog;
+import com.sweetshop.user.domain.UserIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class ShardedStockServiceImpl implements ShardedStockService {
+    
+    private final StockShardRepository shardRepository;
+    private final InventoryRepository inventoryRepository;
+    private final SweetCache sweetCache;
+    private final SweetChangeLog changeLog;
+    private final SweetIndexMaintainer indexMaintainer;
+    private final int maxProbes;
+    // Only a routing hint: the sweet row's own flag decides where stock lives, so a stale entry costs a probe at most.
+    private final ConcurrentMap<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+    
+    public ShardedStockServiceImpl(StockShardRepository shardRepository,
+                                   InventoryRepository inventoryRepository,
+                                   SweetCache sweetCache,
+                                   SweetChangeLog changeLog,
+                                   SweetIndexMaintainer indexMaintainer,
+                                   @Value("${inventory.sharding.max-probes:3}") int maxProbes) {
+        this.shardRepository = shardRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.sweetCache = sweetCache;
+        this.changeLog = changeLog;
+        this.indexMaintainer = indexMaintainer;
+        this.maxProbes = Math.max(1, maxProbes);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadShardCounts() {
+        shardRepository.countShardsPerSweet()
+                .forEach(row -> shardCounts.put((Long) row[0], ((Number) row[1]).intValue()));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isSharded(Long sweetId) {
+        return shardCounts.containsKey(sweetId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public boolean refresh(Long sweetId) {
+        int count = shardRepository.countBySweetId(sweetId);
+        if (count > 0) {
+            shardCounts.put(sweetId, count);
+            return true;
+        }
+        shardCounts.remove(sweetId);
+        return false;
+    }
+    
+    @Override
+    public InventoryResponse purchase(Long sweetId, int quantity) {
+        Sweet sweet = inventoryRepository.findById(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        
+        if (!sweet.isSharded()) {
+            // Sharding was turned off, possibly by another node, so the row holds the stock again.
+            shardCounts.remove(sweetId);
+            InventoryResponse response = inventoryRepository.decreaseQuantityReturning(sweetId, quantity)
+                    .map(level -> InventoryMapper.toResponse(
+                        level.getId(), level.getName(), level.getPrice(), level.getQuantity(), level.getVersion()))
+                    .orElseThrow(() -> InventoryErrors.insufficientQuantity(sweet.getQuantity(), quantity));
+            sweetCache.invalidate(sweetId);
+            return response;
+        }
+        
+        if (!tryDecrease(sweetId, true, quantity)) {
+            throw InventoryErrors.insufficientQuantity((int) shardRepository.sumQuantity(sweetId), quantity);
+        }
+        return InventoryMapper.toResponse(sweet, (int) shardRepository.sumQuantity(sweetId));
+    }
+    
+    @Override
+    public boolean tryDecrease(Long sweetId, boolean sharded, int quantity) {
+        if (!decrease(sweetId, sharded, quantity)) {
+            return false;
+        }
+        sweetCache.invalidate(sweetId);
+        return true;
+    }
+    
+    private boolean decrease(Long sweetId, boolean sharded, int quantity) {
+        if (!sharded) {
+            shardCounts.remove(sweetId);
+            return inventoryRepository.decreaseQuantity(sweetId, quantity) > 0;
+        }
+        
+        int shardCount = shardCount(sweetId);
+        // Start at a random shard so concurrent buyers spread across rows instead of queueing on one.
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        int probes = Math.min(maxProbes, shardCount);
+        for (int i = 0; i < probes; i++) {
+            if (shardRepository.decreaseQuantity(sweetId, (start + i) % shardCount, quantity) > 0) {
+                return true;
+            }
+        }
+        return drain(sweetId, quantity);
+    }
+    
+    private boolean drain(Long sweetId, int quantity) {
+        // No single shard could cover the request: lock every shard in index order and take across them.
+        List<StockShard> shards = shardRepository.findBySweetIdWithLock(sweetId);
+        long total = shards.stream().mapToLong(StockShard::getQuantity).sum();
+        if (total < quantity) {
+            return false;
+        }
+        
+        int remaining = quantity;
+        for (StockShard shard : shards) {
+            int taken = Math.min(shard.getQuantity(), remaining);
+            shard.setQuantity(shard.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        // Entity writes do not stamp the change feed themselves; every shard is locked here already.
+        shardRepository.stampChange(sweetId);
+        return true;
+    }
+    
+    @Override
+    public int increase(Long sweetId, int quantity) {
+        // The row lock orders this after any configure or disable, so the flag read here cannot go stale.
+        return inventoryRepository.findByIdWithLock(sweetId)
+                .map(sweet -> increase(sweetId, sweet.isSharded(), quantity))
+                .orElse(0);
+    }
+    
+    @Override
+    public int increase(Long sweetId, boolean sharded, int quantity) {
+        sweetCache.invalidate(sweetId);
+        if (!sharded) {
+            shardCounts.remove(sweetId);
+            return inventoryRepository.increaseQuantity(sweetId, quantity);
+        }
+        
+        int shardIndex = ThreadLocalRandom.current().nextInt(shardCount(sweetId));
+        int rowsUpdated = shardRepository.increaseQuantity(sweetId, shardIndex, quantity);
+        return rowsUpdated > 0 ? rowsUpdated : shardRepository.increaseQuantity(sweetId, 0, quantity);
+    }
+    
+    private int shardCount(Long sweetId) {
+        Integer hinted = shardCounts.get(sweetId);
+        if (hinted != null) {
+            return hinted;
+        }
+        // Sharded on another node: learn the count once. A count that later shrinks only misses a probe,
+        // since drain() and the shard-0 fallback always work against the rows that really exist.
+        int count = Math.max(1, shardRepository.countBySweetId(sweetId));
+        shardCounts.put(sweetId, count);
+        return count;
+    }
+    
+    @Override
+    public void setTotal(Long sweetId, int quantity) {
+        List<StockShard> shards = shardRepository.findBySweetIdWithLock(sweetId);
+        redistribute(sweetId, shards, Math.max(1, shards.size()), quantity);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public StockShardResponse getShards(Long sweetId) {
+        Sweet sweet = inventoryRepository.findById(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        return toResponse(sweet, shardRepository.findBySweetIdOrderByShardIndex(sweetId));
+    }
+    
+    @Override
+    public StockShardResponse configure(Long sweetId, int shardCount, UserIdentity currentUser) {
+        RoleChecker.requireAdmin(currentUser, "configure stock shards");
+        if (shardCount < 1) {
+            throw new InvalidOperationException("Shard count must be at least 1");
+        }
+        
+        Sweet sweet = inventoryRepository.findByIdWithLock(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        List<StockShard> shards = shardRepository.findBySweetIdWithLock(sweetId);
+        
+        // Both rows and shards stay locked only for this short transaction, so purchases pause briefly
+        // rather than failing while stock moves between the sweet row and its shards.
+        int total = sweet.isSharded()
+                ? shards.stream().mapToInt(StockShard::getQuantity).sum()
+                : sweet.getQuantity();
+        List<StockShard> rebalanced = redistribute(sweetId, shards, shardCount, total);
+        
+        if (!sweet.isSharded()) {
+            sweet.setQuantity(0);
+            sweet.setSharded(true);
+        }
+        // Shard rows may be deleted here, so the row is stamped to keep the feed's latest position moving forward.
+        changeLog.changed(sweetId);
+        indexStock(sweetId);
+        TransactionCallbacks.afterCommit(() -> shardCounts.put(sweetId, shardCount));
+        return toResponse(sweet, rebalanced);
+    }
+    
+    @Override
+    public StockShardResponse disable(Long sweetId, UserIdentity currentUser) {
+        RoleChecker.requireAdmin(currentUser, "configure stock shards");
+        
+        Sweet sweet = inventoryRepository.findByIdWithLock(sweetId)
+                .orElseThrow(() -> InventoryErrors.sweetNotFound(sweetId));
+        if (!sweet.isSharded()) {
+            throw new InvalidOperationException("Sweet does not use sharded stock");
+        }
+        
+        List<StockShard> shards = shardRepository.findBySweetIdWithLock(sweetId);
+        int total = shards.stream().mapToInt(StockShard::getQuantity).sum();
+        shardRepository.deleteAll(shards);
+        
+        sweet.setSharded(false);
+        sweet.setQuantity(total);
+        changeLog.changed(sweetId);
+        indexStock(sweetId);
+        TransactionCallbacks.afterCommit(() -> shardCounts.remove(sweetId));
+        return toResponse(sweet, List.of());
+    }
+    
+    // Stock moves between the row and its shards here, so the indexed total is re-read once it has settled.
+    private void indexStock(Long sweetId) {
+        inventoryRepository.findStockLevel(sweetId).ifPresent(level ->
+            indexMaintainer.stockChanged(level.getId(), level.getVersion(), level.getQuantity()));
+    }
+    
+    private List<StockShard> redistribute(Long sweetId, List<StockShard> shards, int shardCount, int total) {
+        int base = total / shardCount;
+        int extra = total % shardCount;
+        
+        List<StockShard> result = new ArrayList<>(shardCount);
+        List<StockShard> created = new ArrayList<>();
+        for (int index = 0; index < shardCount; index++) {
+            int target = base + (index < extra ? 1 : 0);
+            if (index < shards.size()) {
+                StockShard shard = shards.get(index);
+                shard.setQuantity(target);
+                result.add(shard);
+            } else {
+                StockShard shard = new StockShard(null, sweetId, index, target);
+                created.add(shard);
+                result.add(shard);
+            }
+        }
+        
+        shardRepository.saveAll(created);
+        if (shards.size() > shardCount) {
+            shardRepository.deleteAll(shards.subList(shardCount, shards.size()));
+        }
+        return result;
+    }
+    
+    private StockShardResponse toResponse(Sweet sweet, List<StockShard> shards) {
+        List<Integer> quantities = shards.stream()
+                .map(StockShard::getQuantity)
+                .collect(Collectors.toList());
+        long total = sweet.isSharded()
+                ? quantities.stream().mapToLong(Integer::longValue).sum()
+                : sweet.getQuantity();
+        return new StockShardResponse(sweet.getId(), sweet.isSharded(), total, quantities);
+    }
+}
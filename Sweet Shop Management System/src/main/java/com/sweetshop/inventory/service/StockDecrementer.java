@@ -0,0 +1,8 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.inventory.dto.InventoryResponse;
+
+public interface StockDecrementer {
+    PurchaseStrategy getStrategy();
+    InventoryResponse decrement(Long sweetId, int quantity);
+}
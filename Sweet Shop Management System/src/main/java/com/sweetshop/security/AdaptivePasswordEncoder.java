@@ -0,0 +1,96 @@
+package com.sweetshop.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+    
+    private static final int BCRYPT_MIN_STRENGTH = 4;
+    private static final int BCRYPT_MAX_STRENGTH = 31;
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+    
+    private final int strength;
+    private final BCryptPasswordEncoder delegate;
+    
+    public AdaptivePasswordEncoder(MeterRegistry meterRegistry,
+                                   @Value("${auth.password.strength:0}") int strength,
+                                   @Value("${auth.password.target-ms:50}") long targetMillis,
+                                   @Value("${auth.password.min-strength:10}") int minStrength,
+                                   @Value("${auth.password.max-strength:16}") int maxStrength) {
+        // A fixed strength skips calibration; nodes that must agree on one cost should set it.
+        this.strength = strength > 0
+                ? clamp(strength, BCRYPT_MIN_STRENGTH, BCRYPT_MAX_STRENGTH)
+                : calibrate(AdaptivePasswordEncoder::hashNanos, TimeUnit.MILLISECONDS.toNanos(targetMillis),
+                    minStrength, maxStrength);
+        this.delegate = new BCryptPasswordEncoder(this.strength);
+        meterRegistry.gauge("auth.password.strength", this, AdaptivePasswordEncoder::getStrength);
+    }
+    
+    public int getStrength() {
+        return strength;
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only weaker hashes are rewritten: nodes calibrated to different costs would otherwise rehash back and forth.
+        int stored = strengthOf(encodedPassword);
+        return stored > 0 && stored < strength;
+    }
+    
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return 0;
+        }
+        Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+    
+    static int calibrate(IntToLongFunction hashNanos, long targetNanos, int minStrength, int maxStrength) {
+        int min = clamp(minStrength, BCRYPT_MIN_STRENGTH, BCRYPT_MAX_STRENGTH);
+        int max = clamp(maxStrength, min, BCRYPT_MAX_STRENGTH);
+        int strength = min;
+        long elapsed = hashNanos.applyAsLong(strength);
+        // Each step doubles the work, so stop before the next one would overshoot the target.
+        while (strength < max && elapsed * 2 <= targetNanos) {
+            strength++;
+            elapsed = hashNanos.applyAsLong(strength);
+        }
+        return strength;
+    }
+    
+    private static long hashNanos(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long best = Long.MAX_VALUE;
+        // The faster of two runs, so JIT warm-up on the first hash does not drag the strength down.
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+    
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,21 @@
+package com.sweetshop.security;
+
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.UserIdentity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements UserIdentity, Principal {
+    private final Long id;
+    private final String username;
+    private final Role role;
+    
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,6 +1,7 @@
 package com.sweetshop.security;
 
 import com.sweetshop.exception.AuthenticationException;
+import com.sweetshop.user.domain.Role;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -36,12 +37,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         if (token != null) {
             try {
-                if (jwtTokenProvider.validateToken(token)) {
-                    setAuthentication(token, request);
-                } else {
-                    SecurityContextHolder.clearContext();
-                    throw new AuthenticationException("Invalid or expired token");
-                }
+                // One verification per request; the claims carry everything the authentication needs.
+                setAuthentication(jwtTokenProvider.verify(token), request);
             } catch (ExpiredJwtException e) {
                 SecurityContextHolder.clearContext();
                 throw new AuthenticationException("Token has expired. Please login again.");
@@ -62,14 +59,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
     
-    private void setAuthentication(String token, HttpServletRequest request) {
-        String username = jwtTokenProvider.getUsernameFromToken(token);
-        String role = jwtTokenProvider.getRoleFromToken(token);
+    private void setAuthentication(TokenClaims claims, HttpServletRequest request) {
+        if (claims.getUsername() == null || claims.getUserId() == null || claims.getRole() == null) {
+            throw new AuthenticationException("Invalid or expired token");
+        }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // The principal carries id and role from the verified claims, so controllers need no user lookup.
+            AuthenticatedUser principal =
+                new AuthenticatedUser(claims.getUserId(), claims.getUsername(), Role.valueOf(claims.getRole()));
+            SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + principal.getRole().name());
             UsernamePasswordAuthenticationToken authentication = 
-                new UsernamePasswordAuthenticationToken(username, null, Collections.singletonList(authority));
+                new UsernamePasswordAuthenticationToken(principal, null, Collections.singletonList(authority));
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
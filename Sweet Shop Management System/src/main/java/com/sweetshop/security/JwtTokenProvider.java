@@ -4,11 +4,10 @@ import com.sweetshop.user.domain.User;
 
 public interface JwtTokenProvider {
     String generateToken(User user);
+    TokenClaims verify(String token);
     boolean validateToken(String token);
     String getUsernameFromToken(String token);
     Long getUserIdFromToken(String token);
     String getRoleFromToken(String token);
     boolean isTokenExpired(String token);
 }
-
-
@@ -1,102 +1,122 @@
 package com.sweetshop.security;
 
 import com.sweetshop.user.domain.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SecurityException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Component
 public class JwtTokenProviderImpl implements JwtTokenProvider {
     
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeAtLeast256BitsLong}")
-    private String jwtSecret;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpirationMs;
+    private final Map<String, TokenClaims> verifiedTokens;
     
-    @Value("${jwt.expiration:86400000}")
-    private long jwtExpirationMs;
+    public JwtTokenProviderImpl(
+            @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeAtLeast256BitsLong}") String jwtSecret,
+            @Value("${jwt.expiration:86400000}") long jwtExpirationMs,
+            @Value("${jwt.cache.max-entries:1024}") int maxCachedTokens) {
+        // The key and parser are immutable and thread-safe, so they are built once instead of per call.
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.jwtExpirationMs = jwtExpirationMs;
+        int capacity = Math.max(1, maxCachedTokens);
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenClaims> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
     
     @Override
     public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
         
-        SecretKey key = getSigningKey();
-        
         return Jwts.builder()
                 .subject(user.getUsername())
                 .claim("userId", user.getId())
                 .claim("role", user.getRole().name())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(key)
+                .signWith(signingKey)
                 .compact();
     }
     
+    @Override
+    public TokenClaims verify(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Token must not be empty");
+        }
+        // Keyed by a digest so the cache never holds usable bearer tokens.
+        String key = digest(token);
+        synchronized (verifiedTokens) {
+            TokenClaims cached = verifiedTokens.get(key);
+            if (cached != null) {
+                if (cached.getExpiresAt().isAfter(Instant.now())) {
+                    return cached;
+                }
+                // Falls through to the parser, which raises the usual ExpiredJwtException.
+                verifiedTokens.remove(key);
+            }
+        }
+        
+        TokenClaims claims = toTokenClaims(parser.parseSignedClaims(token).getPayload());
+        if (claims.getExpiresAt() != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(key, claims);
+            }
+        }
+        return claims;
+    }
+    
     @Override
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            verify(token);
             return true;
-        } catch (ExpiredJwtException e) {
-            return false;
-        } catch (MalformedJwtException | UnsupportedJwtException | SecurityException | IllegalArgumentException e) {
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
     
     @Override
     public String getUsernameFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return verify(token).getUsername();
     }
     
     @Override
     public Long getUserIdFromToken(String token) {
-        Object userId = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("userId");
-        return userId instanceof Number ? ((Number) userId).longValue() : Long.parseLong(userId.toString());
+        return verify(token).getUserId();
     }
     
     @Override
     public String getRoleFromToken(String token) {
-        Object role = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("role");
-        return role != null ? role.toString() : null;
+        return verify(token).getRole();
     }
     
     @Override
     public boolean isTokenExpired(String token) {
         try {
-            Date expiration = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .getExpiration();
-            return expiration.before(new Date());
+            verify(token);
+            return false;
         } catch (ExpiredJwtException e) {
             return true;
         } catch (Exception e) {
@@ -104,8 +124,37 @@ public class JwtTokenProviderImpl implements JwtTokenProvider {
         }
     }
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    int cachedTokenCount() {
+        synchronized (verifiedTokens) {
+            return verifiedTokens.size();
+        }
+    }
+    
+    private static TokenClaims toTokenClaims(Claims claims) {
+        Object userId = claims.get("userId");
+        Object role = claims.get("role");
+        Date expiration = claims.getExpiration();
+        return new TokenClaims(
+            claims.getSubject(),
+            toUserId(userId),
+            role != null ? role.toString() : null,
+            expiration != null ? expiration.toInstant() : null
+        );
+    }
+    
+    private static Long toUserId(Object userId) {
+        if (userId == null) {
+            return null;
+        }
+        return userId instanceof Number ? ((Number) userId).longValue() : Long.parseLong(userId.toString());
+    }
+    
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
-
@@ -0,0 +1,15 @@
+package com.sweetshop.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class TokenClaims {
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final Instant expiresAt;
+}
@@ -1,19 +1,33 @@
 package com.sweetshop.sweet.controller;
 
 import com.sweetshop.common.controller.BaseController;
+import com.sweetshop.common.util.ETags;
+import com.sweetshop.security.AuthenticatedUser;
+import com.sweetshop.sweet.dto.BulkSweetRequest;
+import com.sweetshop.sweet.dto.BulkSweetResponse;
 import com.sweetshop.sweet.dto.PaginationRequest;
 import com.sweetshop.sweet.dto.SearchRequest;
+import com.sweetshop.sweet.dto.SuggestionResponse;
+import com.sweetshop.sweet.dto.SweetChangesResponse;
+import com.sweetshop.sweet.dto.SweetFacetsResponse;
 import com.sweetshop.sweet.dto.SweetRequest;
 import com.sweetshop.sweet.dto.SweetResponse;
+import com.sweetshop.sweet.dto.VersionedSweet;
+import com.sweetshop.sweet.index.FuzzyNameIndex;
+import com.sweetshop.sweet.index.SuggestionIndex;
+import com.sweetshop.sweet.service.SweetBulkService;
+import com.sweetshop.sweet.service.SweetExportService;
+import com.sweetshop.sweet.service.SweetFacetService;
 import com.sweetshop.sweet.service.SweetService;
-import com.sweetshop.user.domain.User;
-import com.sweetshop.user.repository.UserRepository;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,36 +35,77 @@ import java.util.List;
 @RequestMapping("/api/sweets")
 public class SweetController extends BaseController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    
     private final SweetService sweetService;
+    private final SweetExportService sweetExportService;
+    private final SweetFacetService sweetFacetService;
+    private final SweetBulkService sweetBulkService;
     
-    public SweetController(SweetService sweetService, UserRepository userRepository) {
-        super(userRepository);
+    public SweetController(SweetService sweetService,
+                           SweetExportService sweetExportService,
+                           SweetFacetService sweetFacetService,
+                           SweetBulkService sweetBulkService) {
         this.sweetService = sweetService;
+        this.sweetExportService = sweetExportService;
+        this.sweetFacetService = sweetFacetService;
+        this.sweetBulkService = sweetBulkService;
     }
     
     @PostMapping
     public ResponseEntity<SweetResponse> createSweet(@Valid @RequestBody SweetRequest request) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getAuthenticatedUser();
         SweetResponse response = sweetService.createSweet(request, currentUser);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkSweetResponse> createSweets(@Valid @RequestBody BulkSweetRequest request) {
+        return ResponseEntity.ok(sweetBulkService.createAll(request.getItems()));
+    }
+    
+    @PutMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkSweetResponse> updateSweets(@Valid @RequestBody BulkSweetRequest request) {
+        return ResponseEntity.ok(sweetBulkService.updateAll(request.getItems()));
+    }
+    
     @GetMapping
-    public ResponseEntity<?> getAllSweets(@ModelAttribute PaginationRequest pagination) {
+    public ResponseEntity<?> getAllSweets(@ModelAttribute PaginationRequest pagination,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (pagination.hasPagination()) {
             validatePagination(pagination);
+        }
+        // Taken before the query, so a change racing with it yields a newer tag on the next request.
+        String etag = sweetService.getCatalogETag();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        if (pagination.hasPagination()) {
             int pageNum = pagination.getPage() != null ? pagination.getPage() : 0;
             int pageSize = pagination.getSize() != null ? pagination.getSize() : 20;
             String sortField = pagination.getSortBy() != null ? pagination.getSortBy() : "id";
             String sortDir = pagination.getSortDirection() != null ? pagination.getSortDirection() : "asc";
             
-            return ResponseEntity.ok(sweetService.getAllSweets(pageNum, pageSize, sortField, sortDir));
+            if (pagination.hasCursor()) {
+                boolean includeTotal = Boolean.TRUE.equals(pagination.getIncludeTotal());
+                return ResponseEntity.ok().eTag(etag)
+                        .body(sweetService.getSweetsAfter(pagination.getCursor(), pageSize, includeTotal));
+            }
+            boolean includeTotal = !Boolean.FALSE.equals(pagination.getIncludeTotal());
+            return ResponseEntity.ok().eTag(etag)
+                    .body(sweetService.getAllSweets(pageNum, pageSize, sortField, sortDir, includeTotal));
         }
         
-        return ResponseEntity.ok(sweetService.getAllSweets());
+        return ResponseEntity.ok().eTag(etag).body(sweetService.getAllSweets());
     }
     
     private void validatePagination(PaginationRequest pagination) {
+        if (pagination.getPage() != null && pagination.hasCursor()) {
+            throw new IllegalArgumentException("Use either page or cursor, not both");
+        }
         if (pagination.getPage() != null && pagination.getPage() < 0) {
             throw new IllegalArgumentException("Page number must be 0 or greater");
         }
@@ -64,25 +119,88 @@ public class SweetController extends BaseController {
         }
     }
     
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportSweets() {
+        StreamingResponseBody body = sweetExportService::exportAll;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+    
+    @GetMapping("/changes")
+    public ResponseEntity<SweetChangesResponse> getChanges(@RequestParam(required = false) String since,
+                                                           @RequestParam(defaultValue = "500") int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("Change limit must be between 1 and 1000");
+        }
+        return ResponseEntity.ok(sweetService.getChangesSince(since, limit));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<SweetResponse> getSweetById(
-            @PathVariable @Positive(message = "ID must be a positive number") Long id) {
-        return ResponseEntity.ok(sweetService.getSweetById(id));
+            @PathVariable @Positive(message = "ID must be a positive number") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = sweetService.getSweetETag(id);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        VersionedSweet sweet = sweetService.getVersionedSweetById(id);
+        return ResponseEntity.ok().eTag(sweet.getEtag()).body(sweet.getSweet());
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<SweetResponse>> searchSweets(
-            @ModelAttribute SearchRequest searchRequest) {
+    public ResponseEntity<?> searchSweets(@ModelAttribute SearchRequest searchRequest) {
+        searchRequest.validate();
+        if (searchRequest.hasPagination()) {
+            int pageNum = searchRequest.getPage() != null ? searchRequest.getPage() : 0;
+            int pageSize = searchRequest.getSize() != null ? searchRequest.getSize() : 20;
+            return ResponseEntity.ok(sweetService.search(searchRequest, pageNum, pageSize));
+        }
+        if (!searchRequest.hasAnyCriteria()) {
+            return ResponseEntity.ok(sweetService.getAllSweets());
+        }
+        return ResponseEntity.ok(sweetService.search(searchRequest));
+    }
+    
+    @GetMapping("/search/fuzzy")
+    public ResponseEntity<List<SweetResponse>> fuzzySearchSweets(@RequestParam String name,
+                                                                 @RequestParam(required = false) Integer maxDistance,
+                                                                 @RequestParam(defaultValue = "20") int limit) {
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("Name must not be blank");
+        }
+        if (limit < 1 || limit > FuzzyNameIndex.MAX_RESULTS) {
+            throw new IllegalArgumentException("Fuzzy search limit must be between 1 and " + FuzzyNameIndex.MAX_RESULTS);
+        }
+        return ResponseEntity.ok(sweetService.fuzzySearchByName(name, maxDistance, limit));
+    }
+    
+    @GetMapping("/facets")
+    public ResponseEntity<SweetFacetsResponse> getFacets(@ModelAttribute SearchRequest searchRequest,
+                                                         @RequestParam(defaultValue = "10") int buckets) {
         searchRequest.validate();
-        List<SweetResponse> results = determineSearchResults(searchRequest);
-        return ResponseEntity.ok(results);
+        if (buckets < 1 || buckets > 50) {
+            throw new IllegalArgumentException("Histogram buckets must be between 1 and 50");
+        }
+        return ResponseEntity.ok(sweetFacetService.getFacets(searchRequest, buckets));
+    }
+    
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(@RequestParam String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > SuggestionIndex.TOP_K) {
+            throw new IllegalArgumentException("Suggestion limit must be between 1 and " + SuggestionIndex.TOP_K);
+        }
+        return ResponseEntity.ok(sweetService.suggest(prefix, limit));
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<SweetResponse> updateSweet(
             @PathVariable @Positive(message = "ID must be a positive number") Long id,
             @Valid @RequestBody SweetRequest request) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getAuthenticatedUser();
         return ResponseEntity.ok(sweetService.updateSweet(id, request, currentUser));
     }
     
@@ -90,21 +208,8 @@ public class SweetController extends BaseController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteSweet(
             @PathVariable @Positive(message = "ID must be a positive number") Long id) {
-        sweetService.deleteSweet(id, getCurrentUser());
+        sweetService.deleteSweet(id, getAuthenticatedUser());
         return ResponseEntity.noContent().build();
     }
-    
-    private List<SweetResponse> determineSearchResults(SearchRequest searchRequest) {
-        if (searchRequest.hasName()) {
-            return sweetService.searchByName(searchRequest.getName());
-        }
-        if (searchRequest.hasCategory()) {
-            return sweetService.searchByCategory(searchRequest.getCategory());
-        }
-        if (searchRequest.hasPriceRange()) {
-            return sweetService.searchByPriceRange(searchRequest.getMinPrice(), searchRequest.getMaxPrice());
-        }
-        return sweetService.getAllSweets();
-    }
 }
 
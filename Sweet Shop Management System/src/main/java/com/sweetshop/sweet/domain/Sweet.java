@@ -1,16 +1,25 @@
 package com.sweetshop.sweet.domain;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.Check;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
+import java.util.Locale;
 
 @Entity
-@Table(name = "sweets")
+@Table(name = "sweets",
+       indexes = {
+           @Index(name = "idx_sweets_name_id", columnList = "name, id"),
+           @Index(name = "idx_sweets_price_id", columnList = "price, id"),
+           @Index(name = "idx_sweets_category_key_price_id", columnList = "category_key, price, id"),
+           @Index(name = "idx_sweets_change_txid_seq", columnList = "change_txid, change_seq")
+       })
 @Check(constraints = "price > 0 AND quantity >= 0")
 @Getter
 @Setter
@@ -18,7 +27,9 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class Sweet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids let bulk inserts be batched; IDENTITY forces one round trip per row.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sweet_seq")
+    @SequenceGenerator(name = "sweet_seq", sequenceName = "sweet_seq", allocationSize = 100)
     private Long id;
 
     @Version
@@ -31,11 +42,55 @@ public class Sweet {
     @Column(nullable = false, length = 100)
     private String category;
 
+    // Lower-cased copy of category so case-insensitive filters can use a plain composite index.
+    @Column(name = "category_key", length = 100)
+    @Setter(AccessLevel.NONE)
+    private String categoryKey;
+
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal price;
 
     @Column(nullable = false)
     private int quantity;
+
+    @Column(nullable = false)
+    private boolean sharded;
+
+    // Change-feed position, written only by the stamping UPDATEs so entity flushes never move it back.
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Long changeSeq;
+
+    @Column(name = "change_txid", insertable = false, updatable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Long changeTxid;
+
+    @Formula("(CASE WHEN sharded THEN " +
+             "(SELECT COALESCE(SUM(ss.quantity), 0) FROM sweet_stock_shards ss WHERE ss.sweet_id = id) " +
+             "ELSE 0 END)")
+    @Getter(AccessLevel.NONE)
+    private int shardedQuantity;
+
+    public int getQuantity() {
+        return sharded ? shardedQuantity : quantity;
+    }
+
+    // Version left by a bulk UPDATE that bumps it once; the UPDATE does not refresh this instance.
+    public Long nextVersion() {
+        return version != null ? version + 1 : null;
+    }
+
+    public static String toCategoryKey(String category) {
+        return category != null ? category.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateCategoryKey() {
+        categoryKey = toCategoryKey(category);
+    }
 }
 
 
@@ -0,0 +1,31 @@
+package com.sweetshop.sweet.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "sweet_tombstones",
+       indexes = {
+           @Index(name = "idx_sweet_tombstones_change_txid_seq", columnList = "change_txid, change_seq")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetTombstone {
+    // The id doubles as the change position; sweet_change_seq also stamps sweets and stock shards on every write.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sweet_change_seq")
+    @SequenceGenerator(name = "sweet_change_seq", sequenceName = "sweet_change_seq", allocationSize = 1)
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "change_txid", nullable = false)
+    private Long changeTxid;
+
+    @Column(name = "sweet_id", nullable = false)
+    private Long sweetId;
+}
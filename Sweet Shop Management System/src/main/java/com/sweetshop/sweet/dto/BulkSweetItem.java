@@ -0,0 +1,10 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkSweetItem extends SweetRequest {
+    private Long id;
+}
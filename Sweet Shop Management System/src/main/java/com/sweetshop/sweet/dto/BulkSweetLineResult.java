@@ -0,0 +1,15 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BulkSweetLineResult {
+    private int index;
+    private Long id;
+    private BulkSweetLineStatus status;
+    private String message;
+}
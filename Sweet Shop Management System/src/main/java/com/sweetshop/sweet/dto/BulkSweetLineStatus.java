@@ -0,0 +1,9 @@
+package com.sweetshop.sweet.dto;
+
+public enum BulkSweetLineStatus {
+    CREATED,
+    UPDATED,
+    INVALID,
+    NOT_FOUND,
+    FAILED
+}
@@ -0,0 +1,17 @@
+package com.sweetshop.sweet.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkSweetRequest {
+    // Items are validated one by one in the service so a bad row is reported instead of failing the request.
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 10000, message = "A bulk request cannot contain more than 10000 items")
+    private List<BulkSweetItem> items;
+}
@@ -0,0 +1,16 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BulkSweetResponse {
+    private int succeeded;
+    private int failed;
+    private List<BulkSweetLineResult> lines;
+}
@@ -0,0 +1,18 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class CategoryFacet {
+    private String category;
+    private long count;
+    private long inStock;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
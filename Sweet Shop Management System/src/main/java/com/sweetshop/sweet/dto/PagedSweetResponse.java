@@ -11,12 +11,13 @@ import java.util.List;
 @AllArgsConstructor
 public class PagedSweetResponse {
     private List<SweetResponse> content;
-    private int page;
+    private Integer page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor;
 }
 
 
@@ -10,9 +10,15 @@ public class PaginationRequest {
     private Integer size;
     private String sortBy;
     private String sortDirection;
+    private String cursor;
+    private Boolean includeTotal;
     
     public boolean hasPagination() {
-        return page != null || size != null;
+        return page != null || size != null || cursor != null;
+    }
+    
+    public boolean hasCursor() {
+        return cursor != null && !cursor.isBlank();
     }
 }
 
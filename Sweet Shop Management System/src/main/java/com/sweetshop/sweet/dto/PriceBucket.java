@@ -0,0 +1,16 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class PriceBucket {
+    private BigDecimal from;
+    private BigDecimal to;
+    private long count;
+}
@@ -12,6 +12,10 @@ public class SearchRequest {
     private String category;
     private BigDecimal minPrice;
     private BigDecimal maxPrice;
+    private Integer page;
+    private Integer size;
+    private String sortBy;
+    private String sortDirection;
     
     public boolean hasName() {
         return name != null && !name.trim().isEmpty();
@@ -25,17 +29,29 @@ public class SearchRequest {
         return minPrice != null && maxPrice != null;
     }
     
+    public boolean hasAnyCriteria() {
+        return hasName() || hasCategory() || minPrice != null || maxPrice != null;
+    }
+    
+    public boolean hasPagination() {
+        return page != null || size != null;
+    }
+    
     public void validate() {
-        if (hasPriceRange()) {
-            if (minPrice.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new IllegalArgumentException("Minimum price must be greater than 0");
-            }
-            if (maxPrice.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new IllegalArgumentException("Maximum price must be greater than 0");
-            }
-            if (minPrice.compareTo(maxPrice) > 0) {
-                throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
-            }
+        if (minPrice != null && minPrice.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Minimum price must be greater than 0");
+        }
+        if (maxPrice != null && maxPrice.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Maximum price must be greater than 0");
+        }
+        if (hasPriceRange() && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
+        }
+        if (page != null && page < 0) {
+            throw new IllegalArgumentException("Page number must be 0 or greater");
+        }
+        if (size != null && (size < 1 || size > 100)) {
+            throw new IllegalArgumentException("Page size must be between 1 and 100");
         }
     }
 }
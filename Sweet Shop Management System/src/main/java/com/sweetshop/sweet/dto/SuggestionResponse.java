@@ -0,0 +1,14 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SuggestionResponse {
+    private String text;
+    private SuggestionType type;
+    private Long sweetId;
+}
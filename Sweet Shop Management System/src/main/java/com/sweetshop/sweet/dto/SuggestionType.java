@@ -0,0 +1,6 @@
+package com.sweetshop.sweet.dto;
+
+public enum SuggestionType {
+    SWEET,
+    CATEGORY
+}
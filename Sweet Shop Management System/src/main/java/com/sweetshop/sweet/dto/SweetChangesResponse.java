@@ -0,0 +1,18 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SweetChangesResponse {
+    private String token;
+    private boolean resetRequired;
+    private boolean hasMore;
+    private List<SweetResponse> changed;
+    private List<Long> deleted;
+}
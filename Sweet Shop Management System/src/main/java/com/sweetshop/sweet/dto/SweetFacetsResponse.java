@@ -0,0 +1,19 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SweetFacetsResponse {
+    private long total;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private List<CategoryFacet> categories;
+    private List<PriceBucket> histogram;
+}
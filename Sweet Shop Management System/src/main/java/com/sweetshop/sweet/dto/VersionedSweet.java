@@ -0,0 +1,11 @@
+package com.sweetshop.sweet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class VersionedSweet {
+    private SweetResponse sweet;
+    private String etag;
+}
@@ -0,0 +1,243 @@
+package com.sweetshop.sweet.index;
+
+import com.sweetshop.sweet.dto.CategoryFacet;
+import com.sweetshop.sweet.dto.PriceBucket;
+import com.sweetshop.sweet.dto.SweetFacetsResponse;
+import com.sweetshop.sweet.repository.SweetSummary;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class FacetIndex {
+    
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, CategoryAggregate> categories = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void rebuild(Collection<? extends SweetSummary> rows) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            categories.clear();
+            for (SweetSummary row : rows) {
+                int quantity = row.getQuantity() != null ? row.getQuantity() : 0;
+                addLocked(row.getId(), entry(row.getCategory(), row.getPrice(), quantity));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void put(Long id, String category, BigDecimal price, int quantity) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            addLocked(id, entry(category, price, quantity));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void updateQuantity(Long id, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entries.get(id);
+            if (current == null || current.inStock == (quantity > 0)) {
+                return;
+            }
+            removeLocked(id);
+            addLocked(id, new Entry(current.categoryKey, current.category, current.cents, quantity > 0));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public SweetFacetsResponse facets(String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                      long[] ids, int buckets) {
+        String categoryKey = category != null ? normalize(category) : null;
+        long low = minPrice != null ? PriceIndex.toCents(minPrice) : Long.MIN_VALUE;
+        long high = maxPrice != null ? PriceIndex.toCents(maxPrice) : Long.MAX_VALUE;
+        Map<String, CategoryTally> tallies = new HashMap<>();
+        TreeMap<Long, Long> countsByCents = new TreeMap<>();
+        
+        lock.readLock().lock();
+        try {
+            if (ids != null) {
+                for (long id : ids) {
+                    Entry entry = entries.get(id);
+                    if (entry != null && (categoryKey == null || categoryKey.equals(entry.categoryKey))
+                            && entry.cents >= low && entry.cents <= high) {
+                        tallies.computeIfAbsent(entry.categoryKey, key -> new CategoryTally(entry.category))
+                                .add(entry.cents, 1, entry.inStock ? 1 : 0);
+                        countsByCents.merge(entry.cents, 1L, Long::sum);
+                    }
+                }
+            } else {
+                // Without a name filter the answer comes straight from the per-category price counts.
+                for (Map.Entry<String, CategoryAggregate> aggregate : categories.entrySet()) {
+                    if (categoryKey != null && !categoryKey.equals(aggregate.getKey())) {
+                        continue;
+                    }
+                    CategoryAggregate value = aggregate.getValue();
+                    for (Map.Entry<Long, PriceCount> price : value.prices.subMap(low, true, high, true).entrySet()) {
+                        tallies.computeIfAbsent(aggregate.getKey(), key -> new CategoryTally(value.label))
+                                .add(price.getKey(), price.getValue().total, price.getValue().inStock);
+                        countsByCents.merge(price.getKey(), (long) price.getValue().total, Long::sum);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        return toResponse(tallies, countsByCents, buckets);
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void addLocked(Long id, Entry entry) {
+        entries.put(id, entry);
+        CategoryAggregate aggregate = categories.computeIfAbsent(entry.categoryKey,
+            key -> new CategoryAggregate(entry.category));
+        PriceCount count = aggregate.prices.computeIfAbsent(entry.cents, key -> new PriceCount());
+        count.total++;
+        if (entry.inStock) {
+            count.inStock++;
+        }
+    }
+    
+    private void removeLocked(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        CategoryAggregate aggregate = categories.get(previous.categoryKey);
+        PriceCount count = aggregate.prices.get(previous.cents);
+        count.total--;
+        if (previous.inStock) {
+            count.inStock--;
+        }
+        if (count.total == 0) {
+            aggregate.prices.remove(previous.cents);
+            if (aggregate.prices.isEmpty()) {
+                categories.remove(previous.categoryKey);
+            }
+        }
+    }
+    
+    private static SweetFacetsResponse toResponse(Map<String, CategoryTally> tallies,
+                                                  NavigableMap<Long, Long> countsByCents, int buckets) {
+        List<CategoryFacet> facets = new ArrayList<>(tallies.size());
+        long total = 0;
+        for (CategoryTally tally : tallies.values()) {
+            facets.add(new CategoryFacet(tally.label, tally.count, tally.inStock,
+                toPrice(tally.minCents), toPrice(tally.maxCents)));
+            total += tally.count;
+        }
+        facets.sort(Comparator.comparingLong(CategoryFacet::getCount).reversed()
+                .thenComparing(CategoryFacet::getCategory));
+        
+        if (countsByCents.isEmpty()) {
+            return new SweetFacetsResponse(0, null, null, facets, List.of());
+        }
+        return new SweetFacetsResponse(total, toPrice(countsByCents.firstKey()), toPrice(countsByCents.lastKey()),
+            facets, histogram(countsByCents, Math.max(1, buckets)));
+    }
+    
+    private static List<PriceBucket> histogram(NavigableMap<Long, Long> countsByCents, int buckets) {
+        long min = countsByCents.firstKey();
+        long max = countsByCents.lastKey();
+        // Equal-width buckets, each [from, to), sized so the highest price always lands in the last one.
+        long width = (max - min) / buckets + 1;
+        long[] counts = new long[(int) ((max - min) / width) + 1];
+        countsByCents.forEach((cents, count) -> counts[(int) ((cents - min) / width)] += count);
+        
+        List<PriceBucket> histogram = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            histogram.add(new PriceBucket(toPrice(min + i * width), toPrice(min + (i + 1) * width), counts[i]));
+        }
+        return histogram;
+    }
+    
+    private static Entry entry(String category, BigDecimal price, int quantity) {
+        return new Entry(normalize(category), category, PriceIndex.toCents(price), quantity > 0);
+    }
+    
+    private static String normalize(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static BigDecimal toPrice(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    private record Entry(String categoryKey, String category, long cents, boolean inStock) {
+    }
+    
+    private static final class PriceCount {
+        private int total;
+        private int inStock;
+    }
+    
+    private static final class CategoryAggregate {
+        private final String label;
+        private final TreeMap<Long, PriceCount> prices = new TreeMap<>();
+        
+        private CategoryAggregate(String label) {
+            this.label = label;
+        }
+    }
+    
+    private static final class CategoryTally {
+        private final String label;
+        private long count;
+        private long inStock;
+        private long minCents = Long.MAX_VALUE;
+        private long maxCents = Long.MIN_VALUE;
+        
+        private CategoryTally(String label) {
+            this.label = label;
+        }
+        
+        private void add(long cents, long count, long inStock) {
+            this.count += count;
+            this.inStock += inStock;
+            minCents = Math.min(minCents, cents);
+            maxCents = Math.max(maxCents, cents);
+        }
+    }
+}
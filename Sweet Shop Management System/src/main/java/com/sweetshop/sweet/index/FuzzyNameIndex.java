@@ -0,0 +1,259 @@
+package com.sweetshop.sweet.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class FuzzyNameIndex {
+    
+    public static final int MAX_RESULTS = 100;
+    
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::distance)
+            .thenComparing(Match::word)
+            .thenComparingLong(Match::id);
+    
+    private final Map<String, Node> nodesByWord = new HashMap<>();
+    private final Map<Long, String> words = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int tombstones;
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void rebuild(Map<Long, String> namesById) {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            namesById.keySet().stream().sorted().forEach(id -> addLocked(id, namesById.get(id)));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            addLocked(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public long[] search(String query, int maxDistance) {
+        return search(query, maxDistance, Integer.MAX_VALUE);
+    }
+    
+    public long[] search(String query, int maxDistance, int limit) {
+        String word = SuggestionIndex.normalize(query);
+        if (word.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        
+        // Worst-ranked match on top, so once the heap holds limit matches each new one costs O(log limit).
+        PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return new long[0];
+            }
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = distance(word, node.word);
+                if (distance <= maxDistance) {
+                    for (long id : node.ids) {
+                        best.add(new Match(id, node.word, distance));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+                // Triangle inequality: only subtrees within maxDistance of this node's distance can match.
+                for (int i = 0; i < node.distances.length; i++) {
+                    if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+                        pending.push(node.children[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        return best.stream()
+                .sorted(RANKING)
+                .mapToLong(Match::id)
+                .toArray();
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return words.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void addLocked(Long id, String name) {
+        String word = SuggestionIndex.normalize(name);
+        if (word.isEmpty()) {
+            return;
+        }
+        words.put(id, word);
+        
+        Node existing = nodesByWord.get(word);
+        if (existing != null) {
+            if (existing.ids.length == 0) {
+                tombstones--;
+            }
+            existing.addId(id);
+            return;
+        }
+        
+        Node created = new Node(word, id);
+        nodesByWord.put(word, created);
+        if (root == null) {
+            root = created;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, created);
+                return;
+            }
+            node = child;
+        }
+    }
+    
+    private void removeLocked(Long id) {
+        String word = words.remove(id);
+        if (word == null) {
+            return;
+        }
+        Node node = nodesByWord.get(word);
+        node.removeId(id);
+        if (node.ids.length > 0) {
+            return;
+        }
+        
+        // Emptied nodes stay in place to keep routing intact, and the tree is rebuilt once they dominate.
+        tombstones++;
+        if (tombstones > words.size()) {
+            Map<Long, String> live = new HashMap<>(words);
+            clearLocked();
+            live.keySet().stream().sorted().forEach(liveId -> addLocked(liveId, live.get(liveId)));
+        }
+    }
+    
+    private void clearLocked() {
+        nodesByWord.clear();
+        words.clear();
+        root = null;
+        tombstones = 0;
+    }
+    
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j] + 1, current[j - 1] + 1));
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+    
+    private record Match(long id, String word, int distance) {
+    }
+    
+    private static final class Node {
+        private static final int[] NO_DISTANCES = new int[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        
+        private final String word;
+        private long[] ids;
+        private int[] distances = NO_DISTANCES;
+        private Node[] children = NO_CHILDREN;
+        
+        private Node(String word, long id) {
+            this.word = word;
+            this.ids = new long[] {id};
+        }
+        
+        private Node child(int distance) {
+            for (int i = 0; i < distances.length; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+        
+        private void addChild(int distance, Node child) {
+            distances = Arrays.copyOf(distances, distances.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            distances[distances.length - 1] = distance;
+            children[children.length - 1] = child;
+        }
+        
+        private void addId(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insertAt);
+            updated[insertAt] = id;
+            System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+            ids = updated;
+        }
+        
+        private void removeId(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0) {
+                return;
+            }
+            long[] updated = new long[ids.length - 1];
+            System.arraycopy(ids, 0, updated, 0, position);
+            System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+            ids = updated;
+        }
+    }
+}
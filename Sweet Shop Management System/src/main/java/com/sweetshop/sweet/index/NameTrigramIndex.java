@@ -0,0 +1,211 @@
+package com.sweetshop.sweet.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class NameTrigramIndex {
+    
+    private static final int GRAM = 3;
+    
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void rebuild(Map<Long, String> namesById) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            names.clear();
+            // Adding ids in ascending order appends to every posting list instead of shifting it.
+            namesById.keySet().stream().sorted().forEach(id -> addLocked(id, namesById.get(id)));
+            postings.values().forEach(PostingList::trim);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            addLocked(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public long[] search(String query) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            long[] candidates = needle.length() < GRAM ? allIds() : intersect(needle);
+            return verify(candidates, needle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void addLocked(Long id, String name) {
+        if (name == null) {
+            return;
+        }
+        String normalized = normalize(name);
+        names.put(id, normalized);
+        for (long gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+    
+    private void removeLocked(Long id) {
+        String previous = names.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (long gram : grams(previous)) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+    
+    private long[] intersect(String needle) {
+        List<PostingList> lists = new ArrayList<>();
+        for (long gram : grams(needle)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        
+        // Start from the rarest trigram so every later step only probes a handful of ids.
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int length = result.length;
+        for (int i = 1; i < lists.size() && length > 0; i++) {
+            PostingList list = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < length; j++) {
+                if (Arrays.binarySearch(list.ids, 0, list.size, result[j]) >= 0) {
+                    result[kept++] = result[j];
+                }
+            }
+            length = kept;
+        }
+        return Arrays.copyOf(result, length);
+    }
+    
+    private long[] allIds() {
+        long[] ids = new long[names.size()];
+        int i = 0;
+        for (Long id : names.keySet()) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+    
+    private long[] verify(long[] candidates, String needle) {
+        // Trigrams only prove the pieces occur somewhere in the name, so each candidate is checked once.
+        int kept = 0;
+        for (long id : candidates) {
+            String name = names.get(id);
+            if (name != null && name.contains(needle)) {
+                candidates[kept++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, kept);
+    }
+    
+    private static long[] grams(String text) {
+        if (text.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+    
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+        
+        private void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+        
+        private boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+        
+        private void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+}
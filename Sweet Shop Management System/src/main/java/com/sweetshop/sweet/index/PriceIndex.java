@@ -0,0 +1,101 @@
+package com.sweetshop.sweet.index;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Component
+public class PriceIndex {
+    
+    private static final Comparator<PricedId> PRICE_ORDER =
+        Comparator.comparingLong(PricedId::cents).thenComparingLong(PricedId::id);
+    
+    private final Map<Long, Long> centsById = new HashMap<>();
+    // A skip list keeps (cents, id) sorted with logarithmic updates, and readers never wait for a writer.
+    private volatile NavigableSet<PricedId> entries = new ConcurrentSkipListSet<>(PRICE_ORDER);
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public synchronized void rebuild(Map<Long, BigDecimal> pricesById) {
+        NavigableSet<PricedId> rebuilt = new ConcurrentSkipListSet<>(PRICE_ORDER);
+        centsById.clear();
+        for (Map.Entry<Long, BigDecimal> entry : pricesById.entrySet()) {
+            long cents = toCents(entry.getValue());
+            centsById.put(entry.getKey(), cents);
+            rebuilt.add(new PricedId(cents, entry.getKey()));
+        }
+        entries = rebuilt;
+        ready = true;
+    }
+    
+    public synchronized void put(Long id, BigDecimal price) {
+        long cents = toCents(price);
+        Long previous = centsById.put(id, cents);
+        if (previous != null && previous == cents) {
+            return;
+        }
+        if (previous != null) {
+            entries.remove(new PricedId(previous, id));
+        }
+        entries.add(new PricedId(cents, id));
+    }
+    
+    public synchronized void putAll(Map<Long, BigDecimal> pricesById) {
+        for (Map.Entry<Long, BigDecimal> entry : pricesById.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    public synchronized void remove(Long id) {
+        Long previous = centsById.remove(id);
+        if (previous != null) {
+            entries.remove(new PricedId(previous, id));
+        }
+    }
+    
+    public long[] idsInRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return idsInRange(minPrice, maxPrice, Integer.MAX_VALUE);
+    }
+    
+    // At most limit ids in price order; callers ask for one more than they accept to detect an overflow.
+    public long[] idsInRange(BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        PricedId from = new PricedId(minPrice != null ? toCents(minPrice) : Long.MIN_VALUE, Long.MIN_VALUE);
+        PricedId to = new PricedId(maxPrice != null ? toCents(maxPrice) : Long.MAX_VALUE, Long.MAX_VALUE);
+        if (PRICE_ORDER.compare(from, to) > 0) {
+            return new long[0];
+        }
+        
+        long[] ids = new long[Math.min(limit, 64)];
+        int count = 0;
+        Iterator<PricedId> range = entries.subSet(from, true, to, true).iterator();
+        while (count < limit && range.hasNext()) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, (int) Math.min((long) limit, ids.length * 2L));
+            }
+            ids[count++] = range.next().id();
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+    
+    int size() {
+        return entries.size();
+    }
+    
+    static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    private record PricedId(long cents, long id) {
+    }
+}
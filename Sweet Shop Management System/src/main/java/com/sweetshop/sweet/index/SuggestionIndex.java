@@ -0,0 +1,359 @@
+package com.sweetshop.sweet.index;
+
+import com.sweetshop.sweet.dto.SuggestionResponse;
+import com.sweetshop.sweet.dto.SuggestionType;
+import com.sweetshop.sweet.repository.SweetSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Component
+public class SuggestionIndex {
+    
+    public static final int TOP_K = 10;
+    
+    // Paths stop at this depth; longer prefixes are finished by checking the few terms stored there.
+    private static final int MAX_DEPTH = 24;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Comparator<Term> RANK = Comparator.comparingLong(Term::score).reversed()
+            .thenComparing(Term::text)
+            .thenComparing(Term::type)
+            .thenComparing(Term::sweetId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    
+    private final Map<Long, Term> sweets = new HashMap<>();
+    private final Map<String, Category> categories = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void rebuild(Collection<? extends SweetSummary> rows) {
+        lock.writeLock().lock();
+        try {
+            sweets.clear();
+            categories.clear();
+            root = new Node();
+            for (SweetSummary row : rows) {
+                int quantity = row.getQuantity() != null ? row.getQuantity() : 0;
+                Term term = sweetTerm(row.getId(), row.getName(), row.getCategory(), quantity);
+                sweets.put(row.getId(), term);
+                attach(term);
+                categories.computeIfAbsent(term.categoryKey, key -> new Category(row.getCategory()))
+                        .add(quantity, 1);
+            }
+            categories.values().forEach(category -> {
+                category.term = categoryTerm(category);
+                attach(category.term);
+            });
+            // Terms are attached first and ranked in one pass, instead of re-ranking a path per insert.
+            rankAll(root);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void put(Long id, String name, String category, int quantity) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            Term term = sweetTerm(id, name, category, quantity);
+            sweets.put(id, term);
+            attach(term);
+            rerank(term);
+            adjustCategory(term.categoryKey, category, quantity, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void updateQuantity(Long id, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Term current = sweets.get(id);
+            if (current == null || current.score == quantity) {
+                return;
+            }
+            Category category = categories.get(current.categoryKey);
+            String label = category != null ? category.label : current.categoryKey;
+            removeLocked(id);
+            Term term = sweetTerm(id, current.text, label, quantity);
+            sweets.put(id, term);
+            attach(term);
+            rerank(term);
+            adjustCategory(term.categoryKey, label, quantity, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < Math.min(key.length(), MAX_DEPTH) && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            
+            Term[] ranked = key.length() <= MAX_DEPTH ? node.top : matching(node.terminals, key);
+            List<SuggestionResponse> suggestions = new ArrayList<>(Math.min(limit, ranked.length));
+            for (int i = 0; i < ranked.length && suggestions.size() < limit; i++) {
+                Term term = ranked[i];
+                suggestions.add(new SuggestionResponse(term.text, term.type, term.sweetId));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return sweets.size() + categories.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void removeLocked(Long id) {
+        Term previous = sweets.remove(id);
+        if (previous == null) {
+            return;
+        }
+        detach(previous);
+        rerank(previous);
+        Category category = categories.get(previous.categoryKey);
+        adjustCategory(previous.categoryKey, category != null ? category.label : null, -previous.score, -1);
+    }
+    
+    private void adjustCategory(String key, String label, long stockDelta, int sweetDelta) {
+        Category category = categories.get(key);
+        if (category == null) {
+            category = new Category(label);
+            categories.put(key, category);
+        } else {
+            detach(category.term);
+            rerank(category.term);
+        }
+        
+        category.add(stockDelta, sweetDelta);
+        if (category.sweets <= 0) {
+            categories.remove(key);
+            return;
+        }
+        category.term = categoryTerm(category);
+        attach(category.term);
+        rerank(category.term);
+    }
+    
+    private void attach(Term term) {
+        for (String path : paths(term.key)) {
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.childOrCreate(path.charAt(i));
+            }
+            node.terminals = append(node.terminals, term);
+        }
+    }
+    
+    private void detach(Term term) {
+        for (String path : paths(term.key)) {
+            Node node = root;
+            for (int i = 0; i < path.length() && node != null; i++) {
+                node = node.child(path.charAt(i));
+            }
+            if (node != null) {
+                node.terminals = without(node.terminals, term);
+            }
+        }
+    }
+    
+    private void rerank(Term term) {
+        // Only nodes on the term's own paths can gain or lose it, so they are re-ranked bottom-up.
+        for (String path : paths(term.key)) {
+            Node[] nodes = new Node[path.length() + 1];
+            nodes[0] = root;
+            int depth = 0;
+            while (depth < path.length() && (nodes[depth + 1] = nodes[depth].child(path.charAt(depth))) != null) {
+                depth++;
+            }
+            for (int i = depth; i >= 0; i--) {
+                if (i > 0 && nodes[i].isEmpty()) {
+                    nodes[i - 1].removeChild(path.charAt(i - 1));
+                } else {
+                    nodes[i].top = nodes[i].rank();
+                }
+            }
+        }
+    }
+    
+    private static void rankAll(Node node) {
+        for (Node child : node.children) {
+            rankAll(child);
+        }
+        node.top = node.rank();
+    }
+    
+    private static Term[] matching(Term[] terms, String key) {
+        String wordStart = " " + key;
+        return Arrays.stream(terms)
+                .filter(term -> term.key.startsWith(key) || term.key.contains(wordStart))
+                .sorted(RANK)
+                .toArray(Term[]::new);
+    }
+    
+    private static Set<String> paths(String key) {
+        // Every word start is indexed, so "jam" suggests "Gulab Jamun" as well as "Jam Roll".
+        Set<String> paths = new LinkedHashSet<>();
+        for (int i = 0; i < key.length(); i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') {
+                paths.add(key.substring(i, Math.min(key.length(), i + MAX_DEPTH)));
+            }
+        }
+        return paths;
+    }
+    
+    private static Term sweetTerm(Long id, String name, String category, long quantity) {
+        return new Term(name, normalize(name), SuggestionType.SWEET, id, normalize(category), Math.max(0, quantity));
+    }
+    
+    private static Term categoryTerm(Category category) {
+        String key = normalize(category.label);
+        return new Term(category.label, key, SuggestionType.CATEGORY, null, key, Math.max(0, category.stock));
+    }
+    
+    static String normalize(String text) {
+        return text == null ? "" : WHITESPACE.matcher(text.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+    
+    private static Term[] append(Term[] terms, Term term) {
+        Term[] result = Arrays.copyOf(terms, terms.length + 1);
+        result[terms.length] = term;
+        return result;
+    }
+    
+    private static Term[] without(Term[] terms, Term term) {
+        return Arrays.stream(terms).filter(existing -> !existing.equals(term)).toArray(Term[]::new);
+    }
+    
+    private record Term(String text, String key, SuggestionType type, Long sweetId, String categoryKey, long score) {
+    }
+    
+    private static final class Category {
+        private final String label;
+        private long stock;
+        private int sweets;
+        private Term term;
+        
+        private Category(String label) {
+            this.label = label;
+        }
+        
+        private void add(long stockDelta, int sweetDelta) {
+            stock += stockDelta;
+            sweets += sweetDelta;
+        }
+    }
+    
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Term[] NO_TERMS = new Term[0];
+        
+        // Sorted parallel arrays keep each node a few small arrays rather than a hash map.
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Term[] terminals = NO_TERMS;
+        private Term[] top = NO_TERMS;
+        
+        private Node child(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            return position >= 0 ? children[position] : null;
+        }
+        
+        private Node childOrCreate(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            if (position >= 0) {
+                return children[position];
+            }
+            int insertAt = -position - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+        
+        private void removeChild(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            if (position < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+        
+        private boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+        
+        private Term[] rank() {
+            // Each child already holds its own best K, so merging those with this node's terms is exact.
+            List<Term> candidates = new ArrayList<>(terminals.length + children.length * TOP_K);
+            candidates.addAll(Arrays.asList(terminals));
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            return candidates.stream()
+                    .distinct()
+                    .sorted(RANK)
+                    .limit(TOP_K)
+                    .toArray(Term[]::new);
+        }
+    }
+}
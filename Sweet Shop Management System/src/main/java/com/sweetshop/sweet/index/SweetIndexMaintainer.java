@@ -0,0 +1,177 @@
+package com.sweetshop.sweet.index;
+
+import com.sweetshop.common.util.TransactionCallbacks;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.repository.SweetName;
+import com.sweetshop.sweet.repository.SweetPrice;
+import com.sweetshop.sweet.repository.SweetRepository;
+import com.sweetshop.sweet.repository.SweetSummary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+
+@Component
+public class SweetIndexMaintainer {
+    
+    private final SweetRepository sweetRepository;
+    private final NameTrigramIndex nameIndex;
+    private final FuzzyNameIndex fuzzyIndex;
+    private final PriceIndex priceIndex;
+    private final FacetIndex facetIndex;
+    private final SuggestionIndex suggestionIndex;
+    // Highest row version applied per sweet: callbacks from different commits can run in any order.
+    private final ConcurrentMap<Long, Long> appliedVersions = new ConcurrentHashMap<>();
+    
+    public SweetIndexMaintainer(SweetRepository sweetRepository,
+                                NameTrigramIndex nameIndex,
+                                FuzzyNameIndex fuzzyIndex,
+                                PriceIndex priceIndex,
+                                FacetIndex facetIndex,
+                                SuggestionIndex suggestionIndex) {
+        this.sweetRepository = sweetRepository;
+        this.nameIndex = nameIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.priceIndex = priceIndex;
+        this.facetIndex = facetIndex;
+        this.suggestionIndex = suggestionIndex;
+    }
+    
+    // Run at startup by SweetIndexSync, which records the change feed position first.
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        appliedVersions.clear();
+        Map<Long, String> namesById = new HashMap<>();
+        for (SweetName row : sweetRepository.findAllNames()) {
+            namesById.put(row.getId(), row.getName());
+        }
+        nameIndex.rebuild(namesById);
+        fuzzyIndex.rebuild(namesById);
+        
+        Map<Long, BigDecimal> pricesById = new HashMap<>();
+        for (SweetPrice row : sweetRepository.findAllPrices()) {
+            pricesById.put(row.getId(), row.getPrice());
+        }
+        priceIndex.rebuild(pricesById);
+        List<SweetSummary> summaries = sweetRepository.findAllSummaries();
+        facetIndex.rebuild(summaries);
+        suggestionIndex.rebuild(summaries);
+    }
+    
+    public void saved(Sweet sweet) {
+        saved(sweet, sweet.getQuantity());
+    }
+    
+    // Sharded stock lives outside the row, so callers that know the total pass it in.
+    public void saved(Sweet sweet, int quantity) {
+        Long id = sweet.getId();
+        String name = sweet.getName();
+        String category = sweet.getCategory();
+        BigDecimal price = sweet.getPrice();
+        // The version is read after commit, once the flush has bumped it on this instance.
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (priceIndex) {
+                applyIfNewer(id, sweet.getVersion(), () -> {
+                    nameIndex.put(id, name);
+                    fuzzyIndex.put(id, name);
+                    priceIndex.put(id, price);
+                    facetIndex.put(id, category, price, quantity);
+                    suggestionIndex.put(id, name, category, quantity);
+                });
+            }
+        });
+    }
+    
+    public void savedAll(List<Sweet> sweets) {
+        savedAll(sweets, Sweet::getQuantity);
+    }
+    
+    // One callback for a whole batch, and the price index takes its lock once instead of per row.
+    public void savedAll(List<Sweet> sweets, ToIntFunction<Sweet> quantityOf) {
+        List<SavedSweet> batch = new ArrayList<>(sweets.size());
+        for (Sweet sweet : sweets) {
+            batch.add(new SavedSweet(sweet, sweet.getName(), sweet.getCategory(), sweet.getPrice(),
+                quantityOf.applyAsInt(sweet)));
+        }
+        TransactionCallbacks.afterCommit(() -> applyAll(batch));
+    }
+    
+    // Rows re-read after another node changed them; they are already committed, so they apply right away.
+    public void refreshed(List<Sweet> sweets) {
+        List<SavedSweet> batch = new ArrayList<>(sweets.size());
+        for (Sweet sweet : sweets) {
+            batch.add(new SavedSweet(sweet, sweet.getName(), sweet.getCategory(), sweet.getPrice(),
+                sweet.getQuantity()));
+        }
+        applyAll(batch);
+    }
+    
+    private void applyAll(List<SavedSweet> batch) {
+        // Every save holds the price index monitor around its version check, so no newer save can write a price
+        // between this batch's checks and its merge.
+        synchronized (priceIndex) {
+            Map<Long, BigDecimal> pricesById = new HashMap<>();
+            for (SavedSweet saved : batch) {
+                Long id = saved.sweet().getId();
+                applyIfNewer(id, saved.sweet().getVersion(), () -> {
+                    nameIndex.put(id, saved.name());
+                    fuzzyIndex.put(id, saved.name());
+                    facetIndex.put(id, saved.category(), saved.price(), saved.quantity());
+                    suggestionIndex.put(id, saved.name(), saved.category(), saved.quantity());
+                    pricesById.put(id, saved.price());
+                });
+            }
+            priceIndex.putAll(pricesById);
+        }
+    }
+    
+    public void stockChanged(Long id, Long version, int quantity) {
+        TransactionCallbacks.afterCommit(() -> applyIfNewer(id, version, () -> {
+            facetIndex.updateQuantity(id, quantity);
+            suggestionIndex.updateQuantity(id, quantity);
+        }));
+    }
+    
+    private void applyIfNewer(Long id, Long version, Runnable update) {
+        if (version == null) {
+            update.run();
+            return;
+        }
+        // compute() holds the entry while the indexes change, so the check and the write cannot interleave.
+        appliedVersions.compute(id, (key, applied) -> {
+            if (applied != null && applied > version) {
+                return applied;
+            }
+            update.run();
+            return version;
+        });
+    }
+    
+    public void deleted(Long id) {
+        TransactionCallbacks.afterCommit(() -> remove(id));
+    }
+    
+    public void removed(Collection<Long> ids) {
+        ids.forEach(this::remove);
+    }
+    
+    private void remove(Long id) {
+        appliedVersions.remove(id);
+        nameIndex.remove(id);
+        fuzzyIndex.remove(id);
+        priceIndex.remove(id);
+        facetIndex.remove(id);
+        suggestionIndex.remove(id);
+    }
+    
+    private record SavedSweet(Sweet sweet, String name, String category, BigDecimal price, int quantity) {
+    }
+}
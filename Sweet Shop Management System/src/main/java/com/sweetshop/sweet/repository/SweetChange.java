@@ -0,0 +1,8 @@
+package com.sweetshop.sweet.repository;
+
+public interface SweetChange {
+    Long getChangeTxid();
+    Long getChangeSeq();
+    Long getSweetId();
+    Boolean getDeleted();
+}
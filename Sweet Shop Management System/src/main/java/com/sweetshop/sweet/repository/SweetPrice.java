@@ -0,0 +1,8 @@
+package com.sweetshop.sweet.repository;
+
+import java.math.BigDecimal;
+
+public interface SweetPrice {
+    Long getId();
+    BigDecimal getPrice();
+}
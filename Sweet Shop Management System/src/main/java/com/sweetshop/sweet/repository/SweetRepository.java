@@ -1,15 +1,127 @@
 package com.sweetshop.sweet.repository;
 
 import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SweetResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface SweetRepository extends JpaRepository<Sweet, Long> {
-    List<Sweet> findByNameContainingIgnoreCase(String name);
-    List<Sweet> findByCategoryIgnoreCase(String category);
-    List<Sweet> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
+public interface SweetRepository extends JpaRepository<Sweet, Long>, JpaSpecificationExecutor<Sweet>,
+                                         SweetResponseQueries {
+    
+    // Read paths select straight into SweetResponse, so no managed entities or dirty-checking snapshots are created.
+    String SELECT_RESPONSE = "SELECT new com.sweetshop.sweet.dto.SweetResponse(s.id, s.name, s.category, s.price, " +
+                             "CASE WHEN s.sharded = true THEN s.shardedQuantity ELSE s.quantity END) FROM Sweet s";
+    
+    // Every write to the change feed records a position and the writing transaction's id. PostgreSQL only,
+    // like the other native queries here; the sequences and columns are in db/migration.
+    String CHANGE_STAMP = "change_seq = nextval('sweet_change_seq'), change_txid = txid_current() ";
+    
+    // Sweets, their stock shards and tombstones share one sequence, so their positions merge into a single order.
+    String CHANGES = "SELECT change_txid, change_seq, id AS sweet_id, false AS deleted FROM sweets " +
+                     "UNION ALL SELECT change_txid, change_seq, sweet_id, false FROM sweet_stock_shards " +
+                     "UNION ALL SELECT change_txid, change_seq, sweet_id, true FROM sweet_tombstones";
+    
+    String SELECT_CHANGE = "SELECT change_txid AS changeTxid, change_seq AS changeSeq, sweet_id AS sweetId, " +
+                           "deleted AS deleted FROM (" + CHANGES + ") AS changes";
+    
+    @Query(SELECT_RESPONSE)
+    List<SweetResponse> findAllResponses();
+    
+    @Query(value = SELECT_RESPONSE, countQuery = "SELECT COUNT(s) FROM Sweet s")
+    Page<SweetResponse> findResponsePage(Pageable pageable);
+    
+    @Query(SELECT_RESPONSE)
+    Slice<SweetResponse> findResponseSlice(Pageable pageable);
+    
+    @Query(SELECT_RESPONSE + " WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', ?#{escape([0])}, '%')) " +
+           "ESCAPE ?#{escapeCharacter()}")
+    List<SweetResponse> findResponsesByNameContaining(String name);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.categoryKey = :categoryKey")
+    List<SweetResponse> findResponsesByCategoryKey(@Param("categoryKey") String categoryKey);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.price BETWEEN :minPrice AND :maxPrice")
+    List<SweetResponse> findResponsesByPriceBetween(@Param("minPrice") BigDecimal minPrice,
+                                                    @Param("maxPrice") BigDecimal maxPrice);
+    
+    // Same normalisation as Sweet.toCategoryKey; rows written before category_key existed still hold NULL.
+    @Modifying
+    @Query("UPDATE Sweet s SET s.categoryKey = LOWER(TRIM(s.category)) " +
+           "WHERE s.categoryKey IS NULL OR s.categoryKey <> LOWER(TRIM(s.category))")
+    int backfillCategoryKeys();
+    
+    // Pending entity writes are flushed first, so a row inserted in this transaction is there to stamp.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE sweets SET " + CHANGE_STAMP + "WHERE id = :id", nativeQuery = true)
+    int stampChange(@Param("id") Long id);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE sweets SET " + CHANGE_STAMP + "WHERE id IN (:ids)", nativeQuery = true)
+    int stampChanges(@Param("ids") Collection<Long> ids);
+    
+    // Every transaction with an id below this has finished; one at or above it may still commit any position.
+    @Query(value = "SELECT txid_snapshot_xmin(txid_current_snapshot())", nativeQuery = true)
+    long findChangeHorizon();
+    
+    // Ordered by transaction first, so a late commit never lands behind a token already handed out.
+    @Query(value = SELECT_CHANGE + " WHERE change_txid < :horizon AND (change_txid, change_seq) > (:txid, :seq) " +
+                   "ORDER BY change_txid, change_seq LIMIT :limit",
+           nativeQuery = true)
+    List<SweetChange> findChangesAfter(@Param("txid") long txid, @Param("seq") long seq,
+                                       @Param("horizon") long horizon, @Param("limit") int limit);
+    
+    @Query(value = SELECT_CHANGE + " WHERE change_txid < :horizon ORDER BY change_txid DESC, change_seq DESC LIMIT 1",
+           nativeQuery = true)
+    Optional<SweetChange> findLatestChangeBefore(@Param("horizon") long horizon);
+    
+    @Query("SELECT s.id AS id, s.name AS name FROM Sweet s")
+    List<SweetName> findAllNames();
+    
+    @Query("SELECT s.id AS id, s.price AS price FROM Sweet s")
+    List<SweetPrice> findAllPrices();
+    
+    @Query("SELECT s.id AS id, s.name AS name, s.category AS category, s.price AS price, " +
+           "CASE WHEN s.sharded = true THEN s.shardedQuantity ELSE s.quantity END AS quantity FROM Sweet s")
+    List<SweetSummary> findAllSummaries();
+    
+    @Query("SELECT s.version AS version, " +
+           "CASE WHEN s.sharded = true THEN s.shardedQuantity ELSE s.quantity END AS quantity " +
+           "FROM Sweet s WHERE s.id = :id")
+    Optional<SweetVersion> findVersionById(@Param("id") Long id);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.id > :lastId ORDER BY s.id ASC")
+    List<SweetResponse> findPageAfterId(@Param("lastId") Long lastId, Pageable pageable);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.id < :lastId ORDER BY s.id DESC")
+    List<SweetResponse> findPageBeforeId(@Param("lastId") Long lastId, Pageable pageable);
+    
+    // The leading >= / <= bound is redundant logically but gives the planner a range start on the sort index.
+    @Query(SELECT_RESPONSE + " WHERE s.name >= :name AND (s.name > :name OR (s.name = :name AND s.id > :lastId)) " +
+           "ORDER BY s.name ASC, s.id ASC")
+    List<SweetResponse> findPageAfterName(@Param("name") String name, @Param("lastId") Long lastId, Pageable pageable);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.name <= :name AND (s.name < :name OR (s.name = :name AND s.id < :lastId)) " +
+           "ORDER BY s.name DESC, s.id DESC")
+    List<SweetResponse> findPageBeforeName(@Param("name") String name, @Param("lastId") Long lastId, Pageable pageable);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.price >= :price AND (s.price > :price OR (s.price = :price AND s.id > :lastId)) " +
+           "ORDER BY s.price ASC, s.id ASC")
+    List<SweetResponse> findPageAfterPrice(@Param("price") BigDecimal price, @Param("lastId") Long lastId, Pageable pageable);
+    
+    @Query(SELECT_RESPONSE + " WHERE s.price <= :price AND (s.price < :price OR (s.price = :price AND s.id < :lastId)) " +
+           "ORDER BY s.price DESC, s.id DESC")
+    List<SweetResponse> findPageBeforePrice(@Param("price") BigDecimal price, @Param("lastId") Long lastId, Pageable pageable);
 }
 
 
@@ -0,0 +1,15 @@
+package com.sweetshop.sweet.repository;
+
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SweetResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface SweetResponseQueries {
+    List<SweetResponse> findResponses(Specification<Sweet> specification, Sort sort);
+    Page<SweetResponse> findResponses(Specification<Sweet> specification, Pageable pageable);
+}
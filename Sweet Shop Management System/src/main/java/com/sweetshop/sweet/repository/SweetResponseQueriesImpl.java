@@ -0,0 +1,80 @@
+package com.sweetshop.sweet.repository;
+
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SweetResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class SweetResponseQueriesImpl implements SweetResponseQueries {
+    
+    private final EntityManager entityManager;
+    
+    SweetResponseQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+    
+    @Override
+    public List<SweetResponse> findResponses(Specification<Sweet> specification, Sort sort) {
+        return responseQuery(specification, sort).getResultList();
+    }
+    
+    @Override
+    public Page<SweetResponse> findResponses(Specification<Sweet> specification, Pageable pageable) {
+        TypedQuery<SweetResponse> query = responseQuery(specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // The count only runs when the page alone cannot tell the total.
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(specification));
+    }
+    
+    // Same shape as SweetRepository.SELECT_RESPONSE: columns go straight into the DTO, no entities are loaded.
+    private TypedQuery<SweetResponse> responseQuery(Specification<Sweet> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SweetResponse> query = cb.createQuery(SweetResponse.class);
+        Root<Sweet> root = query.from(Sweet.class);
+        query.select(cb.construct(SweetResponse.class,
+            root.get("id"),
+            root.get("name"),
+            root.get("category"),
+            root.get("price"),
+            cb.<Integer>selectCase()
+                .when(cb.isTrue(root.get("sharded")), root.<Integer>get("shardedQuantity"))
+                .otherwise(root.<Integer>get("quantity"))));
+        
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+    
+    private long count(Specification<Sweet> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Sweet> root = query.from(Sweet.class);
+        query.select(cb.count(root));
+        
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,40 @@
+package com.sweetshop.sweet.repository;
+
+import com.sweetshop.sweet.domain.Sweet;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Locale;
+
+public class SweetSpecifications {
+    
+    private SweetSpecifications() {
+        // Utility class - prevent instantiation
+    }
+    
+    public static Specification<Sweet> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+    
+    public static Specification<Sweet> nameContains(String name) {
+        // Escaped the same way as findResponsesByNameContaining, so '%' and '_' in a name match literally.
+        EscapeCharacter escape = EscapeCharacter.DEFAULT;
+        String pattern = "%" + escape.escape(name.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, escape.getEscapeCharacter());
+    }
+    
+    public static Specification<Sweet> categoryIs(String category) {
+        String key = Sweet.toCategoryKey(category);
+        return (root, query, cb) -> cb.equal(root.get("categoryKey"), key);
+    }
+    
+    public static Specification<Sweet> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+    
+    public static Specification<Sweet> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+}
@@ -0,0 +1,11 @@
+package com.sweetshop.sweet.repository;
+
+import java.math.BigDecimal;
+
+public interface SweetSummary {
+    Long getId();
+    String getName();
+    String getCategory();
+    BigDecimal getPrice();
+    Integer getQuantity();
+}
@@ -0,0 +1,16 @@
+package com.sweetshop.sweet.repository;
+
+import com.sweetshop.sweet.domain.SweetTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SweetTombstoneRepository extends JpaRepository<SweetTombstone, Long> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO sweet_tombstones (change_seq, change_txid, sweet_id) " +
+                   "VALUES (nextval('sweet_change_seq'), txid_current(), :sweetId)",
+           nativeQuery = true)
+    int recordDeletion(@Param("sweetId") Long sweetId);
+}
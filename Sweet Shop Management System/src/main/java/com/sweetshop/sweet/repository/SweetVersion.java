@@ -0,0 +1,6 @@
+package com.sweetshop.sweet.repository;
+
+public interface SweetVersion {
+    Long getVersion();
+    Integer getQuantity();
+}
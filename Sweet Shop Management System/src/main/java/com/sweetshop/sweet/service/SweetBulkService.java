@@ -0,0 +1,11 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.sweet.dto.BulkSweetItem;
+import com.sweetshop.sweet.dto.BulkSweetResponse;
+
+import java.util.List;
+
+public interface SweetBulkService {
+    BulkSweetResponse createAll(List<BulkSweetItem> items);
+    BulkSweetResponse updateAll(List<BulkSweetItem> items);
+}
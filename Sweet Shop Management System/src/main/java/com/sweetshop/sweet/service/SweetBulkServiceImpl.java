@@ -0,0 +1,244 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.common.mapper.SweetMapper;
+import com.sweetshop.common.util.SweetValidator;
+import com.sweetshop.inventory.service.ShardedStockService;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.BulkSweetItem;
+import com.sweetshop.sweet.dto.BulkSweetLineResult;
+import com.sweetshop.sweet.dto.BulkSweetLineStatus;
+import com.sweetshop.sweet.dto.BulkSweetResponse;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.repository.SweetRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+@Service
+public class SweetBulkServiceImpl implements SweetBulkService {
+    
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final SweetRepository sweetRepository;
+    private final ShardedStockService shardedStockService;
+    private final SweetCache sweetCache;
+    private final SweetIndexMaintainer indexMaintainer;
+    private final SweetChangeLog changeLog;
+    private final Validator validator;
+    private final int chunkSize;
+    
+    public SweetBulkServiceImpl(EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                SweetRepository sweetRepository,
+                                ShardedStockService shardedStockService,
+                                SweetCache sweetCache,
+                                SweetIndexMaintainer indexMaintainer,
+                                SweetChangeLog changeLog,
+                                Validator validator,
+                                @Value("${sweet.bulk.chunk-size:500}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sweetRepository = sweetRepository;
+        this.shardedStockService = shardedStockService;
+        this.sweetCache = sweetCache;
+        this.indexMaintainer = indexMaintainer;
+        this.changeLog = changeLog;
+        this.validator = validator;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+    
+    @Override
+    public BulkSweetResponse createAll(List<BulkSweetItem> items) {
+        BulkSweetLineResult[] results = new BulkSweetLineResult[items.size()];
+        List<Row> valid = validRows(items, false, results);
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            createChunk(valid.subList(from, Math.min(valid.size(), from + chunkSize)), results);
+        }
+        return toResponse(results);
+    }
+    
+    @Override
+    public BulkSweetResponse updateAll(List<BulkSweetItem> items) {
+        BulkSweetLineResult[] results = new BulkSweetLineResult[items.size()];
+        List<Row> valid = validRows(items, true, results);
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            updateChunk(valid.subList(from, Math.min(valid.size(), from + chunkSize)), results);
+        }
+        return toResponse(results);
+    }
+    
+    private List<Row> validRows(List<BulkSweetItem> items, boolean update, BulkSweetLineResult[] results) {
+        List<Row> valid = new ArrayList<>(items.size());
+        Set<Long> seenIds = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkSweetItem item = items.get(i);
+            String problem = validate(item, update);
+            if (problem == null && update && !seenIds.add(item.getId())) {
+                problem = "Id appears more than once in the request";
+            }
+            if (problem != null) {
+                results[i] = line(i, item != null ? item.getId() : null, BulkSweetLineStatus.INVALID, problem);
+            } else {
+                valid.add(new Row(i, item));
+            }
+        }
+        return valid;
+    }
+    
+    private String validate(BulkSweetItem item, boolean update) {
+        if (item == null) {
+            return "Item must not be null";
+        }
+        if (update && item.getId() == null) {
+            return "Id is required";
+        }
+        if (!update && item.getId() != null) {
+            return "Id must not be set when creating";
+        }
+        Set<ConstraintViolation<BulkSweetItem>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            SweetValidator.validate(item);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+    
+    private void createChunk(List<Row> rows, BulkSweetLineResult[] results) {
+        List<Sweet> created;
+        try {
+            created = transactionTemplate.execute(status -> {
+                // Pooled sequence ids are assigned without a round trip, so the inserts go out as JDBC batches.
+                entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+                List<Sweet> sweets = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    Sweet sweet = SweetMapper.toEntity(row.item());
+                    entityManager.persist(sweet);
+                    sweets.add(sweet);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                List<Long> ids = new ArrayList<>(sweets.size());
+                for (Sweet sweet : sweets) {
+                    sweetCache.invalidate(sweet.getId());
+                    ids.add(sweet.getId());
+                }
+                changeLog.changedAll(ids);
+                indexMaintainer.savedAll(sweets);
+                return sweets;
+            });
+        } catch (RuntimeException e) {
+            retryOneByOne(rows, results, e, this::createChunk);
+            return;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            results[row.index()] = line(row.index(), created.get(i).getId(), BulkSweetLineStatus.CREATED, null);
+        }
+    }
+    
+    private void updateChunk(List<Row> rows, BulkSweetLineResult[] results) {
+        Set<Long> updated;
+        try {
+            updated = transactionTemplate.execute(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+                List<Long> ids = rows.stream().map(row -> row.item().getId()).collect(Collectors.toList());
+                Map<Long, Sweet> sweetsById = new HashMap<>();
+                for (Sweet sweet : sweetRepository.findAllById(ids)) {
+                    sweetsById.put(sweet.getId(), sweet);
+                }
+                List<Sweet> saved = new ArrayList<>(rows.size());
+                Map<Long, Integer> quantitiesById = new HashMap<>();
+                for (Row row : rows) {
+                    Sweet sweet = sweetsById.get(row.item().getId());
+                    if (sweet == null) {
+                        continue;
+                    }
+                    SweetMapper.updateEntity(sweet, row.item());
+                    if (sweet.isSharded()) {
+                        shardedStockService.setTotal(sweet.getId(), row.item().getQuantity());
+                    }
+                    sweetCache.invalidate(sweet.getId());
+                    saved.add(sweet);
+                    quantitiesById.put(sweet.getId(), row.item().getQuantity());
+                }
+                indexMaintainer.savedAll(saved, sweet -> quantitiesById.get(sweet.getId()));
+                // Dirty checking turns the loaded rows into one batched UPDATE per chunk.
+                entityManager.flush();
+                changeLog.changedAll(quantitiesById.keySet());
+                entityManager.clear();
+                return sweetsById.keySet();
+            });
+        } catch (RuntimeException e) {
+            retryOneByOne(rows, results, e, this::updateChunk);
+            return;
+        }
+        for (Row row : rows) {
+            Long id = row.item().getId();
+            results[row.index()] = updated.contains(id)
+                ? line(row.index(), id, BulkSweetLineStatus.UPDATED, null)
+                : line(row.index(), id, BulkSweetLineStatus.NOT_FOUND, String.format("Sweet not found with id: %s", id));
+        }
+    }
+    
+    private void retryOneByOne(List<Row> rows, BulkSweetLineResult[] results, RuntimeException failure,
+                               BiConsumer<List<Row>, BulkSweetLineResult[]> writer) {
+        if (rows.size() == 1) {
+            Row row = rows.get(0);
+            results[row.index()] = line(row.index(), row.item().getId(), BulkSweetLineStatus.FAILED,
+                rootMessage(failure));
+            return;
+        }
+        // The whole chunk was rolled back; replaying it row by row pins the failure on the rows that caused it.
+        for (Row row : rows) {
+            writer.accept(List.of(row), results);
+        }
+    }
+    
+    private static String rootMessage(Throwable failure) {
+        Throwable cause = failure;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+    
+    private static BulkSweetLineResult line(int index, Long id, BulkSweetLineStatus status, String message) {
+        return new BulkSweetLineResult(index, id, status, message);
+    }
+    
+    private static BulkSweetResponse toResponse(BulkSweetLineResult[] results) {
+        List<BulkSweetLineResult> lines = Arrays.asList(results);
+        int succeeded = (int) lines.stream()
+                .filter(line -> line.getStatus() == BulkSweetLineStatus.CREATED
+                        || line.getStatus() == BulkSweetLineStatus.UPDATED)
+                .count();
+        return new BulkSweetResponse(succeeded, lines.size() - succeeded, lines);
+    }
+    
+    private record Row(int index, BulkSweetItem item) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.common.mapper.SweetMapper;
+import com.sweetshop.common.util.ETags;
+import com.sweetshop.common.util.TransactionCallbacks;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SweetResponse;
+import com.sweetshop.sweet.dto.VersionedSweet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class SweetCache {
+    
+    private static final int SEGMENTS = 16;
+    
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    
+    public SweetCache(MeterRegistry meterRegistry,
+                      @Value("${sweet.cache.max-entries:10000}") int maxEntries) {
+        int segmentCapacity = Math.max(1, maxEntries / SEGMENTS);
+        this.hits = meterRegistry.counter("sweet.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("sweet.cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("sweet.cache.evictions");
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity, evictions);
+        }
+        meterRegistry.gauge("sweet.cache.size", this, SweetCache::size);
+    }
+    
+    public SweetResponse get(Long id, Supplier<Sweet> loader) {
+        return getVersioned(id, loader).getSweet();
+    }
+    
+    public VersionedSweet getVersioned(Long id, Supplier<Sweet> loader) {
+        Segment segment = segmentFor(id);
+        long stamp;
+        synchronized (segment) {
+            CachedSweet cached = segment.entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return new VersionedSweet(cached.response, cached.etag);
+            }
+            stamp = segment.invalidations;
+        }
+        
+        misses.increment();
+        Sweet sweet = loader.get();
+        SweetResponse response = SweetMapper.toResponse(sweet);
+        put(segment, id, sweet.getVersion(), response, stamp);
+        return new VersionedSweet(response, etag(sweet.getVersion(), response.getQuantity()));
+    }
+    
+    public String etag(Long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            CachedSweet cached = segment.entries.get(id);
+            return cached != null ? cached.etag : null;
+        }
+    }
+    
+    public List<SweetResponse> getAll(long[] ids, Function<List<Long>, List<Sweet>> loader) {
+        SweetResponse[] results = new SweetResponse[ids.length];
+        Map<Long, Long> missingStamps = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            Segment segment = segmentFor(ids[i]);
+            synchronized (segment) {
+                CachedSweet cached = segment.entries.get(ids[i]);
+                if (cached != null) {
+                    results[i] = cached.response;
+                } else {
+                    missingStamps.put(ids[i], segment.invalidations);
+                }
+            }
+        }
+        hits.increment(ids.length - missingStamps.size());
+        
+        if (!missingStamps.isEmpty()) {
+            // All misses are loaded with one query rather than one round trip per id.
+            misses.increment(missingStamps.size());
+            Map<Long, SweetResponse> loaded = new HashMap<>();
+            for (Sweet sweet : loader.apply(new ArrayList<>(missingStamps.keySet()))) {
+                SweetResponse response = SweetMapper.toResponse(sweet);
+                put(segmentFor(sweet.getId()), sweet.getId(), sweet.getVersion(), response,
+                    missingStamps.get(sweet.getId()));
+                loaded.put(sweet.getId(), response);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                if (results[i] == null) {
+                    results[i] = loaded.get(ids[i]);
+                }
+            }
+        }
+        
+        List<SweetResponse> responses = new ArrayList<>(ids.length);
+        for (SweetResponse response : results) {
+            if (response != null) {
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+    
+    public void invalidate(Long id) {
+        // Dropped only once the change is committed, so a concurrent reload cannot cache the old row again.
+        TransactionCallbacks.afterCommit(() -> evict(id));
+    }
+    
+    void evict(Long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.entries.remove(id);
+            segment.invalidations++;
+        }
+    }
+    
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+    
+    private void put(Segment segment, Long id, Long version, SweetResponse response, long stamp) {
+        long loadedVersion = version != null ? version : 0L;
+        synchronized (segment) {
+            if (segment.invalidations != stamp) {
+                // Something in this segment changed while the row was loading; the next read reloads it.
+                return;
+            }
+            CachedSweet existing = segment.entries.get(id);
+            if (existing != null && existing.version >= loadedVersion) {
+                return;
+            }
+            segment.entries.put(id, new CachedSweet(loadedVersion, response, etag(loadedVersion, response.getQuantity())));
+        }
+    }
+    
+    static String etag(Long version, Integer quantity) {
+        // Sharded stock changes leave @Version alone, so the resolved quantity is part of the tag.
+        return ETags.strong((version != null ? version : 0L) + "-" + (quantity != null ? quantity : 0));
+    }
+    
+    private Segment segmentFor(Long id) {
+        return segments[Math.floorMod(Long.hashCode(id), SEGMENTS)];
+    }
+    
+    private static final class CachedSweet {
+        private final long version;
+        private final SweetResponse response;
+        private final String etag;
+        
+        private CachedSweet(long version, SweetResponse response, String etag) {
+            this.version = version;
+            this.response = response;
+            this.etag = etag;
+        }
+    }
+    
+    private static final class Segment {
+        private final Map<Long, CachedSweet> entries;
+        private long invalidations;
+        
+        private Segment(int capacity, Counter evictions) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedSweet> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.sweet.repository.SweetChange;
+import com.sweetshop.sweet.repository.SweetRepository;
+import com.sweetshop.sweet.repository.SweetTombstoneRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class SweetChangeLog {
+    
+    private final SweetRepository sweetRepository;
+    private final SweetTombstoneRepository tombstoneRepository;
+    
+    public SweetChangeLog(SweetRepository sweetRepository, SweetTombstoneRepository tombstoneRepository) {
+        this.sweetRepository = sweetRepository;
+        this.tombstoneRepository = tombstoneRepository;
+    }
+    
+    // Stamped inside the writing transaction, so every node reads one feed and it survives restarts.
+    // Stock UPDATEs stamp themselves in the same statement; these cover writes made through the entity.
+    public void changed(Long id) {
+        sweetRepository.stampChange(id);
+    }
+    
+    public void changedAll(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            sweetRepository.stampChanges(ids);
+        }
+    }
+    
+    public void deleted(Long id) {
+        tombstoneRepository.recordDeletion(id);
+    }
+    
+    Batch since(String token, int limit) {
+        // Sequence values are taken at write time, not commit time, so reads stop below the oldest open
+        // transaction: anything it commits later still sorts after every token handed out before.
+        long horizon = sweetRepository.findChangeHorizon();
+        Position latest = latestPosition(horizon);
+        Position from = parse(token);
+        if (from == null || from.compareTo(latest) > 0) {
+            // No token, or one from before the database was recreated: the client reloads and resumes from here.
+            return new Batch(latest.token(), true, false, Map.of());
+        }
+        
+        // One extra row tells whether another page follows without a count query.
+        List<SweetChange> rows = sweetRepository.findChangesAfter(from.txid(), from.seq(), horizon, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<SweetChange> page = hasMore ? rows.subList(0, limit) : rows;
+        
+        Map<Long, Boolean> latestById = new LinkedHashMap<>();
+        for (SweetChange change : page) {
+            // Only the last change to a sweet matters, so earlier entries for it collapse into one.
+            latestById.remove(change.getSweetId());
+            latestById.put(change.getSweetId(), change.getDeleted());
+        }
+        Position to = page.isEmpty() ? from : Position.of(page.get(page.size() - 1));
+        return new Batch(to.token(), false, hasMore, latestById);
+    }
+    
+    // Moves whenever a change becomes safe to read, so it only ever grows.
+    String latestToken() {
+        return latestPosition(sweetRepository.findChangeHorizon()).token();
+    }
+    
+    private Position latestPosition(long horizon) {
+        return sweetRepository.findLatestChangeBefore(horizon).map(Position::of).orElse(Position.START);
+    }
+    
+    private Position parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        int separator = token.indexOf('.');
+        if (separator < 0) {
+            throw new BadRequestException("Invalid change token");
+        }
+        try {
+            Position position = new Position(Long.parseLong(token.substring(0, separator)),
+                Long.parseLong(token.substring(separator + 1)));
+            if (position.txid() < 0 || position.seq() < 0) {
+                throw new BadRequestException("Invalid change token");
+            }
+            return position;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid change token");
+        }
+    }
+    
+    record Batch(String token, boolean reset, boolean hasMore, Map<Long, Boolean> deletedById) {
+    }
+    
+    private record Position(long txid, long seq) implements Comparable<Position> {
+        
+        private static final Position START = new Position(0, 0);
+        private static final Comparator<Position> ORDER =
+            Comparator.comparingLong(Position::txid).thenComparingLong(Position::seq);
+        
+        private static Position of(SweetChange change) {
+            return new Position(change.getChangeTxid(), change.getChangeSeq());
+        }
+        
+        private String token() {
+            return txid + "." + seq;
+        }
+        
+        @Override
+        public int compareTo(Position other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.sweet.dto.SweetResponse;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+final class SweetCursor {
+    
+    private static final String SEPARATOR = "\n";
+    
+    private final String sortBy;
+    private final boolean descending;
+    private final Long lastId;
+    private final String lastKey;
+    
+    private SweetCursor(String sortBy, boolean descending, Long lastId, String lastKey) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.lastId = lastId;
+        this.lastKey = lastKey;
+    }
+    
+    static SweetCursor after(SweetResponse sweet, String sortBy, boolean descending) {
+        String lastKey = switch (sortBy) {
+            case "name" -> sweet.getName();
+            case "price" -> sweet.getPrice().toPlainString();
+            default -> "";
+        };
+        return new SweetCursor(sortBy, descending, sweet.getId(), lastKey);
+    }
+    
+    static SweetCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, 4);
+            if (parts.length != 4 || !isSortField(parts[0])) {
+                throw invalid();
+            }
+            SweetCursor result = new SweetCursor(parts[0], "desc".equals(parts[1]), Long.valueOf(parts[2]), parts[3]);
+            if ("price".equals(result.sortBy)) {
+                result.lastPrice();
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+    
+    String encode() {
+        String raw = String.join(SEPARATOR, sortBy, descending ? "desc" : "asc", String.valueOf(lastId), lastKey);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    String getSortBy() {
+        return sortBy;
+    }
+    
+    boolean isDescending() {
+        return descending;
+    }
+    
+    Long getLastId() {
+        return lastId;
+    }
+    
+    String lastName() {
+        return lastKey;
+    }
+    
+    BigDecimal lastPrice() {
+        return new BigDecimal(lastKey);
+    }
+    
+    private static boolean isSortField(String sortBy) {
+        return "id".equals(sortBy) || "name".equals(sortBy) || "price".equals(sortBy);
+    }
+    
+    private static BadRequestException invalid() {
+        return new BadRequestException("Invalid pagination cursor");
+    }
+}
@@ -0,0 +1,8 @@
+package com.sweetshop.sweet.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface SweetExportService {
+    long exportAll(OutputStream out) throws IOException;
+}
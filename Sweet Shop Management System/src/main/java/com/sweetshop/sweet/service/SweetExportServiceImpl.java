@@ -0,0 +1,77 @@
+package com.sweetshop.sweet.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sweetshop.common.mapper.SweetMapper;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SweetResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Service
+public class SweetExportServiceImpl implements SweetExportService {
+    
+    private static final String EXPORT_QUERY = "SELECT s FROM Sweet s ORDER BY s.id";
+    
+    private final SessionFactory sessionFactory;
+    private final ObjectWriter lineWriter;
+    private final int fetchSize;
+    
+    public SweetExportServiceImpl(EntityManagerFactory entityManagerFactory,
+                                  ObjectMapper objectMapper,
+                                  @Value("${sweet.export.fetch-size:500}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.lineWriter = objectMapper.writerFor(SweetResponse.class)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                // Rows are flushed once per fetched batch below, not after every value.
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+    
+    @Override
+    public long exportAll(OutputStream out) throws IOException {
+        // A stateless session keeps no persistence context, so nothing read here is retained after it is written.
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // The driver only streams with a server-side cursor inside a transaction (autocommit off).
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<Sweet> rows = session.createQuery(EXPORT_QUERY, Sweet.class)
+                    .setReadOnly(true)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+                 SequenceWriter lines = lineWriter.writeValues(out)) {
+                long written = 0;
+                while (rows.next()) {
+                    lines.write(SweetMapper.toResponse(rows.get()));
+                    if (++written % fetchSize == 0) {
+                        lines.flush();
+                    }
+                }
+                // Drain the generator's buffer before writing to the stream behind it.
+                lines.flush();
+                if (written > 0) {
+                    out.write('\n');
+                }
+                out.flush();
+                transaction.commit();
+                return written;
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.sweet.dto.SearchRequest;
+import com.sweetshop.sweet.dto.SweetFacetsResponse;
+
+public interface SweetFacetService {
+    SweetFacetsResponse getFacets(SearchRequest criteria, int buckets);
+}
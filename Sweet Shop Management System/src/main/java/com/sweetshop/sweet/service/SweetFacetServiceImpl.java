@@ -0,0 +1,41 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.sweet.dto.SearchRequest;
+import com.sweetshop.sweet.dto.SweetFacetsResponse;
+import com.sweetshop.sweet.index.FacetIndex;
+import com.sweetshop.sweet.index.NameTrigramIndex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Transactional(readOnly = true)
+public class SweetFacetServiceImpl implements SweetFacetService {
+    
+    private final SweetService sweetService;
+    private final FacetIndex facetIndex;
+    private final NameTrigramIndex nameIndex;
+    
+    public SweetFacetServiceImpl(SweetService sweetService, FacetIndex facetIndex, NameTrigramIndex nameIndex) {
+        this.sweetService = sweetService;
+        this.facetIndex = facetIndex;
+        this.nameIndex = nameIndex;
+    }
+    
+    @Override
+    public SweetFacetsResponse getFacets(SearchRequest criteria, int buckets) {
+        if (!facetIndex.isReady() || (criteria.hasName() && !nameIndex.isReady())) {
+            return computeFromSearch(criteria, buckets);
+        }
+        long[] ids = criteria.hasName() ? nameIndex.search(criteria.getName()) : null;
+        String category = criteria.hasCategory() ? criteria.getCategory() : null;
+        return facetIndex.facets(category, criteria.getMinPrice(), criteria.getMaxPrice(), ids, buckets);
+    }
+    
+    private SweetFacetsResponse computeFromSearch(SearchRequest criteria, int buckets) {
+        // Only reached until the startup rebuild has finished; matching rows are tallied in a throwaway index.
+        FacetIndex scratch = new FacetIndex();
+        sweetService.search(criteria).forEach(sweet ->
+            scratch.put(sweet.getId(), sweet.getCategory(), sweet.getPrice(), sweet.getQuantity()));
+        return scratch.facets(null, null, null, null, buckets);
+    }
+}
@@ -0,0 +1,111 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.repository.SweetRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Component
+public class SweetIndexSync {
+    
+    private final SweetChangeLog changeLog;
+    private final SweetRepository sweetRepository;
+    private final SweetIndexMaintainer indexMaintainer;
+    private final SweetCache sweetCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+    private final int batchSize;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "sweet-index-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile String token;
+    
+    public SweetIndexSync(SweetChangeLog changeLog,
+                          SweetRepository sweetRepository,
+                          SweetIndexMaintainer indexMaintainer,
+                          SweetCache sweetCache,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${sweet.index.sync-interval-ms:1000}") long intervalMs,
+                          @Value("${sweet.index.sync-batch-size:500}") int batchSize) {
+        this.changeLog = changeLog;
+        this.sweetRepository = sweetRepository;
+        this.indexMaintainer = indexMaintainer;
+        this.sweetCache = sweetCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.interval = Duration.ofMillis(Math.max(1, intervalMs));
+        this.batchSize = Math.max(1, batchSize);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // The position is taken before the rebuild, so anything committed while it runs is replayed afterwards.
+        token = transactionTemplate.execute(status -> changeLog.latestToken());
+        indexMaintainer.rebuild();
+        executor.scheduleWithFixedDelay(this::pollQuietly, interval.toMillis(), interval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+    
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            // The token only moves once a page is applied, so the next run retries from the same position.
+        }
+    }
+    
+    // Indexes and the sweet cache are per node; writes from other nodes reach them through the shared feed.
+    // Changes made on this node come round again too, which only re-applies what its own callbacks already did.
+    void poll() {
+        SweetChangeLog.Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> apply(changeLog.since(token, batchSize)));
+            token = batch.token();
+        } while (batch.hasMore());
+    }
+    
+    private SweetChangeLog.Batch apply(SweetChangeLog.Batch batch) {
+        if (batch.reset()) {
+            // The feed is behind this position, so the database was recreated: start again from its current state.
+            indexMaintainer.rebuild();
+            return batch;
+        }
+        
+        List<Long> changedIds = batch.deletedById().entrySet().stream()
+                .filter(entry -> !entry.getValue())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        List<Sweet> rows = changedIds.isEmpty() ? List.of() : sweetRepository.findAllById(changedIds);
+        Set<Long> found = rows.stream().map(Sweet::getId).collect(Collectors.toSet());
+        List<Long> removed = batch.deletedById().keySet().stream()
+                .filter(id -> !found.contains(id))
+                .collect(Collectors.toList());
+        
+        indexMaintainer.refreshed(rows);
+        indexMaintainer.removed(removed);
+        batch.deletedById().keySet().forEach(sweetCache::evict);
+        return batch;
+    }
+    
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
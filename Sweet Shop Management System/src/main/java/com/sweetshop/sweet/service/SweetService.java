@@ -1,22 +1,36 @@
 package com.sweetshop.sweet.service;
 
 import com.sweetshop.sweet.dto.PagedSweetResponse;
+import com.sweetshop.sweet.dto.SearchRequest;
+import com.sweetshop.sweet.dto.SuggestionResponse;
+import com.sweetshop.sweet.dto.SweetChangesResponse;
 import com.sweetshop.sweet.dto.SweetRequest;
 import com.sweetshop.sweet.dto.SweetResponse;
-import com.sweetshop.user.domain.User;
+import com.sweetshop.sweet.dto.VersionedSweet;
+import com.sweetshop.user.domain.UserIdentity;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 public interface SweetService {
-    SweetResponse createSweet(SweetRequest request, User currentUser);
+    SweetResponse createSweet(SweetRequest request, UserIdentity currentUser);
     List<SweetResponse> getAllSweets();
     PagedSweetResponse getAllSweets(int page, int size, String sortBy, String sortDirection);
+    PagedSweetResponse getAllSweets(int page, int size, String sortBy, String sortDirection, boolean includeTotal);
+    PagedSweetResponse getSweetsAfter(String cursor, int size, boolean includeTotal);
     SweetResponse getSweetById(Long id);
-    SweetResponse updateSweet(Long id, SweetRequest request, User currentUser);
-    void deleteSweet(Long id, User currentUser);
+    VersionedSweet getVersionedSweetById(Long id);
+    String getSweetETag(Long id);
+    String getCatalogETag();
+    SweetChangesResponse getChangesSince(String token, int limit);
+    SweetResponse updateSweet(Long id, SweetRequest request, UserIdentity currentUser);
+    void deleteSweet(Long id, UserIdentity currentUser);
     List<SweetResponse> searchByName(String name);
+    List<SweetResponse> fuzzySearchByName(String name, Integer maxDistance, int limit);
     List<SweetResponse> searchByCategory(String category);
     List<SweetResponse> searchByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    List<SweetResponse> search(SearchRequest criteria);
+    PagedSweetResponse search(SearchRequest criteria, int page, int size);
+    List<SuggestionResponse> suggest(String prefix, int limit);
 }
 
@@ -1,20 +1,44 @@
 package com.sweetshop.sweet.service;
 
 import com.sweetshop.common.mapper.SweetMapper;
+import com.sweetshop.common.util.ETags;
 import com.sweetshop.common.util.RepositoryHelper;
 import com.sweetshop.common.util.RoleChecker;
 import com.sweetshop.common.util.SweetValidator;
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.ResourceNotFoundException;
+import com.sweetshop.inventory.service.ShardedStockService;
 import com.sweetshop.sweet.domain.Sweet;
 import com.sweetshop.sweet.dto.PagedSweetResponse;
+import com.sweetshop.sweet.dto.SearchRequest;
+import com.sweetshop.sweet.dto.SuggestionResponse;
+import com.sweetshop.sweet.dto.SuggestionType;
+import com.sweetshop.sweet.dto.SweetChangesResponse;
 import com.sweetshop.sweet.dto.SweetRequest;
 import com.sweetshop.sweet.dto.SweetResponse;
+import com.sweetshop.sweet.dto.VersionedSweet;
+import com.sweetshop.sweet.index.FuzzyNameIndex;
+import com.sweetshop.sweet.index.NameTrigramIndex;
+import com.sweetshop.sweet.index.PriceIndex;
+import com.sweetshop.sweet.index.SuggestionIndex;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
 import com.sweetshop.sweet.repository.SweetRepository;
-import com.sweetshop.user.domain.User;
+import com.sweetshop.sweet.repository.SweetSpecifications;
+import com.sweetshop.user.domain.UserIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,60 +48,165 @@ public class SweetServiceImpl implements SweetService {
     private static final String SWEET_RESOURCE_NAME = "Sweet";
     
     private final SweetRepository sweetRepository;
+    private final ShardedStockService shardedStockService;
+    private final SweetCache sweetCache;
+    private final NameTrigramIndex nameIndex;
+    private final FuzzyNameIndex fuzzyIndex;
+    private final PriceIndex priceIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final SweetIndexMaintainer indexMaintainer;
+    private final SweetChangeLog changeLog;
+    private final int maxNameCandidates;
+    private final int maxEditDistance;
     
-    public SweetServiceImpl(SweetRepository sweetRepository) {
+    public SweetServiceImpl(SweetRepository sweetRepository,
+                            ShardedStockService shardedStockService,
+                            SweetCache sweetCache,
+                            NameTrigramIndex nameIndex,
+                            FuzzyNameIndex fuzzyIndex,
+                            PriceIndex priceIndex,
+                            SuggestionIndex suggestionIndex,
+                            SweetIndexMaintainer indexMaintainer,
+                            SweetChangeLog changeLog,
+                            @Value("${sweet.search.max-name-candidates:5000}") int maxNameCandidates,
+                            @Value("${sweet.search.fuzzy.max-distance:2}") int maxEditDistance) {
         this.sweetRepository = sweetRepository;
+        this.shardedStockService = shardedStockService;
+        this.sweetCache = sweetCache;
+        this.nameIndex = nameIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.priceIndex = priceIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.indexMaintainer = indexMaintainer;
+        this.changeLog = changeLog;
+        this.maxNameCandidates = maxNameCandidates;
+        this.maxEditDistance = maxEditDistance;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCategoryKeys() {
+        // Category filters match on category_key only, so keys missing from older rows are filled before use.
+        sweetRepository.backfillCategoryKeys();
     }
     
     @Override
-    public SweetResponse createSweet(SweetRequest request, User currentUser) {
+    public SweetResponse createSweet(SweetRequest request, UserIdentity currentUser) {
         SweetValidator.validate(request);
-        Sweet sweet = SweetMapper.toEntity(request);
-        return SweetMapper.toResponse(sweetRepository.save(sweet));
+        Sweet saved = sweetRepository.save(SweetMapper.toEntity(request));
+        // Nothing is cached under a new id yet, but the catalog version still has to move.
+        sweetCache.invalidate(saved.getId());
+        indexMaintainer.saved(saved);
+        changeLog.changed(saved.getId());
+        return SweetMapper.toResponse(saved);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<SweetResponse> getAllSweets() {
-        return sweetRepository.findAll().stream()
-                .map(SweetMapper::toResponse)
-                .collect(Collectors.toList());
+        return sweetRepository.findAllResponses();
     }
     
     @Override
     @Transactional(readOnly = true)
     public PagedSweetResponse getAllSweets(int page, int size, String sortBy, String sortDirection) {
-        org.springframework.data.domain.Sort sort = createSort(sortBy, sortDirection);
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
-        org.springframework.data.domain.Page<Sweet> sweetPage = sweetRepository.findAll(pageable);
+        return getAllSweets(page, size, sortBy, sortDirection, true);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PagedSweetResponse getAllSweets(int page, int size, String sortBy, String sortDirection,
+                                           boolean includeTotal) {
+        String sortField = validateSortField(sortBy);
+        boolean descending = "desc".equalsIgnoreCase(sortDirection);
+        org.springframework.data.domain.Pageable pageable =
+            org.springframework.data.domain.PageRequest.of(page, size, createSort(sortField, descending));
         
-        List<SweetResponse> content = sweetPage.getContent().stream()
-                .map(SweetMapper::toResponse)
-                .collect(Collectors.toList());
+        if (!includeTotal) {
+            org.springframework.data.domain.Slice<SweetResponse> sweetSlice = sweetRepository.findResponseSlice(pageable);
+            return new PagedSweetResponse(
+                sweetSlice.getContent(),
+                sweetSlice.getNumber(),
+                sweetSlice.getSize(),
+                null,
+                null,
+                sweetSlice.hasNext(),
+                sweetSlice.hasPrevious(),
+                nextCursor(sweetSlice.getContent(), sweetSlice.hasNext(), sortField, descending)
+            );
+        }
         
+        org.springframework.data.domain.Page<SweetResponse> sweetPage = sweetRepository.findResponsePage(pageable);
         return new PagedSweetResponse(
-            content,
+            sweetPage.getContent(),
             sweetPage.getNumber(),
             sweetPage.getSize(),
             sweetPage.getTotalElements(),
             sweetPage.getTotalPages(),
             sweetPage.hasNext(),
-            sweetPage.hasPrevious()
+            sweetPage.hasPrevious(),
+            nextCursor(sweetPage.getContent(), sweetPage.hasNext(), sortField, descending)
         );
     }
     
-    private org.springframework.data.domain.Sort createSort(String sortBy, String sortDirection) {
-        if (sortBy == null || sortBy.isEmpty()) {
-            return org.springframework.data.domain.Sort.unsorted();
+    @Override
+    @Transactional(readOnly = true)
+    public PagedSweetResponse getSweetsAfter(String cursor, int size, boolean includeTotal) {
+        boolean hasPrevious = cursor != null && !cursor.isBlank();
+        if (!hasPrevious) {
+            return getAllSweets(0, size, "id", "asc", includeTotal);
         }
+        SweetCursor position = SweetCursor.decode(cursor);
         
-        org.springframework.data.domain.Sort.Direction direction = 
-            "desc".equalsIgnoreCase(sortDirection) 
-                ? org.springframework.data.domain.Sort.Direction.DESC 
+        // One extra row tells us whether another page exists without a COUNT(*).
+        List<SweetResponse> rows = seek(position, org.springframework.data.domain.PageRequest.of(0, size + 1));
+        boolean hasNext = rows.size() > size;
+        List<SweetResponse> content = hasNext ? rows.subList(0, size) : rows;
+        
+        Long totalElements = includeTotal ? sweetRepository.count() : null;
+        Integer totalPages = totalElements != null ? (int) ((totalElements + size - 1) / size) : null;
+        return new PagedSweetResponse(
+            content,
+            null,
+            size,
+            totalElements,
+            totalPages,
+            hasNext,
+            hasPrevious,
+            nextCursor(content, hasNext, position.getSortBy(), position.isDescending())
+        );
+    }
+    
+    private List<SweetResponse> seek(SweetCursor position, org.springframework.data.domain.Pageable limit) {
+        Long lastId = position.getLastId();
+        boolean descending = position.isDescending();
+        return switch (position.getSortBy()) {
+            case "name" -> descending
+                ? sweetRepository.findPageBeforeName(position.lastName(), lastId, limit)
+                : sweetRepository.findPageAfterName(position.lastName(), lastId, limit);
+            case "price" -> descending
+                ? sweetRepository.findPageBeforePrice(position.lastPrice(), lastId, limit)
+                : sweetRepository.findPageAfterPrice(position.lastPrice(), lastId, limit);
+            default -> descending
+                ? sweetRepository.findPageBeforeId(lastId, limit)
+                : sweetRepository.findPageAfterId(lastId, limit);
+        };
+    }
+    
+    private String nextCursor(List<SweetResponse> content, boolean hasNext, String sortField, boolean descending) {
+        if (!hasNext || content.isEmpty()) {
+            return null;
+        }
+        return SweetCursor.after(content.get(content.size() - 1), sortField, descending).encode();
+    }
+    
+    private org.springframework.data.domain.Sort createSort(String sortField, boolean descending) {
+        org.springframework.data.domain.Sort.Direction direction = descending
+                ? org.springframework.data.domain.Sort.Direction.DESC
                 : org.springframework.data.domain.Sort.Direction.ASC;
         
-        String validSortBy = validateSortField(sortBy);
-        return org.springframework.data.domain.Sort.by(direction, validSortBy);
+        // id breaks ties so offset pages and cursor pages walk rows in exactly the same order.
+        org.springframework.data.domain.Sort sort = org.springframework.data.domain.Sort.by(direction, sortField);
+        return "id".equals(sortField) ? sort : sort.and(org.springframework.data.domain.Sort.by(direction, "id"));
     }
     
     private String validateSortField(String sortBy) {
@@ -88,49 +217,229 @@ public class SweetServiceImpl implements SweetService {
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public SweetResponse getSweetById(Long id) {
-        Sweet sweet = RepositoryHelper.findByIdOrThrow(sweetRepository, id, SWEET_RESOURCE_NAME);
-        return SweetMapper.toResponse(sweet);
+        return sweetCache.get(id, () -> RepositoryHelper.findByIdOrThrow(sweetRepository, id, SWEET_RESOURCE_NAME));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public VersionedSweet getVersionedSweetById(Long id) {
+        return sweetCache.getVersioned(id,
+            () -> RepositoryHelper.findByIdOrThrow(sweetRepository, id, SWEET_RESOURCE_NAME));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getSweetETag(Long id) {
+        String cached = sweetCache.etag(id);
+        if (cached != null) {
+            return cached;
+        }
+        // A cache miss reads only the version and quantity, never the whole row.
+        return sweetRepository.findVersionById(id)
+                .map(row -> SweetCache.etag(row.getVersion(), row.getQuantity()))
+                .orElseThrow(() -> new ResourceNotFoundException(
+                    String.format("%s not found with id: %s", SWEET_RESOURCE_NAME, id)));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public String getCatalogETag() {
+        // The feed's safe position moves once per committed change, even one whose sequence value is old.
+        return ETags.strong("catalog-" + changeLog.latestToken());
     }
     
     @Override
-    public SweetResponse updateSweet(Long id, SweetRequest request, User currentUser) {
+    @Transactional(readOnly = true)
+    public SweetChangesResponse getChangesSince(String token, int limit) {
+        SweetChangeLog.Batch batch = changeLog.since(token, limit);
+        long[] changedIds = batch.deletedById().entrySet().stream()
+                .filter(entry -> !entry.getValue())
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        List<SweetResponse> changed = sweetCache.getAll(changedIds, sweetRepository::findAllById);
+        
+        // A sweet changed here but deleted after this batch has no row left, so it is sent as a tombstone now.
+        Set<Long> found = changed.stream().map(SweetResponse::getId).collect(Collectors.toSet());
+        List<Long> deleted = batch.deletedById().entrySet().stream()
+                .filter(entry -> entry.getValue() || !found.contains(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        return new SweetChangesResponse(batch.token(), batch.reset(), batch.hasMore(), changed, deleted);
+    }
+    
+    @Override
+    public SweetResponse updateSweet(Long id, SweetRequest request, UserIdentity currentUser) {
         SweetValidator.validate(request);
         Sweet sweet = RepositoryHelper.findByIdOrThrow(sweetRepository, id, SWEET_RESOURCE_NAME);
         SweetMapper.updateEntity(sweet, request);
-        return SweetMapper.toResponse(sweetRepository.save(sweet));
+        if (sweet.isSharded()) {
+            shardedStockService.setTotal(id, request.getQuantity());
+        }
+        Sweet saved = sweetRepository.save(sweet);
+        sweetCache.invalidate(id);
+        // Sharded stock lives outside the row, so the index takes the total from the request.
+        indexMaintainer.saved(saved, request.getQuantity());
+        changeLog.changed(id);
+        return SweetMapper.toResponse(saved);
     }
     
     @Override
-    public void deleteSweet(Long id, User currentUser) {
+    public void deleteSweet(Long id, UserIdentity currentUser) {
         RoleChecker.requireAdmin(currentUser, "delete sweets");
         RepositoryHelper.findByIdOrThrow(sweetRepository, id, SWEET_RESOURCE_NAME);
         sweetRepository.deleteById(id);
+        sweetCache.invalidate(id);
+        indexMaintainer.deleted(id);
+        changeLog.deleted(id);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<SweetResponse> searchByName(String name) {
-        return sweetRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(SweetMapper::toResponse)
-                .collect(Collectors.toList());
+        long[] ids = nameCandidates(name);
+        if (ids == null) {
+            return sweetRepository.findResponsesByNameContaining(name);
+        }
+        return sweetCache.getAll(ids, sweetRepository::findAllById);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<SweetResponse> fuzzySearchByName(String name, Integer maxDistance, int limit) {
+        int distance = maxDistance != null ? maxDistance : maxEditDistance;
+        if (distance < 0 || distance > maxEditDistance) {
+            throw new BadRequestException(
+                String.format("Maximum edit distance must be between 0 and %d", maxEditDistance)
+            );
+        }
+        if (!fuzzyIndex.isReady()) {
+            return searchByName(name).stream().limit(limit).collect(Collectors.toList());
+        }
+        // Ids arrive closest match first and already cut to limit; rows are served from the sweet cache in that order.
+        return sweetCache.getAll(fuzzyIndex.search(name, distance, limit), sweetRepository::findAllById);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<SweetResponse> searchByCategory(String category) {
-        return sweetRepository.findByCategoryIgnoreCase(category).stream()
-                .map(SweetMapper::toResponse)
-                .collect(Collectors.toList());
+        return sweetRepository.findResponsesByCategoryKey(Sweet.toCategoryKey(category));
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<SweetResponse> searchByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return sweetRepository.findByPriceBetween(minPrice, maxPrice).stream()
-                .map(SweetMapper::toResponse)
+        long[] ids = priceCandidates(minPrice, maxPrice);
+        if (ids == null) {
+            return sweetRepository.findResponsesByPriceBetween(minPrice, maxPrice);
+        }
+        // Ids come back in price order from the index; details are served from the sweet cache. The index can
+        // trail a price change committed elsewhere, so the loaded prices are checked against the range again.
+        return sweetCache.getAll(ids, sweetRepository::findAllById).stream()
+                .filter(sweet -> sweet.getPrice().compareTo(minPrice) >= 0 && sweet.getPrice().compareTo(maxPrice) <= 0)
                 .collect(Collectors.toList());
     }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<SweetResponse> search(SearchRequest criteria) {
+        String sortField = validateSortField(criteria.getSortBy());
+        boolean descending = "desc".equalsIgnoreCase(criteria.getSortDirection());
+        return sweetRepository.findResponses(toSpecification(criteria), createSort(sortField, descending));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PagedSweetResponse search(SearchRequest criteria, int page, int size) {
+        String sortField = validateSortField(criteria.getSortBy());
+        boolean descending = "desc".equalsIgnoreCase(criteria.getSortDirection());
+        org.springframework.data.domain.Pageable pageable =
+            org.springframework.data.domain.PageRequest.of(page, size, createSort(sortField, descending));
+        
+        org.springframework.data.domain.Page<SweetResponse> sweetPage =
+            sweetRepository.findResponses(toSpecification(criteria), pageable);
+        return new PagedSweetResponse(
+            sweetPage.getContent(),
+            sweetPage.getNumber(),
+            sweetPage.getSize(),
+            sweetPage.getTotalElements(),
+            sweetPage.getTotalPages(),
+            sweetPage.hasNext(),
+            sweetPage.hasPrevious(),
+            null
+        );
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        if (!suggestionIndex.isReady()) {
+            return sweetRepository.findResponsesByNameContaining(prefix.trim()).stream()
+                    .limit(limit)
+                    .map(sweet -> new SuggestionResponse(sweet.getName(), SuggestionType.SWEET, sweet.getId()))
+                    .collect(Collectors.toList());
+        }
+        return suggestionIndex.suggest(prefix, limit);
+    }
+    
+    private Specification<Sweet> toSpecification(SearchRequest criteria) {
+        // Every criterion becomes one predicate of a single WHERE clause; category and price together
+        // are served by the (category_key, price, id) index.
+        List<Specification<Sweet>> predicates = new ArrayList<>();
+        long[] candidateIds = null;
+        if (criteria.hasName()) {
+            candidateIds = nameCandidates(criteria.getName());
+            if (candidateIds == null) {
+                predicates.add(SweetSpecifications.nameContains(criteria.getName()));
+            }
+        }
+        boolean hasPrice = criteria.getMinPrice() != null || criteria.getMaxPrice() != null;
+        if (hasPrice && !criteria.hasCategory()) {
+            // Without a category there is no composite index to bound the range, so the price index narrows ids.
+            long[] pricedIds = priceCandidates(criteria.getMinPrice(), criteria.getMaxPrice());
+            if (pricedIds != null) {
+                candidateIds = candidateIds != null ? intersect(candidateIds, pricedIds) : pricedIds;
+            }
+        }
+        if (candidateIds != null) {
+            predicates.add(SweetSpecifications.idIn(Arrays.stream(candidateIds).boxed().toList()));
+        }
+        if (criteria.hasCategory()) {
+            predicates.add(SweetSpecifications.categoryIs(criteria.getCategory()));
+        }
+        if (criteria.getMinPrice() != null) {
+            predicates.add(SweetSpecifications.priceAtLeast(criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            predicates.add(SweetSpecifications.priceAtMost(criteria.getMaxPrice()));
+        }
+        return predicates.stream()
+                .reduce(Specification::and)
+                .orElse((root, query, cb) -> cb.conjunction());
+    }
+    
+    // Null when the index is not built yet or matches too many rows to send as one id list.
+    private long[] nameCandidates(String name) {
+        if (!nameIndex.isReady()) {
+            return null;
+        }
+        long[] ids = nameIndex.search(name);
+        return ids.length <= maxNameCandidates ? ids : null;
+    }
+    
+    // The price predicates stay in the query as well, since the index only catches up after commit.
+    private long[] priceCandidates(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!priceIndex.isReady()) {
+            return null;
+        }
+        // One id past the cap is enough to know the range is too wide, without walking all of it.
+        long[] ids = priceIndex.idsInRange(minPrice, maxPrice, maxNameCandidates + 1);
+        return ids.length <= maxNameCandidates ? ids : null;
+    }
+    
+    private static long[] intersect(long[] ids, long[] otherIds) {
+        Set<Long> others = Arrays.stream(otherIds).boxed().collect(Collectors.toSet());
+        return Arrays.stream(ids).filter(others::contains).toArray();
+    }
 }
-
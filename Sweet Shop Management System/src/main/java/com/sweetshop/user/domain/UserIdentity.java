@@ -0,0 +1,7 @@
+package com.sweetshop.user.domain;
+
+public interface UserIdentity {
+    Long getId();
+    String getUsername();
+    Role getRole();
+}
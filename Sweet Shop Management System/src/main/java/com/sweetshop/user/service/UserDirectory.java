@@ -0,0 +1,122 @@
+package com.sweetshop.user.service;
+
+import com.sweetshop.common.util.TransactionCallbacks;
+import com.sweetshop.user.domain.User;
+import com.sweetshop.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class UserDirectory {
+    
+    private final UserRepository userRepository;
+    private final Map<String, CachedUser> entries;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+    private long invalidations;
+    
+    public UserDirectory(UserRepository userRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${user.directory.max-entries:10000}") int maxEntries,
+                         @Value("${user.directory.ttl-seconds:300}") long ttlSeconds,
+                         @Value("${user.directory.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this(userRepository, meterRegistry, maxEntries, Duration.ofSeconds(ttlSeconds),
+            Duration.ofSeconds(negativeTtlSeconds), Clock.systemUTC());
+    }
+    
+    UserDirectory(UserRepository userRepository, MeterRegistry meterRegistry, int maxEntries,
+                  Duration ttl, Duration negativeTtl, Clock clock) {
+        int capacity = Math.max(1, maxEntries);
+        this.userRepository = userRepository;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+        this.hits = meterRegistry.counter("user.directory.requests", "result", "hit");
+        this.misses = meterRegistry.counter("user.directory.requests", "result", "miss");
+        meterRegistry.gauge("user.directory.size", this, UserDirectory::size);
+        meterRegistry.gauge("user.directory.hit.ratio", this, UserDirectory::hitRatio);
+    }
+    
+    public Optional<User> findByUsername(String username) {
+        long stamp;
+        synchronized (entries) {
+            CachedUser cached = entries.get(username);
+            if (cached != null && clock.instant().isBefore(cached.expiresAt)) {
+                hits.increment();
+                // Callers get their own detached copy, so nothing they change leaks into the cache.
+                return Optional.ofNullable(cached.user).map(UserDirectory::copy);
+            }
+            stamp = invalidations;
+        }
+        
+        misses.increment();
+        Optional<User> loaded = userRepository.findByUsername(username);
+        User snapshot = loaded.map(UserDirectory::copy).orElse(null);
+        synchronized (entries) {
+            if (invalidations == stamp) {
+                // Missing usernames are remembered briefly too, so repeated unknown logins stay off the table.
+                Duration lifetime = snapshot != null ? ttl : negativeTtl;
+                entries.put(username, new CachedUser(snapshot, clock.instant().plus(lifetime)));
+            }
+        }
+        // A detached copy here too, so callers see the same kind of object whether or not the lookup hit.
+        return Optional.ofNullable(snapshot).map(UserDirectory::copy);
+    }
+    
+    public void invalidate(String username) {
+        // Registration and password re-hashes call this; the entry is dropped once the change is committed.
+        // Nothing changes roles yet, and entries are per node: a change made any other way, or on another node,
+        // is served stale for up to user.directory.ttl-seconds. A future role-change path must call this too.
+        TransactionCallbacks.afterCommit(() -> evict(username));
+    }
+    
+    void evict(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+            invalidations++;
+        }
+    }
+    
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+    
+    private static User copy(User user) {
+        return new User(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    }
+    
+    private static final class CachedUser {
+        private final User user;
+        private final Instant expiresAt;
+        
+        private CachedUser(User user, Instant expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+-- PostgreSQL is required: the stock and change-feed queries use nextval, unnest, UPDATE ... RETURNING,
+-- txid_current() and txid_snapshot_xmin(). Every statement is idempotent, so this is safe to re-run.
+
+-- Ids come from pooled sequences; the increments must match the allocationSize on the entities.
+CREATE SEQUENCE IF NOT EXISTS sweet_seq INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS sweet_stock_shard_seq INCREMENT BY 50;
+
+-- Change-feed positions are handed out one at a time.
+CREATE SEQUENCE IF NOT EXISTS sweet_change_seq INCREMENT BY 1;
+
+DO $$
+BEGIN
+    -- Rows created under IDENTITY ids keep them, so the pooled sequence starts a full block past the highest one.
+    IF to_regclass('sweets') IS NOT NULL THEN
+        PERFORM setval('sweet_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM sweets) + 100,
+                                             (SELECT last_value FROM sweet_seq)));
+    END IF;
+END $$;
+
+ALTER TABLE IF EXISTS sweets ADD COLUMN IF NOT EXISTS change_seq bigint;
+ALTER TABLE IF EXISTS sweets ADD COLUMN IF NOT EXISTS change_txid bigint;
+ALTER TABLE IF EXISTS sweet_stock_shards ADD COLUMN IF NOT EXISTS change_seq bigint;
+ALTER TABLE IF EXISTS sweet_stock_shards ADD COLUMN IF NOT EXISTS change_txid bigint;
+
+CREATE TABLE IF NOT EXISTS sweet_tombstones (
+    change_seq  bigint PRIMARY KEY,
+    change_txid bigint NOT NULL,
+    sweet_id    bigint NOT NULL
+);
+
+DO $$
+BEGIN
+    IF to_regclass('sweets') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_sweets_change_txid_seq ON sweets (change_txid, change_seq);
+    END IF;
+    IF to_regclass('sweet_stock_shards') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_sweet_stock_shards_change_txid_seq
+            ON sweet_stock_shards (change_txid, change_seq);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_sweet_tombstones_change_txid_seq ON sweet_tombstones (change_txid, change_seq);
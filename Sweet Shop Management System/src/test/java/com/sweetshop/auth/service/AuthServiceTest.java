@@ -8,16 +8,20 @@ import com.sweetshop.exception.AuthenticationException;
 import com.sweetshop.user.domain.Role;
 import com.sweetshop.user.domain.User;
 import com.sweetshop.user.repository.UserRepository;
+import com.sweetshop.user.service.UserDirectory;
 import com.sweetshop.security.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,7 +42,10 @@ class AuthServiceTest {
     @Mock
     private JwtTokenProvider jwtTokenProvider;
 
-    @InjectMocks
+    @Mock
+    private PasswordRehashQueue passwordRehashQueue;
+
+    private PasswordHashingExecutor passwordHashing;
     private AuthServiceImpl authService;
 
     private RegisterRequest registerRequest;
@@ -47,6 +54,12 @@ class AuthServiceTest {
 
     @BeforeEach
     void setUp() {
+        UserDirectory userDirectory = new UserDirectory(userRepository, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(5), Duration.ofSeconds(5), Clock.systemUTC());
+        passwordHashing = new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 16, 5000);
+        authService = new AuthServiceImpl(userRepository, passwordEncoder, jwtTokenProvider, userDirectory,
+            passwordHashing, passwordRehashQueue);
+
         registerRequest = new RegisterRequest();
         registerRequest.setUsername("testuser");
         registerRequest.setPassword("password123");
@@ -62,6 +75,11 @@ class AuthServiceTest {
         existingUser.setRole(Role.USER);
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        passwordHashing.shutdown();
+    }
+
     @Test
     @DisplayName("Should register user successfully when username is not taken")
     void shouldRegisterUserSuccessfullyWhenUsernameIsNotTaken() {
@@ -126,5 +144,74 @@ class AuthServiceTest {
         verify(passwordEncoder, times(1)).matches("wrongPassword", "encodedPassword");
         verify(jwtTokenProvider, never()).generateToken(any(User.class));
     }
-}
 
+    @Test
+    @DisplayName("Should serve repeated logins for the same user from the directory")
+    void shouldServeRepeatedLoginsForTheSameUserFromTheDirectory() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwt-token-123");
+
+        // When
+        authService.login(loginRequest);
+        LoginResponse response = authService.login(loginRequest);
+
+        // Then
+        assertEquals("jwt-token-123", response.getToken());
+        verify(userRepository, times(1)).findByUsername("testuser");
+        verify(passwordEncoder, times(2)).matches("password123", "encodedPassword");
+    }
+
+    @Test
+    @DisplayName("Should allow login right after registering a username that was cached as missing")
+    void shouldAllowLoginRightAfterRegisteringAUsernameThatWasCachedAsMissing() {
+        // Given
+        when(userRepository.findByUsername("testuser"))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(userRepository.save(any(User.class))).thenReturn(existingUser);
+        when(jwtTokenProvider.generateToken(existingUser)).thenReturn("jwt-token-123");
+
+        // When
+        authService.register(registerRequest);
+        LoginResponse response = authService.login(loginRequest);
+
+        // Then
+        assertEquals("jwt-token-123", response.getToken());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    @DisplayName("Should queue a rehash when the stored hash uses a different cost")
+    void shouldQueueARehashWhenTheStoredHashUsesADifferentCost() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(jwtTokenProvider.generateToken(existingUser)).thenReturn("jwt-token-123");
+
+        // When
+        LoginResponse response = authService.login(loginRequest);
+
+        // Then
+        assertEquals("jwt-token-123", response.getToken());
+        verify(passwordRehashQueue, times(1)).submit(existingUser, "password123");
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should not queue a rehash when the login fails")
+    void shouldNotQueueARehashWhenTheLoginFails() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("wrongPassword", "encodedPassword")).thenReturn(false);
+        loginRequest.setPassword("wrongPassword");
+
+        // When & Then
+        assertThrows(AuthenticationException.class, () -> authService.login(loginRequest));
+        verify(passwordRehashQueue, never()).submit(any(User.class), anyString());
+    }
+}
@@ -0,0 +1,117 @@
+package com.sweetshop.auth.service;
+
+import com.sweetshop.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Password Hashing Executor Tests")
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 1, 5000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should run the task on the hashing pool and record its duration")
+    void shouldRunTheTaskOnTheHashingPoolAndRecordItsDuration() {
+        // When
+        String threadName = executor.execute("encode", () -> Thread.currentThread().getName());
+
+        // Then
+        assertTrue(threadName.startsWith("password-hashing-"));
+        Timer hashing = meterRegistry.get("auth.hashing.duration").tag("operation", "encode").timer();
+        assertEquals(1, hashing.count());
+        assertEquals(1, meterRegistry.get("auth.hashing.queue.wait").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should rethrow runtime exceptions from the task unchanged")
+    void shouldRethrowRuntimeExceptionsFromTheTaskUnchanged() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> executor.execute("matches", () -> {
+                throw new IllegalArgumentException("Invalid salt");
+            })
+        );
+
+        assertEquals("Invalid salt", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should reject immediately when the worker and queue are full")
+    void shouldRejectImmediatelyWhenTheWorkerAndQueueAreFull() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.execute("matches", () -> {
+            started.countDown();
+            return await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute("matches", () -> true));
+        waitForQueueDepth(1);
+
+        // When & Then
+        ServiceUnavailableException exception = assertThrows(
+            ServiceUnavailableException.class,
+            () -> executor.execute("matches", () -> true)
+        );
+
+        assertEquals("Authentication service is busy. Please try again shortly.", exception.getMessage());
+        assertEquals(1.0, meterRegistry.counter("auth.hashing.rejected").count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should give up with service unavailable when the result takes too long")
+    void shouldGiveUpWithServiceUnavailableWhenTheResultTakesTooLong() throws InterruptedException {
+        // Given
+        executor.shutdown();
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 1, 50);
+
+        // When & Then
+        assertThrows(ServiceUnavailableException.class, () -> executor.execute("matches", () -> await(release)));
+        assertEquals(1.0, meterRegistry.counter("auth.hashing.rejected").count());
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("auth.hashing.queue.depth").gauge().value() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
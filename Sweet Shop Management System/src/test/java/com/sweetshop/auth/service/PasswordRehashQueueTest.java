@@ -0,0 +1,138 @@
+package com.sweetshop.auth.service;
+
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.User;
+import com.sweetshop.user.repository.UserRepository;
+import com.sweetshop.user.service.UserDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Password Rehash Queue Tests")
+class PasswordRehashQueueTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor passwordHashing;
+    private PasswordRehashQueue rehashQueue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashing = new PasswordHashingExecutor(meterRegistry, 1, 16, 5000);
+        rehashQueue = new PasswordRehashQueue(userRepository, passwordEncoder, passwordHashing, userDirectory,
+            transactionManager, meterRegistry, 2, 50, 500);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        rehashQueue.stop();
+        passwordHashing.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should rewrite queued hashes in one transaction and invalidate the cached users")
+    void shouldRewriteQueuedHashesInOneTransactionAndInvalidateTheCachedUsers() {
+        // Given
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> "rehashed-" + invocation.getArgument(0));
+        when(userRepository.replacePasswordHash(1L, "oldHash1", "rehashed-password123")).thenReturn(1);
+        when(userRepository.replacePasswordHash(2L, "oldHash2", "rehashed-secret456")).thenReturn(1);
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+        rehashQueue.submit(user(2L, "bob", "oldHash2"), "secret456");
+
+        // When
+        rehashQueue.flush();
+
+        // Then
+        assertEquals(0, rehashQueue.pendingCount());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(userDirectory, times(1)).invalidate("alice");
+        verify(userDirectory, times(1)).invalidate("bob");
+        assertEquals(2.0, meterRegistry.counter("auth.password.rehashed").count());
+    }
+
+    @Test
+    @DisplayName("Should queue each user only once while a rehash is pending")
+    void shouldQueueEachUserOnlyOnceWhileARehashIsPending() {
+        // When
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+
+        // Then
+        assertEquals(1, rehashQueue.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should drop rehashes when the buffer is full instead of blocking the login")
+    void shouldDropRehashesWhenTheBufferIsFullInsteadOfBlockingTheLogin() {
+        // When
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+        rehashQueue.submit(user(2L, "bob", "oldHash2"), "secret456");
+        rehashQueue.submit(user(3L, "carol", "oldHash3"), "hunter789");
+
+        // Then
+        assertEquals(2, rehashQueue.pendingCount());
+        assertEquals(1.0, meterRegistry.counter("auth.password.rehash.dropped").count());
+    }
+
+    @Test
+    @DisplayName("Should leave a password changed in the meantime untouched")
+    void shouldLeaveAPasswordChangedInTheMeantimeUntouched() {
+        // Given
+        when(passwordEncoder.encode(any())).thenReturn("newHash1");
+        when(userRepository.replacePasswordHash(1L, "oldHash1", "newHash1")).thenReturn(0);
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+
+        // When
+        rehashQueue.flush();
+
+        // Then
+        verify(userDirectory, never()).invalidate(anyString());
+        assertEquals(0.0, meterRegistry.counter("auth.password.rehashed").count());
+    }
+
+    @Test
+    @DisplayName("Should accept the same user again once its rehash has been processed")
+    void shouldAcceptTheSameUserAgainOnceItsRehashHasBeenProcessed() {
+        // Given
+        when(passwordEncoder.encode(any())).thenReturn("newHash1");
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+        rehashQueue.flush();
+
+        // When
+        rehashQueue.submit(user(1L, "alice", "oldHash1"), "password123");
+
+        // Then
+        assertEquals(1, rehashQueue.pendingCount());
+        verify(userRepository, times(1)).replacePasswordHash(anyLong(), anyString(), anyString());
+    }
+
+    private static User user(Long id, String username, String passwordHash) {
+        return new User(id, username, passwordHash, Role.USER);
+    }
+}
@@ -0,0 +1,195 @@
+package com.sweetshop.common.idempotency;
+
+import com.sweetshop.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Idempotency Store Tests")
+class IdempotencyStoreTest {
+
+    private MutableClock clock;
+    private IdempotencyStore idempotencyStore;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        idempotencyStore = new IdempotencyStore(2, Duration.ofMinutes(10), Duration.ofSeconds(5), clock);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should replay the stored result for a repeated key without running the action again")
+    void shouldReplayTheStoredResultForARepeatedKey() {
+        // When
+        String first = idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+        String retry = idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+
+        // Then
+        assertEquals("purchase-1", first);
+        assertEquals("purchase-1", retry);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should make a concurrent duplicate wait for the in-flight request")
+    void shouldMakeAConcurrentDuplicateWaitForTheInFlightRequest() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+            idempotencyStore.execute("purchase:2", "key-1", "1:5", () -> {
+                started.countDown();
+                await(release);
+                return purchase();
+            }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() ->
+            idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase));
+        release.countDown();
+
+        // Then
+        assertEquals("purchase-1", original.get(5, TimeUnit.SECONDS));
+        assertEquals("purchase-1", duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should reject a reused key with a different request")
+    void shouldRejectAReusedKeyWithADifferentRequest() {
+        // Given
+        idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+
+        // When & Then
+        BadRequestException exception = assertThrows(
+            BadRequestException.class,
+            () -> idempotencyStore.execute("purchase:2", "key-1", "1:6", this::purchase)
+        );
+
+        assertEquals("Idempotency-Key has already been used for a different request", exception.getMessage());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should run the action again after a failed attempt or once the result has expired")
+    void shouldRunTheActionAgainAfterAFailureOrExpiry() {
+        // Given
+        assertThrows(BadRequestException.class, () -> idempotencyStore.execute("purchase:2", "key-1", "1:5", () -> {
+            throw new BadRequestException("Insufficient quantity available. Available: 0, Requested: 5");
+        }));
+
+        // When
+        String afterFailure = idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+        clock.advance(Duration.ofMinutes(11));
+        String afterExpiry = idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+
+        // Then
+        assertEquals("purchase-1", afterFailure);
+        assertEquals("purchase-2", afterExpiry);
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest completed entries when the store is full")
+    void shouldEvictTheOldestCompletedEntriesWhenTheStoreIsFull() {
+        // When
+        idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+        idempotencyStore.execute("purchase:2", "key-2", "1:5", this::purchase);
+        idempotencyStore.execute("purchase:2", "key-3", "1:5", this::purchase);
+
+        // Then
+        assertEquals(2, idempotencyStore.size());
+        assertEquals("purchase-4", idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase));
+    }
+
+    @Test
+    @DisplayName("Should evict completed entries behind an in-flight one instead of stopping at it")
+    void shouldEvictCompletedEntriesBehindAnInFlightOne() {
+        // When
+        String outer = idempotencyStore.execute("purchase:2", "key-1", "1:5", () -> {
+            idempotencyStore.execute("purchase:2", "key-2", "1:5", this::purchase);
+            idempotencyStore.execute("purchase:2", "key-3", "1:5", this::purchase);
+            assertEquals(2, idempotencyStore.size());
+            return purchase();
+        });
+
+        // Then
+        assertEquals("purchase-3", outer);
+        assertEquals("purchase-3", idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase));
+        assertEquals("purchase-2", idempotencyStore.execute("purchase:2", "key-3", "1:5", this::purchase));
+        assertEquals("purchase-4", idempotencyStore.execute("purchase:2", "key-2", "1:5", this::purchase));
+    }
+
+    @Test
+    @DisplayName("Should not let failed attempts take up capacity")
+    void shouldNotLetFailedAttemptsTakeUpCapacity() {
+        // Given
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(BadRequestException.class, () -> idempotencyStore.execute("purchase:2", "key-1", "1:5", () -> {
+                throw new BadRequestException("Insufficient quantity available. Available: 0, Requested: 5");
+            }));
+        }
+
+        // When
+        idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase);
+        idempotencyStore.execute("purchase:2", "key-2", "1:5", this::purchase);
+
+        // Then
+        assertEquals(2, idempotencyStore.size());
+        assertEquals("purchase-1", idempotencyStore.execute("purchase:2", "key-1", "1:5", this::purchase));
+        assertEquals(2, executions.get());
+    }
+
+    private String purchase() {
+        return "purchase-" + executions.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Coalescing Stock Decrementer Tests")
+class CoalescingStockDecrementerTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CoalescingStockDecrementer decrementer;
+    private Sweet existingSweet;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        decrementer = new CoalescingStockDecrementer(inventoryRepository, transactionManager, meterRegistry, 64, 50_000, 1);
+
+        existingSweet = new Sweet();
+        existingSweet.setId(1L);
+        existingSweet.setName("Gulab Jamun");
+        existingSweet.setQuantity(10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        decrementer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should apply queued purchases in one batch and settle them in arrival order")
+    void shouldApplyQueuedPurchasesInOneBatchAndSettleThemInArrivalOrder() throws Exception {
+        // Given
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.decreaseQuantity(1L, 8)).thenReturn(1);
+
+        // When
+        CompletableFuture<InventoryResponse> first = decrementer.submit(1L, 4);
+        CompletableFuture<InventoryResponse> second = decrementer.submit(1L, 4);
+        CompletableFuture<InventoryResponse> third = decrementer.submit(1L, 4);
+
+        // Then
+        assertEquals(6, first.get().getQuantity());
+        assertEquals(2, second.get().getQuantity());
+        ExecutionException exception = assertThrows(ExecutionException.class, third::get);
+        assertInstanceOf(BadRequestException.class, exception.getCause());
+        assertEquals("Insufficient quantity available. Available: 2, Requested: 4", exception.getCause().getMessage());
+
+        verify(inventoryRepository, times(1)).findByIdWithLock(1L);
+        verify(inventoryRepository, times(1)).decreaseQuantity(1L, 8);
+
+        DistributionSummary batchSizes = meterRegistry.get("inventory.purchase.coalescer.batch.size").summary();
+        assertEquals(1, batchSizes.count());
+        assertEquals(3.0, batchSizes.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should drop the queue of a sweet once its purchases have drained")
+    void shouldDropTheQueueOfASweetOnceItsPurchasesHaveDrained() throws InterruptedException {
+        // When
+        CompletableFuture<InventoryResponse> purchase = decrementer.submit(99L, 1);
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, purchase::get);
+        assertEquals("Sweet not found with id: 99", exception.getCause().getMessage());
+        decrementer.shutdown();
+        assertEquals(0, decrementer.queueCount());
+    }
+
+    @Test
+    @DisplayName("Should not write when every purchase in the batch is rejected")
+    void shouldNotWriteWhenEveryPurchaseInTheBatchIsRejected() {
+        // Given
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+
+        // When & Then
+        BadRequestException exception = assertThrows(
+            BadRequestException.class,
+            () -> decrementer.decrement(1L, 11)
+        );
+
+        assertEquals("Insufficient quantity available. Available: 10, Requested: 11", exception.getMessage());
+        verify(inventoryRepository, never()).decreaseQuantity(anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,128 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.inventory.domain.Inventory;
+import com.sweetshop.inventory.domain.InventoryMovementType;
+import com.sweetshop.inventory.dto.InventoryDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Inventory Ledger Writer Tests")
+class InventoryLedgerWriterTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryLedgerWriter ledgerWriter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ledgerWriter = new InventoryLedgerWriter(entityManager, transactionManager, meterRegistry, 16, 2, 200, 1000, 2, 0);
+    }
+
+    @Test
+    @DisplayName("Should buffer entries without touching the database until flushed")
+    void shouldBufferEntriesWithoutTouchingTheDatabaseUntilFlushed() {
+        // When
+        ledgerWriter.recordPurchase(1L, 2L, 5, new BigDecimal("50.00"));
+        ledgerWriter.recordRestock(1L, 1L, 20, new BigDecimal("50.00"));
+
+        // Then
+        assertEquals(2, ledgerWriter.pendingCount());
+        verifyNoInteractions(entityManager, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should write buffered entries in batches on shutdown")
+    void shouldWriteBufferedEntriesInBatchesOnShutdown() throws InterruptedException {
+        // Given
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        ledgerWriter.recordPurchase(1L, 2L, 5, new BigDecimal("50.00"));
+        ledgerWriter.recordPurchase(2L, 2L, 1, new BigDecimal("20.00"));
+        ledgerWriter.recordRestock(1L, 1L, 20, new BigDecimal("50.00"));
+
+        // When
+        ledgerWriter.stop();
+
+        // Then
+        ArgumentCaptor<Inventory> persisted = ArgumentCaptor.forClass(Inventory.class);
+        verify(entityManager, times(3)).persist(persisted.capture());
+        verify(entityManager, times(2)).flush();
+        verify(session, times(2)).setJdbcBatchSize(2);
+        verify(transactionManager, times(2)).commit(any());
+
+        List<Inventory> entries = persisted.getAllValues();
+        assertEquals(InventoryMovementType.PURCHASE, entries.get(0).getType());
+        assertEquals(2L, entries.get(0).getUserId());
+        assertEquals(new BigDecimal("50.00"), entries.get(0).getUnitPrice());
+        assertEquals(InventoryMovementType.RESTOCK, entries.get(2).getType());
+        assertEquals(0, ledgerWriter.pendingCount());
+        assertEquals(3.0, meterRegistry.get("inventory.ledger.written").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should drop entries instead of blocking when the buffer is full")
+    void shouldDropEntriesInsteadOfBlockingWhenTheBufferIsFull() {
+        // Given
+        ledgerWriter = new InventoryLedgerWriter(entityManager, transactionManager, meterRegistry, 1, 2, 200, 1000, 2, 0);
+
+        // When
+        ledgerWriter.recordPurchase(1L, 2L, 5, new BigDecimal("50.00"));
+        ledgerWriter.recordPurchase(2L, 2L, 1, new BigDecimal("20.00"));
+
+        // Then
+        assertEquals(1, ledgerWriter.pendingCount());
+        assertEquals(1.0, meterRegistry.get("inventory.ledger.dropped").counter().count());
+        verifyNoInteractions(entityManager, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should dead-letter only the failing entries once a batch runs out of attempts")
+    void shouldDeadLetterOnlyTheFailingEntriesOnceABatchRunsOutOfAttempts() {
+        // Given
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        doAnswer(invocation -> {
+            if (invocation.<Inventory>getArgument(0).getSweetId() == 2L) {
+                throw new IllegalStateException("constraint violation");
+            }
+            return null;
+        }).when(entityManager).persist(any(Inventory.class));
+        List<InventoryDto> batch = List.of(
+            new InventoryDto(1L, 2L, InventoryMovementType.PURCHASE, 5, new BigDecimal("50.00"), Instant.now()),
+            new InventoryDto(2L, 2L, InventoryMovementType.PURCHASE, 1, new BigDecimal("20.00"), Instant.now()));
+
+        // When
+        boolean settledOnFirstAttempt = ledgerWriter.tryWrite(batch, 1);
+        boolean settledOnLastAttempt = ledgerWriter.tryWrite(batch, 2);
+
+        // Then
+        assertFalse(settledOnFirstAttempt);
+        assertTrue(settledOnLastAttempt);
+        assertEquals(1.0, meterRegistry.get("inventory.ledger.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("inventory.ledger.dead-lettered").counter().count());
+    }
+}
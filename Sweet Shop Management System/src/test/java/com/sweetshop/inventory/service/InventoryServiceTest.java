@@ -1,23 +1,34 @@
 package com.sweetshop.inventory.service;
 
 import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.InvalidOperationException;
 import com.sweetshop.exception.ResourceNotFoundException;
 import com.sweetshop.exception.UnauthorizedException;
+import com.sweetshop.inventory.dto.BatchPurchaseItem;
+import com.sweetshop.inventory.dto.BatchPurchaseLineStatus;
+import com.sweetshop.inventory.dto.BatchPurchaseRequest;
+import com.sweetshop.inventory.dto.BatchPurchaseResponse;
 import com.sweetshop.inventory.dto.InventoryRequest;
 import com.sweetshop.inventory.dto.InventoryResponse;
 import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.inventory.repository.StockLevel;
 import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.service.SweetCache;
+import com.sweetshop.sweet.service.SweetChangeLog;
 import com.sweetshop.user.domain.Role;
 import com.sweetshop.user.domain.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,7 +42,24 @@ class InventoryServiceTest {
     @Mock
     private InventoryRepository inventoryRepository;
 
-    @InjectMocks
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private InventoryLedgerWriter ledgerWriter;
+
+    @Mock
+    private SweetCache sweetCache;
+
+    @Mock
+    private SweetIndexMaintainer indexMaintainer;
+
+    @Mock
+    private SweetChangeLog changeLog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private InventoryServiceImpl inventoryService;
 
     private InventoryRequest purchaseRequest;
@@ -42,6 +70,8 @@ class InventoryServiceTest {
 
     @BeforeEach
     void setUp() {
+        inventoryService = serviceWith(PurchaseStrategy.PESSIMISTIC);
+
         purchaseRequest = new InventoryRequest();
         purchaseRequest.setSweetId(1L);
         purchaseRequest.setQuantity(5);
@@ -68,12 +98,25 @@ class InventoryServiceTest {
         regularUser.setRole(Role.USER);
     }
 
+    private InventoryServiceImpl serviceWith(PurchaseStrategy strategy) {
+        return new InventoryServiceImpl(
+            inventoryRepository,
+            List.of(new PessimisticStockDecrementer(inventoryRepository), new AtomicStockDecrementer(inventoryRepository)),
+            shardedStockService,
+            ledgerWriter,
+            sweetCache,
+            indexMaintainer,
+            strategy
+        );
+    }
+
     @Test
     @DisplayName("Should decrease quantity when purchase is successful")
     void shouldDecreaseQuantityWhenPurchaseIsSuccessful() {
         // Given
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
-        when(inventoryRepository.save(any(Sweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        existingSweet.setVersion(3L);
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.decreaseQuantity(1L, 5)).thenReturn(1);
 
         // When
         InventoryResponse response = inventoryService.purchase(purchaseRequest, regularUser);
@@ -83,8 +126,12 @@ class InventoryServiceTest {
         assertEquals(1L, response.getSweetId());
         assertEquals("Gulab Jamun", response.getSweetName());
         assertEquals(95, response.getQuantity());
-        verify(inventoryRepository, times(1)).findById(1L);
-        verify(inventoryRepository, times(1)).save(any(Sweet.class));
+        verify(inventoryRepository, times(1)).findByIdWithLock(1L);
+        verify(inventoryRepository, times(1)).decreaseQuantity(1L, 5);
+        verify(inventoryRepository, never()).save(any(Sweet.class));
+        verify(ledgerWriter, times(1)).recordPurchase(1L, 2L, 5, new BigDecimal("50.00"));
+        verify(sweetCache, times(1)).invalidate(1L);
+        verify(indexMaintainer, times(1)).stockChanged(1L, 4L, 95);
     }
 
     @Test
@@ -100,7 +147,8 @@ class InventoryServiceTest {
         );
 
         assertEquals("Purchase quantity must be greater than zero", exception.getMessage());
-        verify(inventoryRepository, never()).findById(anyLong());
+        verify(inventoryRepository, never()).findByIdWithLock(anyLong());
+        verifyNoInteractions(ledgerWriter);
         verify(inventoryRepository, never()).save(any(Sweet.class));
     }
 
@@ -109,7 +157,7 @@ class InventoryServiceTest {
     void shouldThrowBadRequestExceptionWhenPurchaseQuantityExceedsAvailableQuantity() {
         // Given
         purchaseRequest.setQuantity(150);
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
 
         // When & Then
         BadRequestException exception = assertThrows(
@@ -118,7 +166,8 @@ class InventoryServiceTest {
         );
 
         assertEquals("Insufficient quantity available. Available: 100, Requested: 150", exception.getMessage());
-        verify(inventoryRepository, times(1)).findById(1L);
+        verify(inventoryRepository, times(1)).findByIdWithLock(1L);
+        verify(inventoryRepository, never()).decreaseQuantity(anyLong(), anyInt());
         verify(inventoryRepository, never()).save(any(Sweet.class));
     }
 
@@ -126,7 +175,7 @@ class InventoryServiceTest {
     @DisplayName("Should throw ResourceNotFoundException when sweet not found during purchase")
     void shouldThrowResourceNotFoundExceptionWhenSweetNotFoundDuringPurchase() {
         // Given
-        when(inventoryRepository.findById(999L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findByIdWithLock(999L)).thenReturn(Optional.empty());
         purchaseRequest.setSweetId(999L);
 
         // When & Then
@@ -136,7 +185,7 @@ class InventoryServiceTest {
         );
 
         assertEquals("Sweet not found with id: 999", exception.getMessage());
-        verify(inventoryRepository, times(1)).findById(999L);
+        verify(inventoryRepository, times(1)).findByIdWithLock(999L);
         verify(inventoryRepository, never()).save(any(Sweet.class));
     }
 
@@ -144,8 +193,8 @@ class InventoryServiceTest {
     @DisplayName("Should increase quantity when restock is successful")
     void shouldIncreaseQuantityWhenRestockIsSuccessful() {
         // Given
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
-        when(inventoryRepository.save(any(Sweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.increaseQuantity(1L, 50)).thenReturn(1);
 
         // When
         InventoryResponse response = inventoryService.restock(restockRequest, adminUser);
@@ -155,16 +204,14 @@ class InventoryServiceTest {
         assertEquals(1L, response.getSweetId());
         assertEquals("Gulab Jamun", response.getSweetName());
         assertEquals(150, response.getQuantity());
-        verify(inventoryRepository, times(1)).findById(1L);
-        verify(inventoryRepository, times(1)).save(any(Sweet.class));
+        verify(inventoryRepository, times(1)).findByIdWithLock(1L);
+        verify(inventoryRepository, times(1)).increaseQuantity(1L, 50);
+        verify(inventoryRepository, never()).save(any(Sweet.class));
     }
 
     @Test
     @DisplayName("Should throw UnauthorizedException when regular user tries to restock")
     void shouldThrowUnauthorizedExceptionWhenRegularUserTriesToRestock() {
-        // Given
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
-
         // When & Then
         UnauthorizedException exception = assertThrows(
             UnauthorizedException.class,
@@ -172,8 +219,8 @@ class InventoryServiceTest {
         );
 
         assertEquals("Only ADMIN users can restock inventory", exception.getMessage());
-        verify(inventoryRepository, times(1)).findById(1L);
-        verify(inventoryRepository, never()).save(any(Sweet.class));
+        verify(inventoryRepository, never()).findByIdWithLock(anyLong());
+        verify(inventoryRepository, never()).increaseQuantity(anyLong(), anyInt());
     }
 
     @Test
@@ -189,7 +236,7 @@ class InventoryServiceTest {
         );
 
         assertEquals("Restock quantity must be greater than zero", exception.getMessage());
-        verify(inventoryRepository, never()).findById(anyLong());
+        verify(inventoryRepository, never()).findByIdWithLock(anyLong());
         verify(inventoryRepository, never()).save(any(Sweet.class));
     }
 
@@ -197,7 +244,7 @@ class InventoryServiceTest {
     @DisplayName("Should throw ResourceNotFoundException when sweet not found during restock")
     void shouldThrowResourceNotFoundExceptionWhenSweetNotFoundDuringRestock() {
         // Given
-        when(inventoryRepository.findById(999L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findByIdWithLock(999L)).thenReturn(Optional.empty());
         restockRequest.setSweetId(999L);
 
         // When & Then
@@ -207,8 +254,8 @@ class InventoryServiceTest {
         );
 
         assertEquals("Sweet not found with id: 999", exception.getMessage());
-        verify(inventoryRepository, times(1)).findById(999L);
-        verify(inventoryRepository, never()).save(any(Sweet.class));
+        verify(inventoryRepository, times(1)).findByIdWithLock(999L);
+        verify(inventoryRepository, never()).increaseQuantity(anyLong(), anyInt());
     }
 
     @Test
@@ -217,7 +264,7 @@ class InventoryServiceTest {
         // Given
         existingSweet.setQuantity(3);
         purchaseRequest.setQuantity(5);
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
 
         // When & Then
         BadRequestException exception = assertThrows(
@@ -226,8 +273,8 @@ class InventoryServiceTest {
         );
 
         assertEquals("Insufficient quantity available. Available: 3, Requested: 5", exception.getMessage());
-        verify(inventoryRepository, times(1)).findById(1L);
-        verify(inventoryRepository, never()).save(any(Sweet.class));
+        verify(inventoryRepository, times(1)).findByIdWithLock(1L);
+        verify(inventoryRepository, never()).decreaseQuantity(anyLong(), anyInt());
     }
 
     @Test
@@ -236,8 +283,8 @@ class InventoryServiceTest {
         // Given
         existingSweet.setQuantity(5);
         purchaseRequest.setQuantity(5);
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
-        when(inventoryRepository.save(any(Sweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.decreaseQuantity(1L, 5)).thenReturn(1);
 
         // When
         InventoryResponse response = inventoryService.purchase(purchaseRequest, regularUser);
@@ -245,19 +292,18 @@ class InventoryServiceTest {
         // Then
         assertNotNull(response);
         assertEquals(0, response.getQuantity());
-        verify(inventoryRepository, times(1)).findById(1L);
-        verify(inventoryRepository, times(1)).save(any(Sweet.class));
+        verify(inventoryRepository, times(1)).findByIdWithLock(1L);
+        verify(inventoryRepository, times(1)).decreaseQuantity(1L, 5);
     }
 
     @Test
     @DisplayName("Should handle multiple restocks correctly")
     void shouldHandleMultipleRestocksCorrectly() {
         // Given
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
-        when(inventoryRepository.save(any(Sweet.class))).thenAnswer(invocation -> {
-            Sweet saved = invocation.getArgument(0);
-            existingSweet.setQuantity(saved.getQuantity());
-            return saved;
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.increaseQuantity(1L, 50)).thenAnswer(invocation -> {
+            existingSweet.setQuantity(existingSweet.getQuantity() + 50);
+            return 1;
         });
 
         // When - First restock
@@ -269,10 +315,200 @@ class InventoryServiceTest {
 
         // Then
         assertEquals(200, secondResponse.getQuantity());
-        verify(inventoryRepository, times(2)).findById(1L);
-        verify(inventoryRepository, times(2)).save(any(Sweet.class));
+        verify(inventoryRepository, times(2)).findByIdWithLock(1L);
+        verify(inventoryRepository, times(2)).increaseQuantity(1L, 50);
     }
-}
 
+    @Test
+    @DisplayName("Should purchase with a single conditional update when strategy is ATOMIC")
+    void shouldPurchaseWithSingleConditionalUpdateWhenStrategyIsAtomic() {
+        // Given
+        inventoryService = serviceWith(PurchaseStrategy.ATOMIC);
+        StockLevel stockLevel = mock(StockLevel.class);
+        when(stockLevel.getId()).thenReturn(1L);
+        when(stockLevel.getName()).thenReturn("Gulab Jamun");
+        when(stockLevel.getQuantity()).thenReturn(95);
+        when(inventoryRepository.decreaseQuantityReturning(1L, 5)).thenReturn(Optional.of(stockLevel));
 
+        // When
+        InventoryResponse response = inventoryService.purchase(purchaseRequest, regularUser);
 
+        // Then
+        assertEquals(95, response.getQuantity());
+        assertEquals("Gulab Jamun", response.getSweetName());
+        verify(inventoryRepository, never()).findByIdWithLock(anyLong());
+        verify(inventoryRepository, never()).findById(anyLong());
+        verify(inventoryRepository, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    @DisplayName("Should report available quantity when ATOMIC purchase is rejected")
+    void shouldReportAvailableQuantityWhenAtomicPurchaseIsRejected() {
+        // Given
+        inventoryService = serviceWith(PurchaseStrategy.ATOMIC);
+        existingSweet.setQuantity(3);
+        when(inventoryRepository.decreaseQuantityReturning(1L, 5)).thenReturn(Optional.empty());
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
+
+        // When & Then
+        BadRequestException exception = assertThrows(
+            BadRequestException.class,
+            () -> inventoryService.purchase(purchaseRequest, regularUser)
+        );
+
+        assertEquals("Insufficient quantity available. Available: 3, Requested: 5", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should fail fast when configured strategy has no decrementer")
+    void shouldFailFastWhenConfiguredStrategyHasNoDecrementer() {
+        assertThrows(IllegalStateException.class, () -> serviceWith(PurchaseStrategy.OPTIMISTIC));
+    }
+
+    @Test
+    @DisplayName("Should purchase whole cart with one locked read and one set-based update")
+    void shouldPurchaseWholeCartWithOneLockedReadAndOneSetBasedUpdate() {
+        // Given
+        Sweet rasgulla = new Sweet();
+        rasgulla.setId(2L);
+        rasgulla.setName("Rasgulla");
+        rasgulla.setQuantity(10);
+
+        BatchPurchaseRequest request = cartOf(item(2L, 4), item(1L, 5), item(2L, 1));
+        when(inventoryRepository.findAllByIdWithLock(any())).thenReturn(List.of(existingSweet, rasgulla));
+        when(inventoryRepository.decreaseQuantities(new Long[]{1L, 2L}, new Integer[]{5, 5})).thenReturn(2);
+
+        // When
+        BatchPurchaseResponse response = inventoryService.purchaseAll(request, regularUser);
+
+        // Then
+        assertTrue(response.isSuccess());
+        assertEquals(2, response.getLines().size());
+        assertEquals(1L, response.getLines().get(0).getSweetId());
+        assertEquals(95, response.getLines().get(0).getAvailableQuantity());
+        assertEquals(5, response.getLines().get(1).getAvailableQuantity());
+        assertTrue(response.getLines().stream().allMatch(line -> line.getStatus() == BatchPurchaseLineStatus.PURCHASED));
+        verify(inventoryRepository, never()).decreaseQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should reject whole cart and report each line when one item is short")
+    void shouldRejectWholeCartAndReportEachLineWhenOneItemIsShort() {
+        // Given
+        BatchPurchaseRequest request = cartOf(item(1L, 5), item(2L, 1), item(999L, 1));
+        Sweet rasgulla = new Sweet();
+        rasgulla.setId(2L);
+        rasgulla.setName("Rasgulla");
+        rasgulla.setQuantity(0);
+        when(inventoryRepository.findAllByIdWithLock(any())).thenReturn(List.of(existingSweet, rasgulla));
+
+        // When
+        BatchPurchaseResponse response = inventoryService.purchaseAll(request, regularUser);
+
+        // Then
+        assertFalse(response.isSuccess());
+        assertEquals(BatchPurchaseLineStatus.SKIPPED, response.getLines().get(0).getStatus());
+        assertEquals(BatchPurchaseLineStatus.INSUFFICIENT_QUANTITY, response.getLines().get(1).getStatus());
+        assertEquals(BatchPurchaseLineStatus.NOT_FOUND, response.getLines().get(2).getStatus());
+        verify(inventoryRepository, never()).decreaseQuantities(any(), any());
+    }
+
+    private static BatchPurchaseItem item(Long sweetId, int quantity) {
+        BatchPurchaseItem item = new BatchPurchaseItem();
+        item.setSweetId(sweetId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static BatchPurchaseRequest cartOf(BatchPurchaseItem... items) {
+        BatchPurchaseRequest request = new BatchPurchaseRequest();
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    @Test
+    @DisplayName("Should retry OPTIMISTIC purchase after version conflicts and succeed on a fresh read")
+    void shouldRetryOptimisticPurchaseAfterVersionConflictsAndSucceedOnAFreshRead() {
+        // Given
+        inventoryService = optimisticService(3);
+        when(inventoryRepository.findById(1L)).thenAnswer(invocation -> Optional.of(freshSweet(100)));
+        when(inventoryRepository.saveAndFlush(any(Sweet.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, 1L))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, 1L))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        InventoryResponse response = inventoryService.purchase(purchaseRequest, regularUser);
+
+        // Then
+        assertEquals(95, response.getQuantity());
+        verify(inventoryRepository, times(3)).findById(1L);
+        verify(inventoryRepository, times(3)).saveAndFlush(any(Sweet.class));
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(sweetCache, times(1)).invalidate(1L);
+        verify(ledgerWriter, times(1)).recordPurchase(1L, 2L, 5, new BigDecimal("50.00"));
+    }
+
+    @Test
+    @DisplayName("Should surface a conflict error when OPTIMISTIC retries run out")
+    void shouldSurfaceAConflictErrorWhenOptimisticRetriesRunOut() {
+        // Given
+        inventoryService = optimisticService(3);
+        when(inventoryRepository.findById(1L)).thenAnswer(invocation -> Optional.of(freshSweet(100)));
+        when(inventoryRepository.saveAndFlush(any(Sweet.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, 1L));
+
+        // When & Then
+        InvalidOperationException exception = assertThrows(
+            InvalidOperationException.class,
+            () -> inventoryService.purchase(purchaseRequest, regularUser)
+        );
+
+        assertEquals("Purchase failed due to concurrent updates. Please try again.", exception.getMessage());
+        verify(inventoryRepository, times(3)).saveAndFlush(any(Sweet.class));
+        verify(sweetCache, never()).invalidate(anyLong());
+        verify(ledgerWriter, never()).recordPurchase(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should not retry OPTIMISTIC purchase when stock is insufficient")
+    void shouldNotRetryOptimisticPurchaseWhenStockIsInsufficient() {
+        // Given
+        inventoryService = optimisticService(3);
+        when(inventoryRepository.findById(1L)).thenAnswer(invocation -> Optional.of(freshSweet(3)));
+
+        // When & Then
+        BadRequestException exception = assertThrows(
+            BadRequestException.class,
+            () -> inventoryService.purchase(purchaseRequest, regularUser)
+        );
+
+        assertEquals("Insufficient quantity available. Available: 3, Requested: 5", exception.getMessage());
+        verify(inventoryRepository, times(1)).findById(1L);
+        verify(inventoryRepository, never()).saveAndFlush(any(Sweet.class));
+    }
+
+    private InventoryServiceImpl optimisticService(int maxAttempts) {
+        return new InventoryServiceImpl(
+            inventoryRepository,
+            List.of(new OptimisticStockDecrementer(inventoryRepository, changeLog, transactionManager, maxAttempts, 1, 1)),
+            shardedStockService,
+            ledgerWriter,
+            sweetCache,
+            indexMaintainer,
+            PurchaseStrategy.OPTIMISTIC
+        );
+    }
+
+    private Sweet freshSweet(int quantity) {
+        // Each attempt re-reads the row, so every call returns a new entity as the persistence context would.
+        Sweet sweet = new Sweet();
+        sweet.setId(1L);
+        sweet.setName("Gulab Jamun");
+        sweet.setCategory("Indian");
+        sweet.setPrice(new BigDecimal("50.00"));
+        sweet.setQuantity(quantity);
+        return sweet;
+    }
+}
@@ -0,0 +1,268 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.exception.InvalidOperationException;
+import com.sweetshop.exception.UnauthorizedException;
+import com.sweetshop.inventory.domain.ReservationStatus;
+import com.sweetshop.inventory.domain.StockReservation;
+import com.sweetshop.inventory.dto.ReservationRequest;
+import com.sweetshop.inventory.dto.ReservationResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.inventory.repository.StockLevel;
+import com.sweetshop.inventory.repository.StockReservationRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.CategoryFacet;
+import com.sweetshop.sweet.index.FacetIndex;
+import com.sweetshop.sweet.index.FuzzyNameIndex;
+import com.sweetshop.sweet.index.NameTrigramIndex;
+import com.sweetshop.sweet.index.PriceIndex;
+import com.sweetshop.sweet.index.SuggestionIndex;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.repository.SweetRepository;
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Reservation Service Tests")
+class ReservationServiceTest {
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private ReservationExpirySweeper expirySweeper;
+
+    @Mock
+    private InventoryLedgerWriter ledgerWriter;
+
+    @Mock
+    private SweetIndexMaintainer indexMaintainer;
+
+    private ReservationServiceImpl reservationService;
+
+    private ReservationRequest holdRequest;
+    private StockReservation activeReservation;
+    private User owner;
+    private User otherUser;
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new ReservationServiceImpl(
+            reservationRepository, inventoryRepository, shardedStockService, expirySweeper, ledgerWriter, indexMaintainer,
+            600, 1800);
+
+        holdRequest = new ReservationRequest();
+        holdRequest.setSweetId(1L);
+        holdRequest.setQuantity(3);
+
+        owner = new User();
+        owner.setId(2L);
+        owner.setUsername("user");
+        owner.setRole(Role.USER);
+
+        otherUser = new User();
+        otherUser.setId(3L);
+        otherUser.setUsername("other");
+        otherUser.setRole(Role.USER);
+
+        activeReservation = new StockReservation();
+        activeReservation.setId("res-1");
+        activeReservation.setSweetId(1L);
+        activeReservation.setUserId(2L);
+        activeReservation.setQuantity(3);
+        activeReservation.setStatus(ReservationStatus.ACTIVE);
+        activeReservation.setCreatedAt(Instant.now());
+        activeReservation.setExpiresAt(Instant.now().plusSeconds(300));
+    }
+
+    @Test
+    @DisplayName("Should hold stock and schedule expiry")
+    void shouldHoldStockAndScheduleExpiry() {
+        // Given
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(sweetWithQuantity(10, false)));
+        when(shardedStockService.tryDecrease(1L, false, 3)).thenReturn(true);
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ReservationResponse response = reservationService.hold(holdRequest, owner);
+
+        // Then
+        assertNotNull(response.getReservationId());
+        assertEquals("ACTIVE", response.getStatus());
+        assertEquals(3, response.getQuantity());
+        verify(expirySweeper, times(1)).track(eq(response.getReservationId()), any(Instant.class));
+        verify(inventoryRepository, never()).findByIdWithLock(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject hold when not enough stock is available")
+    void shouldRejectHoldWhenNotEnoughStockIsAvailable() {
+        // Given
+        Sweet sweet = new Sweet();
+        sweet.setId(1L);
+        sweet.setQuantity(2);
+        when(shardedStockService.tryDecrease(1L, false, 3)).thenReturn(false);
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(sweet));
+
+        // When & Then
+        BadRequestException exception = assertThrows(
+            BadRequestException.class,
+            () -> reservationService.hold(holdRequest, owner)
+        );
+
+        assertEquals("Insufficient quantity available. Available: 2, Requested: 3", exception.getMessage());
+        verify(reservationRepository, never()).save(any(StockReservation.class));
+        verify(expirySweeper, never()).track(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject TTL above the configured maximum")
+    void shouldRejectTtlAboveTheConfiguredMaximum() {
+        // Given
+        holdRequest.setTtlSeconds(3600L);
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> reservationService.hold(holdRequest, owner));
+        verify(shardedStockService, never()).tryDecrease(anyLong(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return held stock when reservation is released")
+    void shouldReturnHeldStockWhenReservationIsReleased() {
+        // Given
+        when(reservationRepository.findById("res-1")).thenReturn(Optional.of(activeReservation));
+        when(reservationRepository.saveAndFlush(activeReservation)).thenReturn(activeReservation);
+
+        // When
+        ReservationResponse response = reservationService.release("res-1", owner);
+
+        // Then
+        assertEquals("RELEASED", response.getStatus());
+        verify(shardedStockService, times(1)).increase(1L, 3);
+    }
+
+    @Test
+    @DisplayName("Should not confirm an expired reservation")
+    void shouldNotConfirmAnExpiredReservation() {
+        // Given
+        activeReservation.setExpiresAt(Instant.now().minusSeconds(1));
+        when(reservationRepository.findById("res-1")).thenReturn(Optional.of(activeReservation));
+
+        // When & Then
+        InvalidOperationException exception = assertThrows(
+            InvalidOperationException.class,
+            () -> reservationService.confirm("res-1", owner)
+        );
+
+        assertEquals("Reservation has expired and can no longer be confirmed", exception.getMessage());
+        verify(reservationRepository, never()).saveAndFlush(any(StockReservation.class));
+    }
+
+    @Test
+    @DisplayName("Should not let another user release a reservation")
+    void shouldNotLetAnotherUserReleaseAReservation() {
+        // Given
+        when(reservationRepository.findById("res-1")).thenReturn(Optional.of(activeReservation));
+
+        // When & Then
+        assertThrows(UnauthorizedException.class, () -> reservationService.release("res-1", otherUser));
+        verify(shardedStockService, never()).increase(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should schedule expiry only after the hold commits")
+    void shouldScheduleExpiryOnlyAfterTheHoldCommits() {
+        // Given
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(sweetWithQuantity(10, false)));
+        when(shardedStockService.tryDecrease(1L, false, 3)).thenReturn(true);
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            ReservationResponse response = reservationService.hold(holdRequest, owner);
+
+            // Then
+            verify(expirySweeper, never()).track(any(), any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(expirySweeper, times(1)).track(eq(response.getReservationId()), any(Instant.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should hold from shards when the sweet row says stock is sharded")
+    void shouldHoldFromShardsWhenTheSweetRowSaysStockIsSharded() {
+        // Given
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(sweetWithQuantity(0, true)));
+        when(shardedStockService.tryDecrease(1L, true, 3)).thenReturn(true);
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ReservationResponse response = reservationService.hold(holdRequest, owner);
+
+        // Then
+        assertEquals("ACTIVE", response.getStatus());
+        verify(shardedStockService, never()).tryDecrease(1L, false, 3);
+    }
+
+    @Test
+    @DisplayName("Should drop the category's in-stock count when a hold takes the last units")
+    void shouldDropTheCategorysInStockCountWhenAHoldTakesTheLastUnits() {
+        // Given
+        FacetIndex facetIndex = new FacetIndex();
+        facetIndex.put(1L, "Indian", new BigDecimal("50.00"), 3);
+        SweetIndexMaintainer realIndexMaintainer = new SweetIndexMaintainer(mock(SweetRepository.class),
+            new NameTrigramIndex(), new FuzzyNameIndex(), new PriceIndex(), facetIndex, new SuggestionIndex());
+        reservationService = new ReservationServiceImpl(reservationRepository, inventoryRepository,
+            shardedStockService, expirySweeper, ledgerWriter, realIndexMaintainer, 600, 1800);
+
+        StockLevel soldOut = mock(StockLevel.class);
+        when(soldOut.getId()).thenReturn(1L);
+        when(soldOut.getVersion()).thenReturn(5L);
+        when(soldOut.getQuantity()).thenReturn(0);
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(sweetWithQuantity(3, false)));
+        when(shardedStockService.tryDecrease(1L, false, 3)).thenReturn(true);
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryRepository.findStockLevel(1L)).thenReturn(Optional.of(soldOut));
+
+        // When
+        reservationService.hold(holdRequest, owner);
+
+        // Then
+        CategoryFacet indian = facetIndex.facets(null, null, null, null, 10).getCategories().get(0);
+        assertEquals(1, indian.getCount());
+        assertEquals(0, indian.getInStock());
+    }
+
+    private static Sweet sweetWithQuantity(int quantity, boolean sharded) {
+        Sweet sweet = new Sweet();
+        sweet.setId(1L);
+        sweet.setQuantity(quantity);
+        sweet.setSharded(sharded);
+        return sweet;
+    }
+}
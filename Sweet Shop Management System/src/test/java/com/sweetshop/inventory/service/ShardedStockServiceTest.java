@@ -0,0 +1,191 @@
+package com.sweetshop.inventory.service;
+
+import com.sweetshop.exception.UnauthorizedException;
+import com.sweetshop.inventory.domain.StockShard;
+import com.sweetshop.inventory.dto.InventoryResponse;
+import com.sweetshop.inventory.dto.StockShardResponse;
+import com.sweetshop.inventory.repository.InventoryRepository;
+import com.sweetshop.inventory.repository.StockLevel;
+import com.sweetshop.inventory.repository.StockShardRepository;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.service.SweetCache;
+import com.sweetshop.sweet.service.SweetChangeLog;
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sharded Stock Service Tests")
+class ShardedStockServiceTest {
+
+    @Mock
+    private StockShardRepository shardRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private SweetCache sweetCache;
+
+    @Mock
+    private SweetChangeLog changeLog;
+
+    @Mock
+    private SweetIndexMaintainer indexMaintainer;
+
+    private ShardedStockServiceImpl shardedStockService;
+
+    private Sweet existingSweet;
+    private User adminUser;
+    private User regularUser;
+
+    @BeforeEach
+    void setUp() {
+        shardedStockService = new ShardedStockServiceImpl(shardRepository, inventoryRepository, sweetCache, changeLog,
+            indexMaintainer, 3);
+
+        existingSweet = new Sweet();
+        existingSweet.setId(1L);
+        existingSweet.setName("Gulab Jamun");
+        existingSweet.setPrice(new BigDecimal("50.00"));
+        existingSweet.setQuantity(10);
+
+        adminUser = new User();
+        adminUser.setId(1L);
+        adminUser.setRole(Role.ADMIN);
+
+        regularUser = new User();
+        regularUser.setId(2L);
+        regularUser.setRole(Role.USER);
+    }
+
+    @Test
+    @DisplayName("Should split stock evenly across shards when sharding is enabled")
+    void shouldSplitStockEvenlyAcrossShardsWhenShardingIsEnabled() {
+        // Given
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(shardRepository.findBySweetIdWithLock(1L)).thenReturn(new ArrayList<>());
+
+        // When
+        StockShardResponse response = shardedStockService.configure(1L, 4, adminUser);
+
+        // Then
+        assertTrue(response.isSharded());
+        assertEquals(10, response.getTotalQuantity());
+        assertEquals(List.of(3, 3, 2, 2), response.getShardQuantities());
+        assertTrue(existingSweet.isSharded());
+        assertTrue(shardedStockService.isSharded(1L));
+        verify(shardRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should take stock across locked shards when no single shard is large enough")
+    void shouldTakeStockAcrossLockedShardsWhenNoSingleShardIsLargeEnough() {
+        // Given
+        when(shardRepository.countBySweetId(1L)).thenReturn(2);
+        shardedStockService.refresh(1L);
+        StockShard first = new StockShard(10L, 1L, 0, 2);
+        StockShard second = new StockShard(11L, 1L, 1, 3);
+        when(shardRepository.decreaseQuantity(eq(1L), anyInt(), eq(4))).thenReturn(0);
+        when(shardRepository.findBySweetIdWithLock(1L)).thenReturn(List.of(first, second));
+
+        // When
+        boolean taken = shardedStockService.tryDecrease(1L, true, 4);
+
+        // Then
+        assertTrue(taken);
+        assertEquals(0, first.getQuantity());
+        assertEquals(1, second.getQuantity());
+        verify(inventoryRepository, never()).decreaseQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should use the sweet row when sweet is not sharded")
+    void shouldUseTheSweetRowWhenSweetIsNotSharded() {
+        // Given
+        when(inventoryRepository.decreaseQuantity(1L, 4)).thenReturn(1);
+
+        // When & Then
+        assertTrue(shardedStockService.tryDecrease(1L, false, 4));
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw UnauthorizedException when regular user configures shards")
+    void shouldThrowUnauthorizedExceptionWhenRegularUserConfiguresShards() {
+        assertThrows(UnauthorizedException.class, () -> shardedStockService.configure(1L, 4, regularUser));
+        verify(inventoryRepository, never()).findByIdWithLock(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should restock shards on a node that never saw sharding configured")
+    void shouldRestockShardsOnANodeThatNeverSawShardingConfigured() {
+        // Given
+        when(shardRepository.countBySweetId(1L)).thenReturn(1);
+        when(shardRepository.increaseQuantity(1L, 0, 5)).thenReturn(1);
+
+        // When
+        int updated = shardedStockService.increase(1L, true, 5);
+
+        // Then
+        assertEquals(1, updated);
+        assertTrue(shardedStockService.isSharded(1L));
+        verify(inventoryRepository, never()).increaseQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return released stock where the locked sweet row says it lives")
+    void shouldReturnReleasedStockWhereTheLockedSweetRowSaysItLives() {
+        // Given
+        when(shardRepository.countBySweetId(1L)).thenReturn(2);
+        shardedStockService.refresh(1L);
+        when(inventoryRepository.findByIdWithLock(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.increaseQuantity(1L, 3)).thenReturn(1);
+
+        // When
+        shardedStockService.increase(1L, 3);
+
+        // Then
+        assertFalse(shardedStockService.isSharded(1L));
+        verify(shardRepository, never()).increaseQuantity(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should purchase from the sweet row once sharding was disabled elsewhere")
+    void shouldPurchaseFromTheSweetRowOnceShardingWasDisabledElsewhere() {
+        // Given
+        when(shardRepository.countBySweetId(1L)).thenReturn(2);
+        shardedStockService.refresh(1L);
+        StockLevel level = mock(StockLevel.class);
+        when(level.getId()).thenReturn(1L);
+        when(level.getName()).thenReturn("Gulab Jamun");
+        when(level.getPrice()).thenReturn(new BigDecimal("50.00"));
+        when(level.getQuantity()).thenReturn(6);
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
+        when(inventoryRepository.decreaseQuantityReturning(1L, 4)).thenReturn(Optional.of(level));
+
+        // When
+        InventoryResponse response = shardedStockService.purchase(1L, 4);
+
+        // Then
+        assertEquals(6, response.getQuantity());
+        assertFalse(shardedStockService.isSharded(1L));
+        verify(shardRepository, never()).decreaseQuantity(anyLong(), anyInt(), anyInt());
+    }
+}
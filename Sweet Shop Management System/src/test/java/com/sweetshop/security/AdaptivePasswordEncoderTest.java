@@ -0,0 +1,78 @@
+package com.sweetshop.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Adaptive Password Encoder Tests")
+class AdaptivePasswordEncoderTest {
+
+    // Simulated hardware where strength 10 takes 12 ms and every extra round doubles it.
+    private static final IntToLongFunction DOUBLING = strength ->
+        TimeUnit.MILLISECONDS.toNanos(12) << Math.max(0, strength - 10) >> Math.max(0, 10 - strength);
+
+    @Test
+    @DisplayName("Should pick the highest strength that stays within the target time")
+    void shouldPickTheHighestStrengthThatStaysWithinTheTargetTime() {
+        // When
+        int strength = AdaptivePasswordEncoder.calibrate(DOUBLING, TimeUnit.MILLISECONDS.toNanos(50), 10, 16);
+
+        // Then
+        assertEquals(12, strength);
+    }
+
+    @Test
+    @DisplayName("Should keep the calibrated strength within the configured bounds")
+    void shouldKeepTheCalibratedStrengthWithinTheConfiguredBounds() {
+        // When
+        int floor = AdaptivePasswordEncoder.calibrate(DOUBLING, TimeUnit.MILLISECONDS.toNanos(1), 10, 16);
+        int ceiling = AdaptivePasswordEncoder.calibrate(DOUBLING, TimeUnit.SECONDS.toNanos(60), 10, 14);
+
+        // Then
+        assertEquals(10, floor);
+        assertEquals(14, ceiling);
+    }
+
+    @Test
+    @DisplayName("Should stop measuring once the next strength would overshoot")
+    void shouldStopMeasuringOnceTheNextStrengthWouldOvershoot() {
+        // Given
+        List<Integer> measured = new ArrayList<>();
+        IntToLongFunction recording = strength -> {
+            measured.add(strength);
+            return DOUBLING.applyAsLong(strength);
+        };
+
+        // When
+        AdaptivePasswordEncoder.calibrate(recording, TimeUnit.MILLISECONDS.toNanos(50), 10, 16);
+
+        // Then
+        assertEquals(List.of(10, 11, 12), measured);
+    }
+
+    @Test
+    @DisplayName("Should flag only stored hashes weaker than the current strength")
+    void shouldFlagOnlyStoredHashesWeakerThanTheCurrentStrength() {
+        // Given
+        AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(new SimpleMeterRegistry(), 5, 50, 10, 16);
+        String current = encoder.encode("password123");
+
+        // When & Then
+        assertEquals(5, encoder.getStrength());
+        assertTrue(encoder.matches("password123", current));
+        assertFalse(encoder.upgradeEncoding(current));
+        assertTrue(encoder.upgradeEncoding(new AdaptivePasswordEncoder(new SimpleMeterRegistry(), 4, 50, 10, 16)
+            .encode("password123")));
+        assertTrue(encoder.upgradeEncoding("$2a$04$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234"));
+        assertFalse(encoder.upgradeEncoding("$2a$12$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234"));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+}
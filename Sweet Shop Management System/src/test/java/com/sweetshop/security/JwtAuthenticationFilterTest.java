@@ -0,0 +1,80 @@
+package com.sweetshop.security;
+
+import com.sweetshop.exception.AuthenticationException;
+import com.sweetshop.user.domain.Role;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JWT Authentication Filter Tests")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate with a principal built from the verified claims")
+    void shouldAuthenticateWithAPrincipalBuiltFromTheVerifiedClaims() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-123");
+        when(jwtTokenProvider.verify("token-123"))
+                .thenReturn(new TokenClaims("admin", 1L, "ADMIN", Instant.now().plusSeconds(60)));
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(1L, principal.getId());
+        assertEquals(Role.ADMIN, principal.getRole());
+        assertEquals("admin", authentication.getName());
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+        verify(jwtTokenProvider, times(1)).verify("token-123");
+        verify(filterChain, times(1)).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens without a user id claim")
+    void shouldRejectTokensWithoutAUserIdClaim() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-123");
+        when(jwtTokenProvider.verify("token-123"))
+                .thenReturn(new TokenClaims("admin", null, "ADMIN", Instant.now().plusSeconds(60)));
+
+        // When & Then
+        assertThrows(AuthenticationException.class,
+            () -> filter.doFilter(request, new MockHttpServletResponse(), filterChain));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(filterChain);
+    }
+}
@@ -0,0 +1,104 @@
+package com.sweetshop.security;
+
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JWT Token Provider Tests")
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKeyForJWTTokenGenerationThatIsAtLeast256BitsLong";
+
+    private JwtTokenProviderImpl tokenProvider;
+    private User adminUser;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProviderImpl(SECRET, 60_000, 2);
+
+        adminUser = new User();
+        adminUser.setId(1L);
+        adminUser.setUsername("admin");
+        adminUser.setRole(Role.ADMIN);
+    }
+
+    @Test
+    @DisplayName("Should return every claim from a single verification")
+    void shouldReturnEveryClaimFromASingleVerification() {
+        // Given
+        String token = tokenProvider.generateToken(adminUser);
+
+        // When
+        TokenClaims claims = tokenProvider.verify(token);
+
+        // Then
+        assertEquals("admin", claims.getUsername());
+        assertEquals(1L, claims.getUserId());
+        assertEquals("ADMIN", claims.getRole());
+        assertTrue(claims.getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated verifications of the same token from the cache")
+    void shouldServeRepeatedVerificationsOfTheSameTokenFromTheCache() {
+        // Given
+        String token = tokenProvider.generateToken(adminUser);
+
+        // When
+        TokenClaims first = tokenProvider.verify(token);
+        TokenClaims second = tokenProvider.verify(token);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, tokenProvider.cachedTokenCount());
+    }
+
+    @Test
+    @DisplayName("Should keep the cache within its bound")
+    void shouldKeepTheCacheWithinItsBound() {
+        // When
+        for (long id = 1; id <= 3; id++) {
+            User user = new User();
+            user.setId(id);
+            user.setUsername("user" + id);
+            user.setRole(Role.USER);
+            tokenProvider.verify(tokenProvider.generateToken(user));
+        }
+
+        // Then
+        assertEquals(2, tokenProvider.cachedTokenCount());
+    }
+
+    @Test
+    @DisplayName("Should reject expired tokens")
+    void shouldRejectExpiredTokens() {
+        // Given
+        JwtTokenProviderImpl expiringProvider = new JwtTokenProviderImpl(SECRET, -1_000, 2);
+        String token = expiringProvider.generateToken(adminUser);
+
+        // When & Then
+        assertThrows(ExpiredJwtException.class, () -> expiringProvider.verify(token));
+        assertTrue(expiringProvider.isTokenExpired(token));
+        assertEquals(0, expiringProvider.cachedTokenCount());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens with a tampered signature")
+    void shouldRejectTokensWithATamperedSignature() {
+        // Given
+        String token = tokenProvider.generateToken(adminUser);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When & Then
+        assertThrows(JwtException.class, () -> tokenProvider.verify(tampered));
+        assertFalse(tokenProvider.validateToken(tampered));
+    }
+}
@@ -0,0 +1,92 @@
+package com.sweetshop.sweet.index;
+
+import com.sweetshop.sweet.dto.CategoryFacet;
+import com.sweetshop.sweet.dto.PriceBucket;
+import com.sweetshop.sweet.dto.SweetFacetsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Facet Index Tests")
+class FacetIndexTest {
+
+    private FacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        facetIndex = new FacetIndex();
+        facetIndex.put(1L, "Indian", new BigDecimal("50.00"), 100);
+        facetIndex.put(2L, "indian", new BigDecimal("30.00"), 0);
+        facetIndex.put(3L, "Premium", new BigDecimal("100.00"), 20);
+        facetIndex.put(4L, "Indian", new BigDecimal("45.00"), 10);
+    }
+
+    @Test
+    @DisplayName("Should count categories case-insensitively with price bounds")
+    void shouldCountCategoriesCaseInsensitivelyWithPriceBounds() {
+        // When
+        SweetFacetsResponse facets = facetIndex.facets(null, null, null, null, 10);
+
+        // Then
+        assertEquals(4, facets.getTotal());
+        assertEquals(new BigDecimal("30.00"), facets.getMinPrice());
+        assertEquals(new BigDecimal("100.00"), facets.getMaxPrice());
+        List<CategoryFacet> categories = facets.getCategories();
+        assertEquals(2, categories.size());
+        assertEquals("Indian", categories.get(0).getCategory());
+        assertEquals(3, categories.get(0).getCount());
+        assertEquals(2, categories.get(0).getInStock());
+        assertEquals(new BigDecimal("30.00"), categories.get(0).getMinPrice());
+        assertEquals(new BigDecimal("50.00"), categories.get(0).getMaxPrice());
+        assertEquals(1, categories.get(1).getCount());
+    }
+
+    @Test
+    @DisplayName("Should apply category, price and name filters")
+    void shouldApplyCategoryPriceAndNameFilters() {
+        // When
+        SweetFacetsResponse byPrice = facetIndex.facets("INDIAN", new BigDecimal("40.00"), null, null, 10);
+        SweetFacetsResponse byName = facetIndex.facets(null, null, new BigDecimal("60.00"), new long[] {2L, 3L}, 10);
+
+        // Then
+        assertEquals(2, byPrice.getTotal());
+        assertEquals(new BigDecimal("45.00"), byPrice.getMinPrice());
+        assertEquals(1, byName.getTotal());
+        assertEquals(0, byName.getCategories().get(0).getInStock());
+    }
+
+    @Test
+    @DisplayName("Should spread prices over equal-width histogram buckets")
+    void shouldSpreadPricesOverEqualWidthHistogramBuckets() {
+        // When
+        List<PriceBucket> histogram = facetIndex.facets(null, null, null, null, 2).getHistogram();
+
+        // Then
+        assertEquals(2, histogram.size());
+        assertEquals(new BigDecimal("30.00"), histogram.get(0).getFrom());
+        assertEquals(3, histogram.get(0).getCount());
+        assertEquals(1, histogram.get(1).getCount());
+        assertTrue(histogram.get(1).getTo().compareTo(new BigDecimal("100.00")) > 0);
+    }
+
+    @Test
+    @DisplayName("Should keep aggregates in step with updates, purchases and deletions")
+    void shouldKeepAggregatesInStepWithUpdatesPurchasesAndDeletions() {
+        // When
+        facetIndex.put(3L, "Indian", new BigDecimal("55.00"), 20);
+        facetIndex.updateQuantity(1L, 0);
+        facetIndex.remove(4L);
+
+        // Then
+        SweetFacetsResponse facets = facetIndex.facets(null, null, null, null, 10);
+        assertEquals(1, facets.getCategories().size());
+        assertEquals(3, facets.getCategories().get(0).getCount());
+        assertEquals(1, facets.getCategories().get(0).getInStock());
+        assertEquals(3, facetIndex.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.sweetshop.sweet.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fuzzy Name Index Tests")
+class FuzzyNameIndexTest {
+
+    private FuzzyNameIndex fuzzyIndex;
+
+    @BeforeEach
+    void setUp() {
+        fuzzyIndex = new FuzzyNameIndex();
+        fuzzyIndex.rebuild(Map.of(
+            1L, "Gulab Jamun",
+            2L, "Rasgulla",
+            3L, "Kaju Katli",
+            4L, "Rasmalai"
+        ));
+    }
+
+    @Test
+    @DisplayName("Should find misspelt names ranked by edit distance")
+    void shouldFindMisspeltNamesRankedByEditDistance() {
+        assertArrayEquals(new long[] {1L}, fuzzyIndex.search("GULAB JAMON", 2));
+        assertArrayEquals(new long[] {2L}, fuzzyIndex.search("rasgula", 1));
+        assertArrayEquals(new long[] {2L, 4L}, fuzzyIndex.search("rasgulai", 3));
+        assertArrayEquals(new long[0], fuzzyIndex.search("barfi", 2));
+    }
+
+    @Test
+    @DisplayName("Should keep only the closest matches when a limit is given")
+    void shouldKeepOnlyTheClosestMatchesWhenALimitIsGiven() {
+        assertArrayEquals(new long[] {2L}, fuzzyIndex.search("rasgulai", 3, 1));
+        assertArrayEquals(new long[] {2L, 4L}, fuzzyIndex.search("rasgulai", 3, 5));
+        assertArrayEquals(new long[0], fuzzyIndex.search("rasgulai", 3, 0));
+    }
+
+    @Test
+    @DisplayName("Should reflect renames and deletions incrementally")
+    void shouldReflectRenamesAndDeletionsIncrementally() {
+        // When
+        fuzzyIndex.put(2L, "Rasbhari");
+        fuzzyIndex.remove(1L);
+        fuzzyIndex.put(5L, "Gulab Jamun");
+
+        // Then
+        assertArrayEquals(new long[0], fuzzyIndex.search("rasgulla", 1));
+        assertArrayEquals(new long[] {5L}, fuzzyIndex.search("gulab jamun", 0));
+        assertEquals(4, fuzzyIndex.size());
+    }
+
+    @Test
+    @DisplayName("Should match a brute-force scan over a generated catalog")
+    void shouldMatchABruteForceScanOverAGeneratedCatalog() {
+        // Given
+        Random random = new Random(42);
+        Map<Long, String> names = new HashMap<>();
+        for (long id = 1; id <= 2000; id++) {
+            names.put(id, randomWord(random, 6 + random.nextInt(6)));
+        }
+        fuzzyIndex.rebuild(names);
+        for (long id = 1; id <= 2000; id += 3) {
+            fuzzyIndex.remove(id);
+        }
+
+        // When & Then
+        for (int i = 0; i < 50; i++) {
+            String query = randomWord(random, 8);
+            long[] expected = LongStream.rangeClosed(1, 2000)
+                    .filter(id -> id % 3 != 1)
+                    .filter(id -> FuzzyNameIndex.distance(query, names.get(id)) <= 2)
+                    .toArray();
+            long[] actual = fuzzyIndex.search(query, 2);
+            assertArrayEquals(expected, LongStream.of(actual).sorted().toArray());
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append("abcdeg".charAt(random.nextInt(6)));
+        }
+        return word.toString();
+    }
+}
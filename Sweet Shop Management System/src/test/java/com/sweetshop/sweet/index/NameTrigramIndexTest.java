@@ -0,0 +1,61 @@
+package com.sweetshop.sweet.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Name Trigram Index Tests")
+class NameTrigramIndexTest {
+
+    private NameTrigramIndex nameIndex;
+
+    @BeforeEach
+    void setUp() {
+        nameIndex = new NameTrigramIndex();
+        nameIndex.rebuild(Map.of(
+            1L, "Gulab Jamun",
+            2L, "Rasgulla",
+            3L, "Kaju Katli",
+            4L, "Gulab Jamun Special"
+        ));
+    }
+
+    @Test
+    @DisplayName("Should find case-insensitive substrings anywhere in the name")
+    void shouldFindCaseInsensitiveSubstringsAnywhereInTheName() {
+        assertArrayEquals(new long[] {1L, 4L}, nameIndex.search("JAMUN"));
+        assertArrayEquals(new long[] {1L, 2L, 4L}, nameIndex.search("gul"));
+        assertArrayEquals(new long[] {3L}, nameIndex.search("ju ka"));
+    }
+
+    @Test
+    @DisplayName("Should return nothing when the substring does not occur")
+    void shouldReturnNothingWhenTheSubstringDoesNotOccur() {
+        assertArrayEquals(new long[0], nameIndex.search("gulam"));
+        assertArrayEquals(new long[0], nameIndex.search("xyz"));
+    }
+
+    @Test
+    @DisplayName("Should scan names for queries shorter than a trigram")
+    void shouldScanNamesForQueriesShorterThanATrigram() {
+        assertArrayEquals(new long[] {3L}, nameIndex.search("tl"));
+    }
+
+    @Test
+    @DisplayName("Should reflect renames and deletions incrementally")
+    void shouldReflectRenamesAndDeletionsIncrementally() {
+        // When
+        nameIndex.put(2L, "Rasmalai");
+        nameIndex.remove(4L);
+        nameIndex.put(5L, "Malai Gulab");
+
+        // Then
+        assertArrayEquals(new long[] {1L, 5L}, nameIndex.search("gulab"));
+        assertArrayEquals(new long[] {2L, 5L}, nameIndex.search("malai"));
+        assertEquals(4, nameIndex.size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.sweetshop.sweet.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Price Index Tests")
+class PriceIndexTest {
+
+    private PriceIndex priceIndex;
+
+    @BeforeEach
+    void setUp() {
+        priceIndex = new PriceIndex();
+        priceIndex.rebuild(Map.of(
+            1L, new BigDecimal("50.00"),
+            2L, new BigDecimal("25.50"),
+            3L, new BigDecimal("100.00"),
+            4L, new BigDecimal("50.00")
+        ));
+    }
+
+    @Test
+    @DisplayName("Should return ids in price order with inclusive bounds")
+    void shouldReturnIdsInPriceOrderWithInclusiveBounds() {
+        assertArrayEquals(new long[] {2L, 1L, 4L}, priceIndex.idsInRange(new BigDecimal("25.50"), new BigDecimal("50")));
+        assertArrayEquals(new long[] {1L, 4L}, priceIndex.idsInRange(new BigDecimal("50.00"), new BigDecimal("50.00")));
+        assertArrayEquals(new long[] {2L, 1L}, priceIndex.idsInRange(new BigDecimal("25.50"), new BigDecimal("50.00"), 2));
+    }
+
+    @Test
+    @DisplayName("Should treat missing bounds as open ended")
+    void shouldTreatMissingBoundsAsOpenEnded() {
+        assertArrayEquals(new long[] {1L, 4L, 3L}, priceIndex.idsInRange(new BigDecimal("30.00"), null));
+        assertArrayEquals(new long[] {2L}, priceIndex.idsInRange(null, new BigDecimal("49.99")));
+        assertArrayEquals(new long[0], priceIndex.idsInRange(new BigDecimal("60.00"), new BigDecimal("70.00")));
+    }
+
+    @Test
+    @DisplayName("Should reflect price changes and deletions incrementally")
+    void shouldReflectPriceChangesAndDeletionsIncrementally() {
+        // When
+        priceIndex.put(3L, new BigDecimal("45.00"));
+        priceIndex.remove(1L);
+        priceIndex.put(5L, new BigDecimal("10.00"));
+
+        // Then
+        assertArrayEquals(new long[] {5L, 2L, 3L, 4L}, priceIndex.idsInRange(null, null));
+        assertEquals(4, priceIndex.size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.sweetshop.sweet.index;
+
+import com.sweetshop.sweet.dto.SuggestionResponse;
+import com.sweetshop.sweet.dto.SuggestionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Suggestion Index Tests")
+class SuggestionIndexTest {
+
+    private SuggestionIndex suggestionIndex;
+
+    @BeforeEach
+    void setUp() {
+        suggestionIndex = new SuggestionIndex();
+        suggestionIndex.put(1L, "Gulab Jamun", "Indian", 100);
+        suggestionIndex.put(2L, "Gujiya", "Indian", 20);
+        suggestionIndex.put(3L, "Jam Roll", "Bakery", 50);
+        suggestionIndex.put(4L, "Gummy Bears", "Gummies", 0);
+    }
+
+    @Test
+    @DisplayName("Should rank prefix matches by stock")
+    void shouldRankPrefixMatchesByStock() {
+        // When
+        List<SuggestionResponse> suggestions = suggestionIndex.suggest("GU", 10);
+
+        // Then
+        assertEquals(List.of("Gulab Jamun", "Gujiya", "Gummies", "Gummy Bears"), texts(suggestions));
+        assertEquals(SuggestionType.CATEGORY, suggestions.get(2).getType());
+        assertNull(suggestions.get(2).getSweetId());
+        assertEquals(1L, suggestions.get(0).getSweetId());
+    }
+
+    @Test
+    @DisplayName("Should match the start of any word and honour the limit")
+    void shouldMatchTheStartOfAnyWordAndHonourTheLimit() {
+        assertEquals(List.of("Gulab Jamun", "Jam Roll"), texts(suggestionIndex.suggest("jam", 10)));
+        assertEquals(List.of("Indian"), texts(suggestionIndex.suggest("ind", 10)));
+        assertEquals(List.of("Gulab Jamun"), texts(suggestionIndex.suggest(" G ", 1)));
+        assertTrue(suggestionIndex.suggest("xyz", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should re-rank and drop terms as the catalog changes")
+    void shouldReRankAndDropTermsAsTheCatalogChanges() {
+        // When
+        suggestionIndex.updateQuantity(2L, 500);
+        suggestionIndex.put(1L, "Gulab Jamun", "Bakery", 100);
+        suggestionIndex.remove(4L);
+
+        // Then
+        assertEquals(List.of("Gujiya", "Gulab Jamun"), texts(suggestionIndex.suggest("gu", 10)));
+        assertEquals(List.of("Bakery"), texts(suggestionIndex.suggest("bak", 10)));
+        assertTrue(suggestionIndex.suggest("gumm", 10).isEmpty());
+        assertEquals(5, suggestionIndex.size());
+    }
+
+    private static List<String> texts(List<SuggestionResponse> suggestions) {
+        return suggestions.stream().map(SuggestionResponse::getText).toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.sweetshop.sweet.index;
+
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sweet Index Maintainer Tests")
+class SweetIndexMaintainerTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    private PriceIndex priceIndex;
+
+    private SweetIndexMaintainer indexMaintainer;
+
+    @BeforeEach
+    void setUp() {
+        priceIndex = new PriceIndex();
+        indexMaintainer = new SweetIndexMaintainer(sweetRepository, new NameTrigramIndex(), new FuzzyNameIndex(),
+            priceIndex, facetIndex, suggestionIndex);
+    }
+
+    @Test
+    @DisplayName("Should ignore a stock update older than the one already applied")
+    void shouldIgnoreAStockUpdateOlderThanTheOneAlreadyApplied() {
+        // When
+        indexMaintainer.stockChanged(1L, 5L, 0);
+        indexMaintainer.stockChanged(1L, 4L, 10);
+
+        // Then
+        verify(facetIndex, times(1)).updateQuantity(1L, 0);
+        verify(suggestionIndex, times(1)).updateQuantity(1L, 0);
+        verify(facetIndex, never()).updateQuantity(1L, 10);
+    }
+
+    @Test
+    @DisplayName("Should not let a late stock update overwrite a newer save")
+    void shouldNotLetALateStockUpdateOverwriteANewerSave() {
+        // Given
+        Sweet sweet = new Sweet();
+        sweet.setId(1L);
+        sweet.setVersion(7L);
+        sweet.setName("Gulab Jamun");
+        sweet.setCategory("Indian");
+        sweet.setPrice(new BigDecimal("50.00"));
+
+        // When
+        indexMaintainer.saved(sweet, 40);
+        indexMaintainer.stockChanged(1L, 6L, 3);
+        indexMaintainer.stockChanged(1L, 7L, 38);
+
+        // Then
+        verify(facetIndex, times(1)).put(1L, "Indian", new BigDecimal("50.00"), 40);
+        verify(facetIndex, never()).updateQuantity(eq(1L), eq(3));
+        verify(facetIndex, times(1)).updateQuantity(1L, 38);
+        verify(suggestionIndex, times(1)).updateQuantity(eq(1L), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should apply a saved batch once and skip rows a newer save already covers")
+    void shouldApplyASavedBatchOnceAndSkipRowsANewerSaveAlreadyCovers() {
+        // Given
+        indexMaintainer.saved(sweet(1L, 7L, "50.00"), 40);
+
+        // When
+        indexMaintainer.savedAll(List.of(sweet(1L, 6L, "40.00"), sweet(2L, 1L, "20.00")), sweet -> 5);
+
+        // Then
+        assertArrayEquals(new long[]{2L}, priceIndex.idsInRange(null, new BigDecimal("45.00")));
+        assertArrayEquals(new long[]{1L}, priceIndex.idsInRange(new BigDecimal("45.00"), null));
+        verify(facetIndex, never()).put(1L, "Indian", new BigDecimal("40.00"), 5);
+        verify(facetIndex, times(1)).put(2L, "Indian", new BigDecimal("20.00"), 5);
+    }
+
+    private Sweet sweet(Long id, Long version, String price) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setVersion(version);
+        sweet.setName("Sweet " + id);
+        sweet.setCategory("Indian");
+        sweet.setPrice(new BigDecimal(price));
+        return sweet;
+    }
+}
@@ -0,0 +1,49 @@
+package com.sweetshop.sweet.repository;
+
+import com.sweetshop.sweet.domain.Sweet;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sweet Specifications Tests")
+class SweetSpecificationsTest {
+
+    @Mock
+    private Root<Sweet> root;
+
+    @Mock
+    private CriteriaQuery<?> query;
+
+    @Mock
+    private CriteriaBuilder cb;
+
+    @Mock
+    private Path<String> name;
+
+    @Mock
+    private Expression<String> lowerName;
+
+    @Test
+    @DisplayName("Should match wildcard characters in a name literally")
+    void shouldMatchWildcardCharactersInANameLiterally() {
+        // Given
+        doReturn(name).when(root).get("name");
+        when(cb.lower(name)).thenReturn(lowerName);
+
+        // When
+        SweetSpecifications.nameContains(" 50%_Off\\ ").toPredicate(root, query, cb);
+
+        // Then
+        verify(cb, times(1)).like(lowerName, "%50\\%\\_off\\\\%", '\\');
+    }
+}
@@ -0,0 +1,185 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.inventory.service.ShardedStockService;
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.BulkSweetItem;
+import com.sweetshop.sweet.dto.BulkSweetLineStatus;
+import com.sweetshop.sweet.dto.BulkSweetResponse;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.repository.SweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.Validation;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sweet Bulk Service Tests")
+class SweetBulkServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private SweetIndexMaintainer indexMaintainer;
+
+    @Mock
+    private SweetChangeLog changeLog;
+
+    private SweetBulkServiceImpl bulkService;
+
+    @BeforeEach
+    void setUp() {
+        bulkService = new SweetBulkServiceImpl(entityManager, transactionManager, sweetRepository, shardedStockService,
+            new SweetCache(new SimpleMeterRegistry(), 100), indexMaintainer, changeLog,
+            Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    @Test
+    @DisplayName("Should insert valid rows in batched chunks and report invalid rows")
+    void shouldInsertValidRowsInBatchedChunksAndReportInvalidRows() {
+        // Given
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        assignIdsOnPersist();
+        List<BulkSweetItem> items = List.of(
+            item(null, "Gulab Jamun", "50.00"),
+            item(null, "", "20.00"),
+            item(null, "Rasgulla", "30.00"),
+            item(null, "Jalebi", "-1.00"),
+            item(null, "Barfi", "40.00"));
+
+        // When
+        BulkSweetResponse response = bulkService.createAll(items);
+
+        // Then
+        assertEquals(3, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals(BulkSweetLineStatus.CREATED, response.getLines().get(0).getStatus());
+        assertEquals(BulkSweetLineStatus.INVALID, response.getLines().get(1).getStatus());
+        assertEquals("Name is required", response.getLines().get(1).getMessage());
+        assertEquals(BulkSweetLineStatus.INVALID, response.getLines().get(3).getStatus());
+        assertNotNull(response.getLines().get(4).getId());
+        verify(entityManager, times(3)).persist(any(Sweet.class));
+        verify(session, times(2)).setJdbcBatchSize(2);
+        verify(transactionManager, times(2)).commit(any());
+        verify(indexMaintainer, times(2)).savedAll(anyList());
+        verify(changeLog, times(2)).changedAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should replay a failed chunk row by row to isolate the failing row")
+    void shouldReplayAFailedChunkRowByRowToIsolateTheFailingRow() {
+        // Given
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            Sweet sweet = invocation.getArgument(0);
+            if ("Broken".equals(sweet.getName())) {
+                throw new PersistenceException("value too long for column");
+            }
+            sweet.setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Sweet.class));
+
+        // When
+        BulkSweetResponse response = bulkService.createAll(List.of(
+            item(null, "Gulab Jamun", "50.00"),
+            item(null, "Broken", "20.00")));
+
+        // Then
+        assertEquals(1, response.getSucceeded());
+        assertEquals(BulkSweetLineStatus.CREATED, response.getLines().get(0).getStatus());
+        assertEquals(BulkSweetLineStatus.FAILED, response.getLines().get(1).getStatus());
+        assertEquals("value too long for column", response.getLines().get(1).getMessage());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should update found rows and report missing and duplicate ids")
+    void shouldUpdateFoundRowsAndReportMissingAndDuplicateIds() {
+        // Given
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        Sweet existing = new Sweet();
+        existing.setId(1L);
+        existing.setName("Gulab Jamun");
+        existing.setCategory("Indian");
+        existing.setPrice(new BigDecimal("50.00"));
+        existing.setQuantity(10);
+        when(sweetRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(existing));
+
+        // When
+        BulkSweetResponse response = bulkService.updateAll(List.of(
+            item(1L, "Gulab Jamun", "55.00"),
+            item(2L, "Rasgulla", "30.00"),
+            item(1L, "Gulab Jamun", "60.00")));
+
+        // Then
+        assertEquals(BulkSweetLineStatus.UPDATED, response.getLines().get(0).getStatus());
+        assertEquals(BulkSweetLineStatus.NOT_FOUND, response.getLines().get(1).getStatus());
+        assertEquals(BulkSweetLineStatus.INVALID, response.getLines().get(2).getStatus());
+        assertEquals(new BigDecimal("55.00"), existing.getPrice());
+        verify(entityManager, times(1)).flush();
+        verify(indexMaintainer, times(1)).savedAll(eq(List.of(existing)), argThat(quantityOf -> quantityOf.applyAsInt(existing) == 100));
+        verifyNoInteractions(shardedStockService);
+    }
+
+    @Test
+    @DisplayName("Should reject ids on create and require them on update")
+    void shouldRejectIdsOnCreateAndRequireThemOnUpdate() {
+        // When
+        BulkSweetResponse created = bulkService.createAll(List.of(item(5L, "Gulab Jamun", "50.00")));
+        BulkSweetResponse updated = bulkService.updateAll(List.of(item(null, "Gulab Jamun", "50.00")));
+
+        // Then
+        assertEquals("Id must not be set when creating", created.getLines().get(0).getMessage());
+        assertEquals("Id is required", updated.getLines().get(0).getMessage());
+        verifyNoInteractions(entityManager, transactionManager);
+    }
+
+    private void assignIdsOnPersist() {
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            Sweet sweet = invocation.getArgument(0);
+            sweet.setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Sweet.class));
+    }
+
+    private static BulkSweetItem item(Long id, String name, String price) {
+        BulkSweetItem item = new BulkSweetItem();
+        item.setId(id);
+        item.setName(name);
+        item.setCategory("Indian");
+        item.setPrice(new BigDecimal(price));
+        item.setQuantity(100);
+        return item;
+    }
+}
@@ -0,0 +1,103 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SweetResponse;
+import com.sweetshop.sweet.dto.VersionedSweet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Sweet Cache Tests")
+class SweetCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SweetCache sweetCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweetCache = new SweetCache(meterRegistry, 16);
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void shouldCountHitsAndMisses() {
+        // When
+        sweetCache.get(1L, () -> sweet(1L, 3L, "50.00"));
+        SweetResponse cached = sweetCache.get(1L, () -> fail("Cached sweet should not be reloaded"));
+
+        // Then
+        assertEquals(new BigDecimal("50.00"), cached.getPrice());
+        assertEquals(1.0, meterRegistry.get("sweet.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("sweet.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should not cache a row loaded before a concurrent invalidation")
+    void shouldNotCacheARowLoadedBeforeAConcurrentInvalidation() {
+        // When
+        sweetCache.get(1L, () -> {
+            Sweet stale = sweet(1L, 3L, "50.00");
+            sweetCache.evict(1L);
+            return stale;
+        });
+        SweetResponse reloaded = sweetCache.get(1L, () -> sweet(1L, 4L, "55.00"));
+
+        // Then
+        assertEquals(new BigDecimal("55.00"), reloaded.getPrice());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when a segment is full")
+    void shouldEvictTheLeastRecentlyUsedEntryWhenASegmentIsFull() {
+        // Given a single-entry segment shared by ids 1 and 17
+        sweetCache.get(1L, () -> sweet(1L, 1L, "50.00"));
+
+        // When
+        sweetCache.get(17L, () -> sweet(17L, 1L, "20.00"));
+
+        // Then
+        assertEquals(1, sweetCache.size());
+        assertEquals(1.0, meterRegistry.get("sweet.cache.evictions").counter().count());
+    }
+
+    private static Sweet sweet(Long id, Long version, String price) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setVersion(version);
+        sweet.setName("Gulab Jamun");
+        sweet.setPrice(new BigDecimal(price));
+        sweet.setQuantity(100);
+        return sweet;
+    }
+
+    @Test
+    @DisplayName("Should tag a cached sweet with its version and quantity")
+    void shouldTagACachedSweetWithItsVersionAndQuantity() {
+        // When
+        VersionedSweet loaded = sweetCache.getVersioned(1L, () -> sweet(1L, 3L, "50.00"));
+
+        // Then
+        assertEquals("\"3-100\"", loaded.getEtag());
+        assertEquals("\"3-100\"", sweetCache.etag(1L));
+        assertNull(sweetCache.etag(2L));
+    }
+
+    @Test
+    @DisplayName("Should drop the cached tag on invalidation")
+    void shouldDropTheCachedTagOnInvalidation() {
+        // Given
+        sweetCache.get(1L, () -> sweet(1L, 3L, "50.00"));
+
+        // When
+        sweetCache.evict(1L);
+
+        // Then
+        assertNull(sweetCache.etag(1L));
+    }
+}
@@ -0,0 +1,252 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.exception.BadRequestException;
+import com.sweetshop.sweet.repository.SweetChange;
+import com.sweetshop.sweet.repository.SweetRepository;
+import com.sweetshop.sweet.repository.SweetTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sweet Change Log Tests")
+class SweetChangeLogTest {
+
+    private static final Comparator<FeedRow> FEED_ORDER =
+        Comparator.comparingLong(FeedRow::getChangeTxid).thenComparingLong(FeedRow::getChangeSeq);
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private SweetTombstoneRepository tombstoneRepository;
+
+    private SweetChangeLog changeLog;
+
+    // Stands in for the three stamped tables; rows of open transactions are invisible to readers.
+    private final List<FeedRow> feed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new SweetChangeLog(sweetRepository, tombstoneRepository);
+    }
+
+    @Test
+    @DisplayName("Should ask for a reset and hand out the current token when no token is given")
+    void shouldAskForAResetAndHandOutTheCurrentTokenWhenNoTokenIsGiven() {
+        // Given
+        useFeed();
+        commit(write(100L, 42L, 1L, false));
+
+        // When
+        SweetChangeLog.Batch batch = changeLog.since(null, 10);
+
+        // Then
+        assertTrue(batch.reset());
+        assertEquals("100.42", batch.token());
+        assertTrue(batch.deletedById().isEmpty());
+        verify(sweetRepository, never()).findChangesAfter(anyLong(), anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should collapse repeated changes to the latest state of each sweet")
+    void shouldCollapseRepeatedChangesToTheLatestStateOfEachSweet() {
+        // Given
+        useFeed();
+        String token = changeLog.since(null, 10).token();
+        commit(write(100L, 11L, 1L, false), write(100L, 12L, 2L, false));
+        commit(write(101L, 13L, 1L, true));
+
+        // When
+        SweetChangeLog.Batch batch = changeLog.since(token, 10);
+
+        // Then
+        assertFalse(batch.reset());
+        assertFalse(batch.hasMore());
+        assertEquals("101.13", batch.token());
+        assertEquals(List.of(2L, 1L), List.copyOf(batch.deletedById().keySet()));
+        assertEquals(Map.of(1L, true, 2L, false), batch.deletedById());
+    }
+
+    @Test
+    @DisplayName("Should page through changes with the returned token")
+    void shouldPageThroughChangesWithTheReturnedToken() {
+        // Given
+        useFeed();
+        String token = changeLog.since(null, 10).token();
+        commit(write(100L, 1L, 1L, false), write(100L, 2L, 2L, false), write(100L, 3L, 3L, false));
+
+        // When
+        SweetChangeLog.Batch first = changeLog.since(token, 2);
+        SweetChangeLog.Batch second = changeLog.since(first.token(), 2);
+
+        // Then
+        assertTrue(first.hasMore());
+        assertEquals("100.2", first.token());
+        assertEquals(List.of(1L, 2L), List.copyOf(first.deletedById().keySet()));
+        assertFalse(second.hasMore());
+        assertEquals(List.of(3L), List.copyOf(second.deletedById().keySet()));
+    }
+
+    @Test
+    @DisplayName("Should still deliver a lower position that commits after a higher one was read")
+    void shouldStillDeliverALowerPositionThatCommitsAfterAHigherOneWasRead() {
+        // Given
+        useFeed();
+        String token = changeLog.since(null, 10).token();
+        List<FeedRow> slow = write(100L, 5L, 1L, false);
+        commit(write(101L, 6L, 2L, false));
+
+        // When
+        SweetChangeLog.Batch whileOpen = changeLog.since(token, 10);
+        commit(slow);
+        SweetChangeLog.Batch afterCommit = changeLog.since(whileOpen.token(), 10);
+        SweetChangeLog.Batch settled = changeLog.since(afterCommit.token(), 10);
+
+        // Then
+        assertTrue(whileOpen.deletedById().isEmpty());
+        assertEquals(token, whileOpen.token());
+        assertEquals(List.of(1L, 2L), List.copyOf(afterCommit.deletedById().keySet()));
+        assertEquals("101.6", afterCommit.token());
+        assertTrue(settled.deletedById().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should ask for a reset on a token ahead of the feed and reject malformed tokens")
+    void shouldAskForAResetOnATokenAheadOfTheFeedAndRejectMalformedTokens() {
+        // Given
+        useFeed();
+        commit(write(100L, 5L, 1L, false));
+
+        // When & Then
+        assertTrue(changeLog.since("100.9", 10).reset());
+        assertThrows(BadRequestException.class, () -> changeLog.since("garbage", 10));
+        assertThrows(BadRequestException.class, () -> changeLog.since("9", 10));
+        assertThrows(BadRequestException.class, () -> changeLog.since("-1.4", 10));
+    }
+
+    @Test
+    @DisplayName("Should move the latest token only once a change is safe to read")
+    void shouldMoveTheLatestTokenOnlyOnceAChangeIsSafeToRead() {
+        // Given
+        useFeed();
+        commit(write(100L, 7L, 1L, false));
+        List<FeedRow> slow = write(101L, 8L, 2L, false);
+        commit(write(102L, 9L, 3L, false));
+
+        // When
+        String whileOpen = changeLog.latestToken();
+        commit(slow);
+        String afterCommit = changeLog.latestToken();
+
+        // Then
+        assertEquals("100.7", whileOpen);
+        assertEquals("102.9", afterCommit);
+    }
+
+    @Test
+    @DisplayName("Should stamp changed sweets and record a tombstone for deleted ones")
+    void shouldStampChangedSweetsAndRecordATombstoneForDeletedOnes() {
+        // When
+        changeLog.changed(1L);
+        changeLog.changedAll(List.of(2L, 3L));
+        changeLog.changedAll(List.of());
+        changeLog.deleted(4L);
+
+        // Then
+        verify(sweetRepository, times(1)).stampChange(1L);
+        verify(sweetRepository, times(1)).stampChanges(List.of(2L, 3L));
+        verify(tombstoneRepository, times(1)).recordDeletion(4L);
+    }
+
+    private void useFeed() {
+        // Like txid_snapshot_xmin: the oldest open transaction, or past every transaction seen once none is open.
+        lenient().when(sweetRepository.findChangeHorizon()).thenAnswer(invocation -> feed.stream()
+                .filter(row -> !row.committed)
+                .mapToLong(FeedRow::getChangeTxid)
+                .min()
+                .orElse(feed.stream().mapToLong(FeedRow::getChangeTxid).max().orElse(0L) + 1));
+        lenient().when(sweetRepository.findChangesAfter(anyLong(), anyLong(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> {
+                    FeedRow after = new FeedRow(invocation.getArgument(0), invocation.getArgument(1), 0L, false);
+                    long horizon = invocation.getArgument(2);
+                    return feed.stream()
+                            .filter(row -> row.committed && row.getChangeTxid() < horizon)
+                            .filter(row -> FEED_ORDER.compare(row, after) > 0)
+                            .sorted(FEED_ORDER)
+                            .limit(invocation.<Integer>getArgument(3))
+                            .map(SweetChange.class::cast)
+                            .toList();
+                });
+        lenient().when(sweetRepository.findLatestChangeBefore(anyLong())).thenAnswer(invocation -> {
+            long horizon = invocation.getArgument(0);
+            Optional<SweetChange> latest = feed.stream()
+                    .filter(row -> row.committed && row.getChangeTxid() < horizon)
+                    .max(FEED_ORDER)
+                    .map(SweetChange.class::cast);
+            return latest;
+        });
+    }
+
+    private List<FeedRow> write(Long txid, Long seq, Long sweetId, boolean deleted) {
+        FeedRow row = new FeedRow(txid, seq, sweetId, deleted);
+        feed.add(row);
+        return List.of(row);
+    }
+
+    @SafeVarargs
+    private void commit(List<FeedRow>... writes) {
+        for (List<FeedRow> rows : writes) {
+            rows.forEach(row -> row.committed = true);
+        }
+    }
+
+    private static final class FeedRow implements SweetChange {
+        private final Long changeTxid;
+        private final Long changeSeq;
+        private final Long sweetId;
+        private final Boolean deleted;
+        private boolean committed;
+
+        private FeedRow(Long changeTxid, Long changeSeq, Long sweetId, Boolean deleted) {
+            this.changeTxid = changeTxid;
+            this.changeSeq = changeSeq;
+            this.sweetId = sweetId;
+            this.deleted = deleted;
+        }
+
+        @Override
+        public Long getChangeTxid() {
+            return changeTxid;
+        }
+
+        @Override
+        public Long getChangeSeq() {
+            return changeSeq;
+        }
+
+        @Override
+        public Long getSweetId() {
+            return sweetId;
+        }
+
+        @Override
+        public Boolean getDeleted() {
+            return deleted;
+        }
+    }
+}
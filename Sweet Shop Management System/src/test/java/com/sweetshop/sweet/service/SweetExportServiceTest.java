@@ -0,0 +1,128 @@
+package com.sweetshop.sweet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.sweet.domain.Sweet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sweet Export Service Tests")
+class SweetExportServiceTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private StatelessSession session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Query<Sweet> query;
+
+    @Mock
+    private ScrollableResults<Sweet> rows;
+
+    private SweetExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        exportService = new SweetExportServiceImpl(entityManagerFactory, new ObjectMapper(), 250);
+    }
+
+    @Test
+    @DisplayName("Should stream every row as one JSON line through a forward-only cursor")
+    void shouldStreamEveryRowAsOneJsonLineThroughAForwardOnlyCursor() throws Exception {
+        // Given
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.createQuery(anyString(), eq(Sweet.class))).thenReturn(query);
+        when(query.setReadOnly(true)).thenReturn(query);
+        when(query.setFetchSize(250)).thenReturn(query);
+        when(query.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(rows);
+        when(rows.next()).thenReturn(true, true, false);
+        when(rows.get()).thenReturn(sweet(1L, "Gulab Jamun"), sweet(2L, "Rasgulla"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long written = exportService.exportAll(out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Gulab Jamun\""));
+        assertTrue(lines[1].contains("\"name\":\"Rasgulla\""));
+        verify(transaction, times(1)).commit();
+        verify(rows, times(1)).close();
+        verify(session, times(1)).close();
+    }
+
+    @Test
+    @DisplayName("Should flush per fetched batch rather than after every row")
+    void shouldFlushPerFetchedBatchRatherThanAfterEveryRow() throws Exception {
+        // Given
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.createQuery(anyString(), eq(Sweet.class))).thenReturn(query);
+        when(query.setReadOnly(true)).thenReturn(query);
+        when(query.setFetchSize(250)).thenReturn(query);
+        when(query.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(rows);
+        when(rows.next()).thenReturn(true, true, true, true, true, false);
+        when(rows.get()).thenReturn(sweet(1L, "Gulab Jamun"), sweet(2L, "Rasgulla"), sweet(3L, "Sandesh"),
+            sweet(4L, "Jalebi"), sweet(5L, "Barfi"));
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() throws IOException {
+                flushes.incrementAndGet();
+                super.flush();
+            }
+        };
+
+        // When
+        long written = exportService.exportAll(out);
+
+        // Then
+        assertEquals(5, written);
+        assertEquals(5, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertTrue(flushes.get() < 5, "expected fewer flushes than rows but got " + flushes.get());
+    }
+
+    private static Sweet sweet(Long id, String name) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setName(name);
+        sweet.setCategory("Indian");
+        sweet.setPrice(new BigDecimal("50.00"));
+        sweet.setQuantity(10);
+        return sweet;
+    }
+}
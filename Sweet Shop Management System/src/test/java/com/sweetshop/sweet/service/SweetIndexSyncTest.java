@@ -0,0 +1,102 @@
+package com.sweetshop.sweet.service;
+
+import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
+import com.sweetshop.sweet.repository.SweetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Sweet Index Sync Tests")
+class SweetIndexSyncTest {
+
+    @Mock
+    private SweetChangeLog changeLog;
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private SweetIndexMaintainer indexMaintainer;
+
+    @Mock
+    private SweetCache sweetCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SweetIndexSync indexSync;
+
+    @BeforeEach
+    void setUp() {
+        indexSync = new SweetIndexSync(changeLog, sweetRepository, indexMaintainer, sweetCache, transactionManager,
+            60_000, 2);
+        when(changeLog.latestToken()).thenReturn("7.1");
+        indexSync.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        indexSync.stop();
+    }
+
+    @Test
+    @DisplayName("Should record the feed position before rebuilding the indexes")
+    void shouldRecordTheFeedPositionBeforeRebuildingTheIndexes() {
+        // Then
+        InOrder inOrder = inOrder(changeLog, indexMaintainer);
+        inOrder.verify(changeLog).latestToken();
+        inOrder.verify(indexMaintainer).rebuild();
+    }
+
+    @Test
+    @DisplayName("Should apply changes committed elsewhere page by page")
+    void shouldApplyChangesCommittedElsewherePageByPage() {
+        // Given
+        Sweet changed = new Sweet();
+        changed.setId(1L);
+        when(changeLog.since("7.1", 2))
+                .thenReturn(new SweetChangeLog.Batch("8.4", false, true, Map.of(1L, false, 2L, true)));
+        when(changeLog.since("8.4", 2))
+                .thenReturn(new SweetChangeLog.Batch("9.1", false, false, Map.of(3L, false)));
+        when(sweetRepository.findAllById(List.of(1L))).thenReturn(List.of(changed));
+        when(sweetRepository.findAllById(List.of(3L))).thenReturn(List.of());
+
+        // When
+        indexSync.poll();
+
+        // Then
+        verify(indexMaintainer, times(1)).refreshed(List.of(changed));
+        verify(indexMaintainer, times(1)).removed(List.of(2L));
+        verify(indexMaintainer, times(1)).removed(List.of(3L));
+        verify(sweetCache, times(1)).evict(1L);
+        verify(sweetCache, times(1)).evict(2L);
+        verify(sweetCache, times(1)).evict(3L);
+    }
+
+    @Test
+    @DisplayName("Should rebuild when the feed no longer knows the position")
+    void shouldRebuildWhenTheFeedNoLongerKnowsThePosition() {
+        // Given
+        when(changeLog.since("7.1", 2)).thenReturn(new SweetChangeLog.Batch("0.0", true, false, Map.of()));
+
+        // When
+        indexSync.poll();
+
+        // Then
+        verify(indexMaintainer, times(2)).rebuild();
+        verify(indexMaintainer, never()).refreshed(anyList());
+    }
+}
@@ -1,29 +1,43 @@
 package com.sweetshop.sweet.service;
 
+import com.sweetshop.common.mapper.SweetMapper;
+import com.sweetshop.exception.BadRequestException;
 import com.sweetshop.exception.ResourceNotFoundException;
 import com.sweetshop.exception.UnauthorizedException;
+import com.sweetshop.inventory.service.ShardedStockService;
+import com.sweetshop.security.AuthenticatedUser;
 import com.sweetshop.sweet.domain.Sweet;
+import com.sweetshop.sweet.dto.SearchRequest;
+import com.sweetshop.sweet.dto.SweetChangesResponse;
+import com.sweetshop.sweet.index.FuzzyNameIndex;
+import com.sweetshop.sweet.index.NameTrigramIndex;
+import com.sweetshop.sweet.index.PriceIndex;
+import com.sweetshop.sweet.index.SuggestionIndex;
+import com.sweetshop.sweet.index.SweetIndexMaintainer;
 import com.sweetshop.sweet.dto.PagedSweetResponse;
 import com.sweetshop.sweet.dto.SweetRequest;
 import com.sweetshop.sweet.dto.SweetResponse;
 import com.sweetshop.sweet.repository.SweetRepository;
+import com.sweetshop.sweet.repository.SweetVersion;
 import com.sweetshop.user.domain.Role;
 import com.sweetshop.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,7 +47,18 @@ class SweetServiceTest {
     @Mock
     private SweetRepository sweetRepository;
 
-    @InjectMocks
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private SweetIndexMaintainer indexMaintainer;
+
+    @Mock
+    private SweetChangeLog changeLog;
+
+    private NameTrigramIndex nameIndex;
+    private FuzzyNameIndex fuzzyIndex;
+    private PriceIndex priceIndex;
     private SweetServiceImpl sweetService;
 
     private SweetRequest sweetRequest;
@@ -43,6 +68,13 @@ class SweetServiceTest {
 
     @BeforeEach
     void setUp() {
+        nameIndex = new NameTrigramIndex();
+        fuzzyIndex = new FuzzyNameIndex();
+        priceIndex = new PriceIndex();
+        sweetService = new SweetServiceImpl(sweetRepository, shardedStockService,
+            new SweetCache(new SimpleMeterRegistry(), 1000), nameIndex, fuzzyIndex, priceIndex, new SuggestionIndex(),
+            indexMaintainer, changeLog, 5000, 2);
+
         sweetRequest = new SweetRequest();
         sweetRequest.setName("Gulab Jamun");
         sweetRequest.setCategory("Indian");
@@ -108,7 +140,7 @@ class SweetServiceTest {
         sweet2.setPrice(new BigDecimal("40.00"));
         sweet2.setQuantity(80);
 
-        when(sweetRepository.findAll()).thenReturn(Arrays.asList(sweet1, sweet2));
+        when(sweetRepository.findAllResponses()).thenReturn(responses(sweet1, sweet2));
 
         // When
         List<SweetResponse> responses = sweetService.getAllSweets();
@@ -118,7 +150,7 @@ class SweetServiceTest {
         assertEquals(2, responses.size());
         assertEquals("Gulab Jamun", responses.get(0).getName());
         assertEquals("Rasgulla", responses.get(1).getName());
-        verify(sweetRepository, times(1)).findAll();
+        verify(sweetRepository, times(1)).findAllResponses();
     }
 
     @Test
@@ -139,13 +171,13 @@ class SweetServiceTest {
         sweet2.setPrice(new BigDecimal("40.00"));
         sweet2.setQuantity(80);
 
-        org.springframework.data.domain.Page<Sweet> page = new org.springframework.data.domain.PageImpl<>(
-            Arrays.asList(sweet1, sweet2),
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(sweet1, sweet2),
             org.springframework.data.domain.PageRequest.of(0, 2),
             2
         );
 
-        when(sweetRepository.findAll(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        when(sweetRepository.findResponsePage(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
         // When
         PagedSweetResponse response = sweetService.getAllSweets(0, 2, "name", "asc");
@@ -159,7 +191,7 @@ class SweetServiceTest {
         assertEquals(1, response.getTotalPages());
         assertFalse(response.hasNext());
         assertFalse(response.hasPrevious());
-        verify(sweetRepository, times(1)).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, times(1)).findResponsePage(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -176,14 +208,14 @@ class SweetServiceTest {
         sweet2.setName("Rasgulla");
         sweet2.setPrice(new BigDecimal("40.00"));
 
-        org.springframework.data.domain.Page<Sweet> page = new org.springframework.data.domain.PageImpl<>(
-            Arrays.asList(sweet2, sweet1),
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(sweet2, sweet1),
             org.springframework.data.domain.PageRequest.of(0, 10, 
                 org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.ASC, "price")),
             2
         );
 
-        when(sweetRepository.findAll(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        when(sweetRepository.findResponsePage(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
         // When
         PagedSweetResponse response = sweetService.getAllSweets(0, 10, "price", "asc");
@@ -193,7 +225,7 @@ class SweetServiceTest {
         assertEquals(2, response.getContent().size());
         assertEquals(new BigDecimal("40.00"), response.getContent().get(0).getPrice());
         assertEquals(new BigDecimal("50.00"), response.getContent().get(1).getPrice());
-        verify(sweetRepository, times(1)).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, times(1)).findResponsePage(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -210,14 +242,14 @@ class SweetServiceTest {
         sweet2.setName("Rasgulla");
         sweet2.setPrice(new BigDecimal("40.00"));
 
-        org.springframework.data.domain.Page<Sweet> page = new org.springframework.data.domain.PageImpl<>(
-            Arrays.asList(sweet1, sweet2),
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(sweet1, sweet2),
             org.springframework.data.domain.PageRequest.of(0, 10,
                 org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.DESC, "price")),
             2
         );
 
-        when(sweetRepository.findAll(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        when(sweetRepository.findResponsePage(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
         // When
         PagedSweetResponse response = sweetService.getAllSweets(0, 10, "price", "desc");
@@ -227,7 +259,7 @@ class SweetServiceTest {
         assertEquals(2, response.getContent().size());
         assertEquals(new BigDecimal("50.00"), response.getContent().get(0).getPrice());
         assertEquals(new BigDecimal("40.00"), response.getContent().get(1).getPrice());
-        verify(sweetRepository, times(1)).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, times(1)).findResponsePage(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -244,14 +276,14 @@ class SweetServiceTest {
         sweet2.setName("Rasgulla");
         sweet2.setPrice(new BigDecimal("40.00"));
 
-        org.springframework.data.domain.Page<Sweet> page = new org.springframework.data.domain.PageImpl<>(
-            Arrays.asList(sweet1, sweet2),
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(sweet1, sweet2),
             org.springframework.data.domain.PageRequest.of(0, 10,
                 org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.ASC, "name")),
             2
         );
 
-        when(sweetRepository.findAll(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        when(sweetRepository.findResponsePage(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
         // When
         PagedSweetResponse response = sweetService.getAllSweets(0, 10, "name", "asc");
@@ -261,7 +293,7 @@ class SweetServiceTest {
         assertEquals(2, response.getContent().size());
         assertEquals("Gulab Jamun", response.getContent().get(0).getName());
         assertEquals("Rasgulla", response.getContent().get(1).getName());
-        verify(sweetRepository, times(1)).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, times(1)).findResponsePage(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -272,14 +304,14 @@ class SweetServiceTest {
         sweet1.setId(1L);
         sweet1.setName("Gulab Jamun");
 
-        org.springframework.data.domain.Page<Sweet> page = new org.springframework.data.domain.PageImpl<>(
-            Arrays.asList(sweet1),
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(sweet1),
             org.springframework.data.domain.PageRequest.of(0, 10,
                 org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.ASC, "id")),
             1
         );
 
-        when(sweetRepository.findAll(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        when(sweetRepository.findResponsePage(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
         // When
         PagedSweetResponse response = sweetService.getAllSweets(0, 10, "invalidField", "asc");
@@ -287,7 +319,7 @@ class SweetServiceTest {
         // Then
         assertNotNull(response);
         assertEquals(1, response.getContent().size());
-        verify(sweetRepository, times(1)).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, times(1)).findResponsePage(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -302,13 +334,13 @@ class SweetServiceTest {
         sweet2.setId(2L);
         sweet2.setName("Sweet 2");
 
-        org.springframework.data.domain.Page<Sweet> page = new org.springframework.data.domain.PageImpl<>(
-            Arrays.asList(sweet1, sweet2),
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(sweet1, sweet2),
             org.springframework.data.domain.PageRequest.of(0, 2),
             5
         );
 
-        when(sweetRepository.findAll(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        when(sweetRepository.findResponsePage(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
         // When
         PagedSweetResponse response = sweetService.getAllSweets(0, 2, "id", "asc");
@@ -322,7 +354,7 @@ class SweetServiceTest {
         assertEquals(3, response.getTotalPages());
         assertTrue(response.hasNext());
         assertFalse(response.hasPrevious());
-        verify(sweetRepository, times(1)).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, times(1)).findResponsePage(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -341,6 +373,26 @@ class SweetServiceTest {
         verify(sweetRepository, times(1)).findById(1L);
     }
 
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache until the sweet is updated")
+    void shouldServeRepeatedLookupsFromTheCacheUntilTheSweetIsUpdated() {
+        // Given
+        when(sweetRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
+        when(sweetRepository.save(any(Sweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        sweetService.getSweetById(1L);
+        sweetService.getSweetById(1L);
+        verify(sweetRepository, times(1)).findById(1L);
+
+        // When
+        sweetRequest.setPrice(new BigDecimal("55.00"));
+        sweetService.updateSweet(1L, sweetRequest, adminUser);
+        SweetResponse response = sweetService.getSweetById(1L);
+
+        // Then
+        assertEquals(new BigDecimal("55.00"), response.getPrice());
+        verify(sweetRepository, times(3)).findById(1L);
+    }
+
     @Test
     @DisplayName("Should throw ResourceNotFoundException when sweet not found by id")
     void shouldThrowResourceNotFoundExceptionWhenSweetNotFoundById() {
@@ -414,6 +466,7 @@ class SweetServiceTest {
         // Then
         verify(sweetRepository, times(1)).findById(1L);
         verify(sweetRepository, times(1)).deleteById(1L);
+        verify(changeLog, times(1)).deleted(1L);
     }
 
     @Test
@@ -468,7 +521,7 @@ class SweetServiceTest {
         sweet2.setPrice(new BigDecimal("60.00"));
         sweet2.setQuantity(50);
 
-        when(sweetRepository.findByNameContainingIgnoreCase("gulab")).thenReturn(Arrays.asList(sweet1, sweet2));
+        when(sweetRepository.findResponsesByNameContaining("gulab")).thenReturn(responses(sweet1, sweet2));
 
         // When
         List<SweetResponse> responses = sweetService.searchByName("gulab");
@@ -477,14 +530,14 @@ class SweetServiceTest {
         assertNotNull(responses);
         assertEquals(2, responses.size());
         assertTrue(responses.stream().allMatch(s -> s.getName().toLowerCase().contains("gulab")));
-        verify(sweetRepository, times(1)).findByNameContainingIgnoreCase("gulab");
+        verify(sweetRepository, times(1)).findResponsesByNameContaining("gulab");
     }
 
     @Test
     @DisplayName("Should return empty list when no sweets found by name")
     void shouldReturnEmptyListWhenNoSweetsFoundByName() {
         // Given
-        when(sweetRepository.findByNameContainingIgnoreCase("nonexistent")).thenReturn(List.of());
+        when(sweetRepository.findResponsesByNameContaining("nonexistent")).thenReturn(List.of());
 
         // When
         List<SweetResponse> responses = sweetService.searchByName("nonexistent");
@@ -492,7 +545,7 @@ class SweetServiceTest {
         // Then
         assertNotNull(responses);
         assertTrue(responses.isEmpty());
-        verify(sweetRepository, times(1)).findByNameContainingIgnoreCase("nonexistent");
+        verify(sweetRepository, times(1)).findResponsesByNameContaining("nonexistent");
     }
 
     @Test
@@ -513,7 +566,7 @@ class SweetServiceTest {
         sweet2.setPrice(new BigDecimal("40.00"));
         sweet2.setQuantity(80);
 
-        when(sweetRepository.findByCategoryIgnoreCase("indian")).thenReturn(Arrays.asList(sweet1, sweet2));
+        when(sweetRepository.findResponsesByCategoryKey("indian")).thenReturn(responses(sweet1, sweet2));
 
         // When
         List<SweetResponse> responses = sweetService.searchByCategory("indian");
@@ -522,14 +575,14 @@ class SweetServiceTest {
         assertNotNull(responses);
         assertEquals(2, responses.size());
         assertTrue(responses.stream().allMatch(s -> s.getCategory().equalsIgnoreCase("indian")));
-        verify(sweetRepository, times(1)).findByCategoryIgnoreCase("indian");
+        verify(sweetRepository, times(1)).findResponsesByCategoryKey("indian");
     }
 
     @Test
     @DisplayName("Should return empty list when no sweets found by category")
     void shouldReturnEmptyListWhenNoSweetsFoundByCategory() {
         // Given
-        when(sweetRepository.findByCategoryIgnoreCase("western")).thenReturn(List.of());
+        when(sweetRepository.findResponsesByCategoryKey("western")).thenReturn(List.of());
 
         // When
         List<SweetResponse> responses = sweetService.searchByCategory("western");
@@ -537,7 +590,55 @@ class SweetServiceTest {
         // Then
         assertNotNull(responses);
         assertTrue(responses.isEmpty());
-        verify(sweetRepository, times(1)).findByCategoryIgnoreCase("western");
+        verify(sweetRepository, times(1)).findResponsesByCategoryKey("western");
+    }
+
+    @Test
+    @DisplayName("Should normalise a searched category exactly as stored category keys are")
+    void shouldNormaliseASearchedCategoryExactlyAsStoredCategoryKeysAre() {
+        // Given
+        when(sweetRepository.findResponsesByCategoryKey("indian")).thenReturn(responses(existingSweet));
+
+        // When
+        List<SweetResponse> responses = sweetService.searchByCategory("  Indian ");
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals("indian", Sweet.toCategoryKey(" INDIAN  "));
+    }
+
+    @Test
+    @DisplayName("Should backfill category keys for rows written before the column existed")
+    void shouldBackfillCategoryKeysForRowsWrittenBeforeTheColumnExisted() {
+        // When
+        sweetService.backfillCategoryKeys();
+
+        // Then
+        verify(sweetRepository, times(1)).backfillCategoryKeys();
+    }
+
+    @Test
+    @DisplayName("Should narrow a price-only search with the price index")
+    void shouldNarrowAPriceOnlySearchWithThePriceIndex() {
+        // Given
+        PriceIndex trackedPriceIndex = spy(new PriceIndex());
+        trackedPriceIndex.rebuild(Map.of(1L, new BigDecimal("50.00"), 2L, new BigDecimal("40.00")));
+        SweetServiceImpl indexedService = new SweetServiceImpl(sweetRepository, shardedStockService,
+            new SweetCache(new SimpleMeterRegistry(), 1000), nameIndex, fuzzyIndex, trackedPriceIndex,
+            new SuggestionIndex(), indexMaintainer, changeLog, 5000, 2);
+        SearchRequest criteria = new SearchRequest();
+        criteria.setMinPrice(new BigDecimal("45.00"));
+        when(sweetRepository.findResponses(
+            org.mockito.ArgumentMatchers.<org.springframework.data.jpa.domain.Specification<Sweet>>any(),
+            any(org.springframework.data.domain.Pageable.class)))
+            .thenReturn(new org.springframework.data.domain.PageImpl<>(responses(existingSweet)));
+
+        // When
+        PagedSweetResponse response = indexedService.search(criteria, 0, 10);
+
+        // Then
+        assertEquals(1, response.getContent().size());
+        verify(trackedPriceIndex, times(1)).idsInRange(new BigDecimal("45.00"), null, 5001);
     }
 
     @Test
@@ -568,8 +669,8 @@ class SweetServiceTest {
         BigDecimal minPrice = new BigDecimal("30.00");
         BigDecimal maxPrice = new BigDecimal("60.00");
 
-        when(sweetRepository.findByPriceBetween(minPrice, maxPrice))
-                .thenReturn(Arrays.asList(sweet1, sweet2));
+        when(sweetRepository.findResponsesByPriceBetween(minPrice, maxPrice))
+                .thenReturn(responses(sweet1, sweet2));
 
         // When
         List<SweetResponse> responses = sweetService.searchByPriceRange(minPrice, maxPrice);
@@ -579,7 +680,7 @@ class SweetServiceTest {
         assertEquals(2, responses.size());
         assertTrue(responses.stream().allMatch(s -> 
             s.getPrice().compareTo(minPrice) >= 0 && s.getPrice().compareTo(maxPrice) <= 0));
-        verify(sweetRepository, times(1)).findByPriceBetween(minPrice, maxPrice);
+        verify(sweetRepository, times(1)).findResponsesByPriceBetween(minPrice, maxPrice);
     }
 
     @Test
@@ -589,7 +690,7 @@ class SweetServiceTest {
         BigDecimal minPrice = new BigDecimal("200.00");
         BigDecimal maxPrice = new BigDecimal("300.00");
 
-        when(sweetRepository.findByPriceBetween(minPrice, maxPrice)).thenReturn(List.of());
+        when(sweetRepository.findResponsesByPriceBetween(minPrice, maxPrice)).thenReturn(List.of());
 
         // When
         List<SweetResponse> responses = sweetService.searchByPriceRange(minPrice, maxPrice);
@@ -597,7 +698,7 @@ class SweetServiceTest {
         // Then
         assertNotNull(responses);
         assertTrue(responses.isEmpty());
-        verify(sweetRepository, times(1)).findByPriceBetween(minPrice, maxPrice);
+        verify(sweetRepository, times(1)).findResponsesByPriceBetween(minPrice, maxPrice);
     }
 
     @Test
@@ -605,8 +706,8 @@ class SweetServiceTest {
     void shouldHandlePriceRangeWithSameMinAndMaxPrice() {
         // Given
         BigDecimal price = new BigDecimal("50.00");
-        when(sweetRepository.findByPriceBetween(price, price))
-                .thenReturn(List.of(existingSweet));
+        when(sweetRepository.findResponsesByPriceBetween(price, price))
+                .thenReturn(responses(existingSweet));
 
         // When
         List<SweetResponse> responses = sweetService.searchByPriceRange(price, price);
@@ -615,7 +716,368 @@ class SweetServiceTest {
         assertNotNull(responses);
         assertEquals(1, responses.size());
         assertEquals(price, responses.get(0).getPrice());
-        verify(sweetRepository, times(1)).findByPriceBetween(price, price);
+        verify(sweetRepository, times(1)).findResponsesByPriceBetween(price, price);
+    }
+
+    @Test
+    @DisplayName("Should continue from the returned cursor with a seek query and no count")
+    void shouldContinueFromTheReturnedCursorWithASeekQueryAndNoCount() {
+        // Given
+        Sweet sweet2 = new Sweet();
+        sweet2.setId(2L);
+        sweet2.setName("Rasgulla");
+        sweet2.setPrice(new BigDecimal("40.00"));
+
+        Sweet sweet3 = new Sweet();
+        sweet3.setId(3L);
+        sweet3.setName("Sandesh");
+        sweet3.setPrice(new BigDecimal("45.00"));
+
+        org.springframework.data.domain.Slice<SweetResponse> firstPage = new org.springframework.data.domain.SliceImpl<>(
+            responses(existingSweet),
+            org.springframework.data.domain.PageRequest.of(0, 1),
+            true
+        );
+        when(sweetRepository.findResponseSlice(any(org.springframework.data.domain.Pageable.class))).thenReturn(firstPage);
+        when(sweetRepository.findPageAfterName(eq("Gulab Jamun"), eq(1L), any(org.springframework.data.domain.Pageable.class)))
+            .thenReturn(responses(sweet2, sweet3));
+
+        // When
+        PagedSweetResponse first = sweetService.getAllSweets(0, 1, "name", "asc", false);
+        PagedSweetResponse second = sweetService.getSweetsAfter(first.getNextCursor(), 1, false);
+
+        // Then
+        assertNull(first.getTotalElements());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getContent().size());
+        assertEquals("Rasgulla", second.getContent().get(0).getName());
+        assertTrue(second.isHasNext());
+        assertTrue(second.isHasPrevious());
+        assertNotNull(second.getNextCursor());
+        verify(sweetRepository, never()).findResponsePage(any(org.springframework.data.domain.Pageable.class));
+        verify(sweetRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("Should serve the first page without a previous page when no cursor is supplied")
+    void shouldServeTheFirstPageWithoutAPreviousPageWhenNoCursorIsSupplied() {
+        // Given
+        org.springframework.data.domain.Slice<SweetResponse> firstPage = new org.springframework.data.domain.SliceImpl<>(
+            responses(existingSweet),
+            org.springframework.data.domain.PageRequest.of(0, 1),
+            true
+        );
+        when(sweetRepository.findResponseSlice(any(org.springframework.data.domain.Pageable.class))).thenReturn(firstPage);
+
+        // When
+        PagedSweetResponse page = sweetService.getSweetsAfter(null, 1, false);
+
+        // Then
+        assertFalse(page.isHasPrevious());
+        assertTrue(page.isHasNext());
+        assertNotNull(page.getNextCursor());
+        verify(sweetRepository, never()).findPageAfterId(anyLong(), any(org.springframework.data.domain.Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed pagination cursor")
+    void shouldRejectAMalformedPaginationCursor() {
+        // When & Then
+        BadRequestException exception = assertThrows(
+            BadRequestException.class,
+            () -> sweetService.getSweetsAfter("not-a-cursor", 10, false)
+        );
+
+        assertEquals("Invalid pagination cursor", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should answer name search from the trigram index once it is built")
+    void shouldAnswerNameSearchFromTheTrigramIndexOnceItIsBuilt() {
+        // Given
+        nameIndex.rebuild(Map.of(1L, "Gulab Jamun", 2L, "Rasgulla", 3L, "Kaju Katli"));
+        when(sweetRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(existingSweet, sweet(2L, "Rasgulla")));
+
+        // When
+        List<SweetResponse> responses = sweetService.searchByName("GUL");
+
+        // Then
+        assertEquals(2, responses.size());
+        assertEquals(1L, responses.get(0).getId());
+        assertEquals(2L, responses.get(1).getId());
+        verify(sweetRepository, never()).findResponsesByNameContaining(anyString());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the name query when the trigram index matches too many sweets")
+    void shouldFallBackToTheNameQueryWhenTheTrigramIndexMatchesTooManySweets() {
+        // Given
+        SweetServiceImpl cappedService = new SweetServiceImpl(sweetRepository, shardedStockService,
+            new SweetCache(new SimpleMeterRegistry(), 1000), nameIndex, fuzzyIndex, priceIndex, new SuggestionIndex(),
+            indexMaintainer, changeLog, 1, 2);
+        nameIndex.rebuild(Map.of(1L, "Gulab Jamun", 2L, "Rasgulla", 3L, "Kaju Katli"));
+        when(sweetRepository.findResponsesByNameContaining("GUL")).thenReturn(responses(existingSweet));
+
+        // When
+        List<SweetResponse> responses = cappedService.searchByName("GUL");
+
+        // Then
+        assertEquals(1, responses.size());
+        verify(sweetRepository, never()).findAllById(any());
+    }
+
+    private static List<SweetResponse> responses(Sweet... sweets) {
+        return Arrays.stream(sweets).map(SweetMapper::toResponse).toList();
+    }
+
+    private static Sweet sweet(Long id, String name) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setName(name);
+        sweet.setCategory("Indian");
+        sweet.setPrice(new BigDecimal("40.00"));
+        sweet.setQuantity(80);
+        return sweet;
+    }
+
+    @Test
+    @DisplayName("Should combine name, category and price range into one paged query")
+    void shouldCombineNameCategoryAndPriceRangeIntoOnePagedQuery() {
+        // Given
+        nameIndex.rebuild(Map.of(1L, "Gulab Jamun", 2L, "Rasgulla"));
+        SearchRequest criteria = new SearchRequest();
+        criteria.setName("gul");
+        criteria.setCategory("Indian");
+        criteria.setMinPrice(new BigDecimal("30.00"));
+        criteria.setMaxPrice(new BigDecimal("60.00"));
+        criteria.setSortBy("price");
+
+        org.springframework.data.domain.Page<SweetResponse> page = new org.springframework.data.domain.PageImpl<>(
+            responses(existingSweet),
+            org.springframework.data.domain.PageRequest.of(0, 10),
+            1
+        );
+        when(sweetRepository.findResponses(
+            org.mockito.ArgumentMatchers.<org.springframework.data.jpa.domain.Specification<Sweet>>any(),
+            any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+
+        // When
+        PagedSweetResponse response = sweetService.search(criteria, 0, 10);
+
+        // Then
+        assertEquals(1, response.getContent().size());
+        assertEquals(1L, response.getTotalElements());
+        org.mockito.ArgumentCaptor<org.springframework.data.domain.Pageable> pageable =
+            org.mockito.ArgumentCaptor.forClass(org.springframework.data.domain.Pageable.class);
+        verify(sweetRepository, times(1)).findResponses(
+            org.mockito.ArgumentMatchers.<org.springframework.data.jpa.domain.Specification<Sweet>>any(),
+            pageable.capture());
+        assertEquals("price: ASC,id: ASC", pageable.getValue().getSort().toString());
+        verify(sweetRepository, never()).findResponsesByNameContaining(anyString());
+        verify(sweetRepository, never()).findResponsesByCategoryKey(anyString());
+    }
+
+    @Test
+    @DisplayName("Should select search results straight into responses without loading entities")
+    void shouldSelectSearchResultsStraightIntoResponsesWithoutLoadingEntities() {
+        // Given
+        SearchRequest criteria = new SearchRequest();
+        criteria.setCategory("Indian");
+        when(sweetRepository.findResponses(
+            org.mockito.ArgumentMatchers.<org.springframework.data.jpa.domain.Specification<Sweet>>any(),
+            any(org.springframework.data.domain.Sort.class))).thenReturn(responses(existingSweet));
+
+        // When
+        List<SweetResponse> responses = sweetService.search(criteria);
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals("Gulab Jamun", responses.get(0).getName());
+        verify(sweetRepository, never()).findAll(
+            org.mockito.ArgumentMatchers.<org.springframework.data.jpa.domain.Specification<Sweet>>any(),
+            any(org.springframework.data.domain.Sort.class));
+    }
+
+    @Test
+    @DisplayName("Should answer price range search from the price index in price order")
+    void shouldAnswerPriceRangeSearchFromThePriceIndexInPriceOrder() {
+        // Given
+        priceIndex.rebuild(Map.of(1L, new BigDecimal("50.00"), 2L, new BigDecimal("40.00"), 3L, new BigDecimal("100.00")));
+        when(sweetRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(existingSweet, sweet(2L, "Rasgulla")));
+
+        // When
+        List<SweetResponse> responses = sweetService.searchByPriceRange(new BigDecimal("30.00"), new BigDecimal("60.00"));
+
+        // Then
+        assertEquals(2, responses.size());
+        assertEquals(2L, responses.get(0).getId());
+        assertEquals(1L, responses.get(1).getId());
+        verify(sweetRepository, never()).findResponsesByPriceBetween(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should leave out a sweet whose indexed price is stale")
+    void shouldLeaveOutASweetWhoseIndexedPriceIsStale() {
+        // Given
+        priceIndex.rebuild(Map.of(1L, new BigDecimal("50.00"), 2L, new BigDecimal("40.00")));
+        Sweet repriced = sweet(2L, "Rasgulla");
+        repriced.setPrice(new BigDecimal("90.00"));
+        when(sweetRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(existingSweet, repriced));
+
+        // When
+        List<SweetResponse> responses = sweetService.searchByPriceRange(new BigDecimal("30.00"), new BigDecimal("60.00"));
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals(1L, responses.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the price query when the range holds more sweets than the cap")
+    void shouldFallBackToThePriceQueryWhenTheRangeHoldsMoreSweetsThanTheCap() {
+        // Given
+        SweetServiceImpl cappedService = new SweetServiceImpl(sweetRepository, shardedStockService,
+            new SweetCache(new SimpleMeterRegistry(), 1000), nameIndex, fuzzyIndex, priceIndex, new SuggestionIndex(),
+            indexMaintainer, changeLog, 1, 2);
+        priceIndex.rebuild(Map.of(1L, new BigDecimal("50.00"), 2L, new BigDecimal("40.00")));
+        BigDecimal minPrice = new BigDecimal("30.00");
+        BigDecimal maxPrice = new BigDecimal("60.00");
+        when(sweetRepository.findResponsesByPriceBetween(minPrice, maxPrice)).thenReturn(responses(existingSweet));
+
+        // When
+        List<SweetResponse> responses = cappedService.searchByPriceRange(minPrice, maxPrice);
+
+        // Then
+        assertEquals(1, responses.size());
+        verify(sweetRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should rank misspelt name matches by edit distance")
+    void shouldRankMisspeltNameMatchesByEditDistance() {
+        // Given
+        fuzzyIndex.rebuild(Map.of(1L, "Gulab Jamun", 2L, "Rasgulla", 3L, "Gulab Jamun Special"));
+        when(sweetRepository.findAllById(List.of(1L))).thenReturn(List.of(existingSweet));
+
+        // When
+        List<SweetResponse> responses = sweetService.fuzzySearchByName("gulab jamon", null, 20);
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals(1L, responses.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should load only the closest fuzzy matches up to the limit")
+    void shouldLoadOnlyTheClosestFuzzyMatchesUpToTheLimit() {
+        // Given
+        fuzzyIndex.rebuild(Map.of(1L, "Gulab Jamun", 2L, "Gulab Jamin", 3L, "Gulab Jamon"));
+        when(sweetRepository.findAllById(List.of(1L))).thenReturn(List.of(existingSweet));
+
+        // When
+        List<SweetResponse> responses = sweetService.fuzzySearchByName("gulab jamun", null, 1);
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals(1L, responses.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should reject an edit distance above the configured maximum")
+    void shouldRejectAnEditDistanceAboveTheConfiguredMaximum() {
+        // When & Then
+        BadRequestException exception = assertThrows(BadRequestException.class,
+            () -> sweetService.fuzzySearchByName("gulab", 3, 20));
+        assertEquals("Maximum edit distance must be between 0 and 2", exception.getMessage());
+        verifyNoInteractions(sweetRepository);
+    }
+
+    @Test
+    @DisplayName("Should build the sweet ETag from the version query when the sweet is not cached")
+    void shouldBuildTheSweetETagFromTheVersionQueryWhenTheSweetIsNotCached() {
+        // Given
+        SweetVersion version = mock(SweetVersion.class);
+        when(version.getVersion()).thenReturn(4L);
+        when(version.getQuantity()).thenReturn(12);
+        when(sweetRepository.findVersionById(1L)).thenReturn(Optional.of(version));
+
+        // When
+        String etag = sweetService.getSweetETag(1L);
+
+        // Then
+        assertEquals("\"4-12\"", etag);
+        verify(sweetRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should throw ResourceNotFoundException when tagging a missing sweet")
+    void shouldThrowResourceNotFoundExceptionWhenTaggingAMissingSweet() {
+        // Given
+        when(sweetRepository.findVersionById(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> sweetService.getSweetETag(999L));
+    }
+
+    @Test
+    @DisplayName("Should build the catalog ETag from the shared change position")
+    void shouldBuildTheCatalogETagFromTheSharedChangePosition() {
+        // Given
+        when(changeLog.latestToken()).thenReturn("41.3", "42.1");
+
+        // When
+        String before = sweetService.getCatalogETag();
+        String after = sweetService.getCatalogETag();
+
+        // Then
+        assertEquals("\"catalog-41.3\"", before);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    @DisplayName("Should return sweets changed since a change token")
+    void shouldReturnSweetsChangedSinceAChangeToken() {
+        // Given
+        when(changeLog.since("5", 10)).thenReturn(new SweetChangeLog.Batch("6", false, false, Map.of(1L, false)));
+        when(sweetRepository.findAllById(List.of(1L))).thenReturn(List.of(existingSweet));
+
+        // When
+        SweetChangesResponse changes = sweetService.getChangesSince("5", 10);
+
+        // Then
+        assertEquals("6", changes.getToken());
+        assertFalse(changes.isResetRequired());
+        assertEquals(1, changes.getChanged().size());
+        assertEquals("Gulab Jamun", changes.getChanged().get(0).getName());
+        assertTrue(changes.getDeleted().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should send a tombstone for a sweet that was deleted after changing")
+    void shouldSendATombstoneForASweetThatWasDeletedAfterChanging() {
+        // Given
+        when(changeLog.since("5", 10)).thenReturn(new SweetChangeLog.Batch("7", false, false, Map.of(1L, true)));
+
+        // When
+        SweetChangesResponse changes = sweetService.getChangesSince("5", 10);
+
+        // Then
+        assertTrue(changes.getChanged().isEmpty());
+        assertEquals(List.of(1L), changes.getDeleted());
+    }
+
+    @Test
+    @DisplayName("Should accept a token principal in place of a user entity")
+    void shouldAcceptATokenPrincipalInPlaceOfAUserEntity() {
+        // Given
+        when(sweetRepository.findById(1L)).thenReturn(Optional.of(existingSweet));
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "admin", Role.ADMIN);
+
+        // When
+        sweetService.deleteSweet(1L, principal);
+
+        // Then
+        verify(sweetRepository, times(1)).deleteById(1L);
     }
 }
 
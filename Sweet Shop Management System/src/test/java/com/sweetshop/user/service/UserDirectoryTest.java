@@ -0,0 +1,213 @@
+package com.sweetshop.user.service;
+
+import com.sweetshop.user.domain.Role;
+import com.sweetshop.user.domain.User;
+import com.sweetshop.user.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("User Directory Tests")
+class UserDirectoryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private UserDirectory userDirectory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        userDirectory = new UserDirectory(userRepository, meterRegistry, 2,
+            Duration.ofMinutes(5), Duration.ofSeconds(5), clock);
+    }
+
+    @Test
+    @DisplayName("Should load a user once and serve later lookups from the cache")
+    void shouldLoadAUserOnceAndServeLaterLookupsFromTheCache() {
+        // Given
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice")));
+
+        // When
+        userDirectory.findByUsername("alice");
+        Optional<User> cached = userDirectory.findByUsername("alice");
+
+        // Then
+        assertTrue(cached.isPresent());
+        assertEquals(1L, cached.get().getId());
+        assertEquals(Role.USER, cached.get().getRole());
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertEquals(1.0, meterRegistry.counter("user.directory.requests", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("user.directory.requests", "result", "miss").count());
+        assertEquals(0.5, meterRegistry.get("user.directory.hit.ratio").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should hand out copies so callers cannot change the cached user")
+    void shouldHandOutCopiesSoCallersCannotChangeTheCachedUser() {
+        // Given
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice")));
+        userDirectory.findByUsername("alice");
+
+        // When
+        userDirectory.findByUsername("alice").get().setRole(Role.ADMIN);
+
+        // Then
+        assertEquals(Role.USER, userDirectory.findByUsername("alice").get().getRole());
+    }
+
+    @Test
+    @DisplayName("Should hand out a detached copy on a miss as well")
+    void shouldHandOutADetachedCopyOnAMissAsWell() {
+        // Given
+        User stored = user(1L, "alice");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(stored));
+
+        // When
+        User loaded = userDirectory.findByUsername("alice").get();
+        loaded.setRole(Role.ADMIN);
+
+        // Then
+        assertNotSame(stored, loaded);
+        assertEquals(Role.USER, userDirectory.findByUsername("alice").get().getRole());
+    }
+
+    @Test
+    @DisplayName("Should cache missing usernames only for the negative TTL")
+    void shouldCacheMissingUsernamesOnlyForTheNegativeTtl() {
+        // Given
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        // When
+        userDirectory.findByUsername("ghost");
+        userDirectory.findByUsername("ghost");
+        clock.advance(Duration.ofSeconds(5));
+        Optional<User> afterExpiry = userDirectory.findByUsername("ghost");
+
+        // Then
+        assertTrue(afterExpiry.isEmpty());
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("Should reload a user once the TTL has passed")
+    void shouldReloadAUserOnceTheTtlHasPassed() {
+        // Given
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice")));
+        userDirectory.findByUsername("alice");
+
+        // When
+        clock.advance(Duration.ofMinutes(4));
+        userDirectory.findByUsername("alice");
+        clock.advance(Duration.ofMinutes(1));
+        userDirectory.findByUsername("alice");
+
+        // Then
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should reload a user after it is invalidated")
+    void shouldReloadAUserAfterItIsInvalidated() {
+        // Given
+        when(userRepository.findByUsername("alice"))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(user(1L, "alice")));
+        userDirectory.findByUsername("alice");
+
+        // When
+        userDirectory.invalidate("alice");
+        Optional<User> reloaded = userDirectory.findByUsername("alice");
+
+        // Then
+        assertTrue(reloaded.isPresent());
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should not cache a lookup that raced with an invalidation")
+    void shouldNotCacheALookupThatRacedWithAnInvalidation() {
+        // Given
+        when(userRepository.findByUsername("alice")).thenAnswer(invocation -> {
+            userDirectory.evict("alice");
+            return Optional.of(user(1L, "alice"));
+        });
+
+        // When
+        userDirectory.findByUsername("alice");
+
+        // Then
+        assertEquals(0, userDirectory.size());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used user when full")
+    void shouldEvictTheLeastRecentlyUsedUserWhenFull() {
+        // Given
+        when(userRepository.findByUsername(anyString()))
+            .thenAnswer(invocation -> Optional.of(user(1L, invocation.getArgument(0))));
+        userDirectory.findByUsername("alice");
+        userDirectory.findByUsername("bob");
+        userDirectory.findByUsername("alice");
+
+        // When
+        userDirectory.findByUsername("carol");
+        userDirectory.findByUsername("alice");
+        userDirectory.findByUsername("bob");
+
+        // Then
+        verify(userRepository, times(1)).findByUsername("alice");
+        verify(userRepository, times(2)).findByUsername("bob");
+        assertEquals(2, userDirectory.size());
+    }
+
+    private static User user(Long id, String username) {
+        return new User(id, username, "encodedPassword", Role.USER);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}